@@ -0,0 +1,52 @@
+package com.zopa.benchmark;
+
+import com.zopa.input.MarketDataFileParser;
+import com.zopa.model.Offer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MarketDataFileParserBenchmark {
+    @Param({"7", "1000", "100000", "1000000"})
+    public int marketSize;
+
+    private final MarketDataFileParser marketDataFileParser = new MarketDataFileParser();
+    private Path marketFile;
+
+    @Setup(Level.Trial)
+    public void writeMarketFile() throws IOException {
+        marketFile = Markets.writeFile(marketSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteMarketFile() throws IOException {
+        Files.deleteIfExists(marketFile);
+    }
+
+    @Benchmark
+    public SortedSet<Offer> getOffersFromFile() throws IOException {
+        return marketDataFileParser.getOffersFromFile(marketFile.toString());
+    }
+}
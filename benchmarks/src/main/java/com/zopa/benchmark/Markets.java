@@ -0,0 +1,71 @@
+package com.zopa.benchmark;
+
+import com.zopa.model.Offer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Generates markets of a given size for the benchmarks.
+ * The market of 7 offers is the one of input.csv, larger markets are random but the same on every run
+ */
+final class Markets {
+    private static final String HEADER = "Lender,Rate,Available";
+    private static final String[] SAMPLE = {
+            "Bob,0.075,640", "Jane,0.069,480", "Fred,0.071,520", "Mary,0.104,170",
+            "John,0.081,320", "Dave,0.074,140", "Angela,0.071,60"};
+    private static final long SEED = 42;
+
+    private Markets() {
+    }
+
+    /**
+     * @param size number of offers in the market
+     * @return market data rows without the header
+     */
+    static String[] rows(final int size) {
+        if (size == SAMPLE.length)
+            return SAMPLE.clone();
+        Random random = new Random(SEED);
+        String[] rows = new String[size];
+        for (int i = 0; i < size; i++) {
+            // rates between 5.000% and 12.000%, amounts between 10 and 2000
+            int rateInThousandthsOfPercent = 5000 + random.nextInt(7001);
+            int amount = 10 + random.nextInt(1991);
+            rows[i] = "Lender" + i + "," + BigDecimal.valueOf(rateInThousandthsOfPercent, 5) + "," + amount;
+        }
+        return rows;
+    }
+
+    static SortedSet<Offer> offers(final int size) {
+        SortedSet<Offer> offers = new TreeSet<>();
+        for (String row : rows(size)) {
+            String[] columns = row.split(",");
+            offers.add(Offer.builder()
+                    .lender(columns[0])
+                    .rate(new BigDecimal(columns[1]))
+                    .amount(Integer.parseInt(columns[2]))
+                    .build());
+        }
+        return offers;
+    }
+
+    static Path writeFile(final int size) throws IOException {
+        Path file = Files.createTempFile("market-" + size + "-", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            for (String row : rows(size)) {
+                writer.newLine();
+                writer.write(row);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,87 @@
+package com.zopa.benchmark;
+
+import com.zopa.calculator.MonthlyCompoundInterestLoanCalculator;
+import com.zopa.calculator.QuoteCalculatorHelperImpl;
+import com.zopa.model.Offer;
+import com.zopa.model.Quote;
+import com.zopa.output.QuoteRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+import static com.zopa.config.Config.LOAN_LENGTH_IN_MONTHS;
+
+/**
+ * Benchmarks the stages of a quote and the whole calculation on markets of increasing size.
+ * The calculator is wired without the discount factor cache, so every invocation does the full calculation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QuoteCalculatorBenchmark {
+    private static final int REQUESTED_AMOUNT = 1000;
+
+    @Param({"7", "1000", "100000", "1000000"})
+    public int marketSize;
+
+    private final QuoteCalculatorHelperImpl quoteCalculatorHelper = new QuoteCalculatorHelperImpl();
+    private final MonthlyCompoundInterestLoanCalculator quoteCalculator =
+            new MonthlyCompoundInterestLoanCalculator(quoteCalculatorHelper);
+    private SortedSet<Offer> offers;
+    private BigDecimal rate;
+    private Quote quote;
+    private final StringBuilder buffer = new StringBuilder(128);
+
+    @Setup(Level.Trial)
+    public void generateMarket() {
+        offers = Markets.offers(marketSize);
+        rate = quoteCalculatorHelper.calculateRate(offers, REQUESTED_AMOUNT)
+                .orElseThrow(() -> new IllegalStateException("market can not cover " + REQUESTED_AMOUNT));
+        quote = quoteCalculator.calculateQuote(offers, REQUESTED_AMOUNT, LOAN_LENGTH_IN_MONTHS).get();
+    }
+
+    @Benchmark
+    public Optional<BigDecimal> calculateRate() {
+        return quoteCalculatorHelper.calculateRate(offers, REQUESTED_AMOUNT);
+    }
+
+    @Benchmark
+    public BigDecimal calculateDiscountFactor() {
+        return quoteCalculatorHelper.calculateDiscountFactor(rate, LOAN_LENGTH_IN_MONTHS);
+    }
+
+    @Benchmark
+    public Optional<Quote> calculateQuote() {
+        return quoteCalculator.calculateQuote(offers, REQUESTED_AMOUNT, LOAN_LENGTH_IN_MONTHS);
+    }
+
+    @Benchmark
+    public String quoteToString() {
+        return quote.toString();
+    }
+
+    @Benchmark
+    public StringBuilder quoteToJson() throws IOException {
+        buffer.setLength(0);
+        QuoteRenderer.DEFAULT.writeJson(quote, buffer);
+        return buffer;
+    }
+}
@@ -0,0 +1,55 @@
+package com.zopa.benchmark;
+
+import com.zopa.app.Bootstrap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cold start of a quote process wired directly and wired by Spring.
+ * Every fork is a new JVM which bootstraps and quotes once, so class loading and initialisation are measured
+ * as in a short lived quote process. Run the forks with -XX:SharedArchiveFile to measure an AppCDS archive
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+    private Path marketFile;
+
+    @Setup(Level.Trial)
+    public void writeMarketFile() throws IOException {
+        marketFile = Markets.writeFile(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteMarketFile() throws IOException {
+        Files.deleteIfExists(marketFile);
+    }
+
+    @Benchmark
+    public String direct() {
+        return Bootstrap.direct().calculate(new String[]{marketFile.toString(), "1000"});
+    }
+
+    @Benchmark
+    public String spring() {
+        return Bootstrap.withSpring().calculate(new String[]{marketFile.toString(), "1000"});
+    }
+}
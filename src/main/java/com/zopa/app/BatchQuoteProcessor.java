@@ -0,0 +1,279 @@
+package com.zopa.app;
+
+import com.zopa.calculator.AmortizationSchedule;
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.Quote;
+import com.zopa.output.AmortizationScheduleWriter;
+import com.zopa.output.QuoteRenderer;
+import lombok.NonNull;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Quotes a file of requests on a market loaded once and writes the quotes to a file in the order of the requests.
+ * A request is a line of amount and optional number of months, either as "1000,36" or as a JSON object
+ * {"amount": 1000, "months": 36}. Blank lines are skipped.
+ * Reading, calculating and writing are overlapping stages:
+ * - the calling thread reads the requests and submits each to the calculation pool
+ * - the calculation pool validates, quotes and renders the requests in parallel
+ * - a writer thread writes the rendered quotes, waiting for each in the order of the requests
+ * The futures are passed from the reader to the writer through a bounded queue, which limits the requests in
+ * flight, so reading waits for writing instead of buffering the whole file
+ */
+public class BatchQuoteProcessor {
+    public static final String CSV_HEADER = "line," + QuoteRenderer.CSV_HEADER + ",error";
+    private static final Pattern JSON_AMOUNT = jsonField("amount");
+    private static final Pattern JSON_MONTHS = jsonField("months");
+    private static final String NOT_AVAILABLE = "No available loans for the current amount";
+    private static final String INVALID_REQUEST = "Error occurred while processing input parameters: ";
+    private static final String CALCULATION_FAILED = "Error occurred while calculating the quote: ";
+    // marks the end of the requests for the writer
+    private static final Future<String> END = CompletableFuture.completedFuture(null);
+
+    private final QuoteCalculationApp quoteCalculationApp;
+    private final int parallelism;
+    private final int queueCapacity;
+
+    public BatchQuoteProcessor(@NonNull final QuoteCalculationApp quoteCalculationApp, final int parallelism,
+                               final int queueCapacity) {
+        isTrue(parallelism > 0, "parallelism should be positive");
+        isTrue(queueCapacity > 0, "queueCapacity should be positive");
+        this.quoteCalculationApp = quoteCalculationApp;
+        this.parallelism = parallelism;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Quotes every request of the requests file and writes one line per request to the quotes file,
+     * as JSON lines if the quotes file ends with .jsonl or .json, as CSV with CSV_HEADER otherwise.
+     * Invalid and unavailable requests, and requests whose calculation fails, are written with their error message
+     * @param marketSnapshot Snapshot of the market to quote on
+     * @param requestsFile path of the requests file
+     * @param quotesFile path of the quotes file, replaced if it exists
+     * @return number of requests processed
+     * @throws IOException if a file can not be read or written
+     * @throws InterruptedException if interrupted while waiting for the stages
+     */
+    public long process(@NonNull final MarketSnapshot marketSnapshot, @NonNull final Path requestsFile,
+                        @NonNull final Path quotesFile) throws IOException, InterruptedException {
+        boolean json = quotesFile.getFileName().toString().matches(".*\\.jsonl?$");
+        BlockingQueue<Future<String>> pending = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService calculationPool = Executors.newFixedThreadPool(parallelism);
+        ExecutorService writerThread = Executors.newSingleThreadExecutor();
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(requestsFile, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(quotesFile, StandardCharsets.UTF_8)) {
+            Future<Void> written = writerThread.submit(() -> {
+                write(pending, writer, json);
+                return null;
+            });
+            IOException readFailure = null;
+            try {
+                String line;
+                long lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.trim().isEmpty())
+                        continue;
+                    final String request = line;
+                    final long requestLine = lineNumber;
+                    pending.put(calculationPool.submit(() -> quote(marketSnapshot, request, requestLine, json)));
+                    count++;
+                }
+            } catch (IOException e) {
+                // let the writer finish the quotes in flight before the files are closed
+                readFailure = e;
+            }
+            pending.put(END);
+            awaitWriter(written);
+            if (readFailure != null)
+                throw readFailure;
+        } finally {
+            calculationPool.shutdownNow();
+            writerThread.shutdownNow();
+        }
+        return count;
+    }
+
+    /**
+     * Writes the amortization schedule of every request of the requests file to the schedules file as CSV with
+     * AmortizationScheduleWriter.CSV_HEADER, the loan column being the line of the request. The periods are
+     * written while they are calculated, one request after the other, so no schedule is held in memory.
+     * Invalid and unavailable requests are written as a single record with their error message, like the quotes
+     * @param marketSnapshot Snapshot of the market to quote on
+     * @param requestsFile path of the requests file
+     * @param schedulesFile path of the schedules file, replaced if it exists
+     * @return number of schedules written
+     * @throws IOException if a file can not be read or written
+     */
+    public long processSchedules(@NonNull final MarketSnapshot marketSnapshot, @NonNull final Path requestsFile,
+                                 @NonNull final Path schedulesFile) throws IOException {
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(requestsFile, StandardCharsets.UTF_8);
+             AmortizationScheduleWriter writer = new AmortizationScheduleWriter(
+                     Files.newBufferedWriter(schedulesFile, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty())
+                    continue;
+                String loan = String.valueOf(lineNumber);
+                Optional<AmortizationSchedule> schedule;
+                try {
+                    String[] fields = parseRequest(line);
+                    schedule = quoteCalculationApp.calculateSchedule(marketSnapshot, fields[0], fields[1]);
+                } catch (IllegalArgumentException e) {
+                    writer.writeError(loan, INVALID_REQUEST + e.getMessage());
+                    continue;
+                }
+                if (schedule.isPresent()) {
+                    writer.write(loan, schedule.get());
+                    count++;
+                } else {
+                    writer.writeError(loan, NOT_AVAILABLE);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the rendered quotes in the order of the requests until the end. Once writing or a calculation fails,
+     * the rest of the quotes are still taken from the queue so the reader is not blocked, and the failure
+     * is thrown at the end
+     */
+    private static void write(final BlockingQueue<Future<String>> pending, final BufferedWriter writer,
+                              final boolean json) throws Exception {
+        Exception failure = null;
+        try {
+            if (!json) {
+                writer.write(CSV_HEADER);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        Future<String> quote;
+        while ((quote = pending.take()) != END) {
+            if (failure != null)
+                continue;
+            try {
+                writer.write(quote.get());
+                writer.newLine();
+            } catch (IOException e) {
+                failure = e;
+            } catch (ExecutionException e) {
+                failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    private static void awaitWriter(final Future<Void> written) throws IOException, InterruptedException {
+        try {
+            written.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Writing quotes failed", e.getCause());
+        }
+    }
+
+    private String quote(final MarketSnapshot marketSnapshot, final String request, final long lineNumber,
+                         final boolean json) {
+        StringBuilder line = new StringBuilder(128);
+        try {
+            String[] fields = parseRequest(request);
+            Optional<Quote> quote = quoteCalculationApp.calculateQuote(marketSnapshot, fields[0], fields[1]);
+            if (quote.isPresent())
+                writeQuote(line, lineNumber, quote.get(), json);
+            else
+                writeError(line, lineNumber, NOT_AVAILABLE, json);
+        } catch (IllegalArgumentException e) {
+            writeError(line, lineNumber, INVALID_REQUEST + e.getMessage(), json);
+        } catch (RuntimeException e) {
+            // a request the market can not be quoted for fails alone, the rest of the batch goes on
+            writeError(line, lineNumber, CALCULATION_FAILED + e, json);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return line.toString();
+    }
+
+    /**
+     * @return amount and number of months of the request, the number of months is null if not requested
+     */
+    static String[] parseRequest(final String request) {
+        String trimmed = request.trim();
+        if (trimmed.startsWith("{")) {
+            Matcher amount = JSON_AMOUNT.matcher(trimmed);
+            Matcher months = JSON_MONTHS.matcher(trimmed);
+            return new String[]{amount.find() ? amount.group(1) : "", months.find() ? months.group(1) : null};
+        }
+        String[] fields = trimmed.split(",", -1);
+        if (fields.length > 2)
+            throw new IllegalArgumentException(
+                    String.format("Invalid request [%s]. Request should be an amount and optional months", request));
+        return new String[]{fields[0].trim(), fields.length == 2 ? fields[1].trim() : null};
+    }
+
+    private static Pattern jsonField(final String name) {
+        // number or string value of the field, quotes excluded
+        return Pattern.compile("\"" + name + "\"\\s*:\\s*\"?([^\",}\\s]*)");
+    }
+
+    private static void writeQuote(final StringBuilder line, final long lineNumber, final Quote quote,
+                                   final boolean json) throws IOException {
+        if (json) {
+            line.append("{\"line\":").append(lineNumber).append(",\"quote\":");
+            QuoteRenderer.DEFAULT.writeJson(quote, line);
+            line.append('}');
+        } else {
+            line.append(lineNumber).append(',');
+            QuoteRenderer.DEFAULT.writeCsv(quote, line);
+            line.append(',');
+        }
+    }
+
+    private static void writeError(final StringBuilder line, final long lineNumber, final String error,
+                                   final boolean json) {
+        if (json) {
+            line.append("{\"line\":").append(lineNumber).append(",\"error\":\"");
+            for (int i = 0; i < error.length(); i++) {
+                char c = error.charAt(i);
+                if (c == '"' || c == '\\')
+                    line.append('\\').append(c);
+                else if (c < ' ')
+                    line.append(String.format("\\u%04x", (int) c));
+                else
+                    line.append(c);
+            }
+            line.append("\"}");
+        } else {
+            line.append(lineNumber).append(",,,,,,,\"").append(error.replace("\"", "\"\"")).append('"');
+        }
+    }
+}
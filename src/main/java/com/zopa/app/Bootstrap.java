@@ -0,0 +1,62 @@
+package com.zopa.app;
+
+import com.zopa.calculator.CachingQuoteCalculator;
+import com.zopa.calculator.CachingQuoteCalculatorHelper;
+import com.zopa.calculator.FastPathLoanCalculator;
+import com.zopa.calculator.MonthlyCompoundInterestLoanCalculator;
+import com.zopa.calculator.QuoteCalculatorHelper;
+import com.zopa.calculator.QuoteCalculatorHelperImpl;
+import com.zopa.input.MarketDataFileParser;
+import lombok.NonNull;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Currency;
+
+import static com.zopa.config.Config.CURRENCY;
+import static com.zopa.config.Config.FAST_PATH_CALCULATION;
+import static com.zopa.config.Config.FAST_PATH_VERIFICATION;
+import static com.zopa.config.Config.SPRING_BOOTSTRAP;
+
+/**
+ * Creates the QuoteCalculationApp with its beans.
+ * By default the beans are wired directly, which skips scanning the classpath and refreshing a Spring context,
+ * the larger part of the startup of a short lived quote process. -Dquote.bootstrap=spring wires them with Spring.
+ * Both paths wire the same beans as the @Primary ones of the Spring context
+ */
+public final class Bootstrap {
+
+    private Bootstrap() {
+    }
+
+    public static QuoteCalculationApp create() {
+        return create(CURRENCY);
+    }
+
+    /**
+     * @param currency Currency the quotes of the app are rendered in. The Spring context quotes in
+     * Config.CURRENCY, so apps of other currencies are always wired directly
+     */
+    public static QuoteCalculationApp create(@NonNull final Currency currency) {
+        return SPRING_BOOTSTRAP && CURRENCY.equals(currency) ? withSpring() : direct(currency);
+    }
+
+    public static QuoteCalculationApp direct() {
+        return direct(CURRENCY);
+    }
+
+    public static QuoteCalculationApp direct(@NonNull final Currency currency) {
+        QuoteCalculatorHelper quoteCalculatorHelper = new CachingQuoteCalculatorHelper(new QuoteCalculatorHelperImpl());
+        MonthlyCompoundInterestLoanCalculator exactCalculator =
+                new MonthlyCompoundInterestLoanCalculator(quoteCalculatorHelper);
+        return new QuoteCalculationApp(new CachingQuoteCalculator(
+                new FastPathLoanCalculator(exactCalculator, quoteCalculatorHelper, FAST_PATH_CALCULATION,
+                        FAST_PATH_VERIFICATION, currency)), new MarketDataFileParser());
+    }
+
+    public static QuoteCalculationApp withSpring() {
+        AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+        ctx.register(QuoteCalculationApp.class);
+        ctx.refresh();
+        return ctx.getBean(QuoteCalculationApp.class);
+    }
+}
@@ -1,14 +1,293 @@
 package com.zopa.app;
 
-import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import com.zopa.input.MarketDataWatcher;
+import com.zopa.input.MarketDefinitionFileParser;
+import com.zopa.load.LoadGenerator;
+import com.zopa.load.LoadTestResult;
+import com.zopa.load.SyntheticMarketGenerator;
+import com.zopa.metrics.MetricsReporter;
+import com.zopa.metrics.QuoteMetrics;
+import com.zopa.model.MappedOrderBook;
+import com.zopa.model.MarketDefinition;
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.RateCurve;
+import com.zopa.output.RateCurveRenderer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.zopa.config.Config.BATCH_QUEUE_CAPACITY;
+import static com.zopa.config.Config.LOAD_TEST_CONCURRENCY;
+import static com.zopa.config.Config.MARKET_POLL_INTERVAL_MILLIS;
+import static com.zopa.config.Config.METRICS_REPORT_INTERVAL_MILLIS;
 
 public class Main {
+    private static final String SERVER_OPTION = "--server";
+    private static final String BATCH_OPTION = "--batch";
+    private static final String MARKETS_OPTION = "--markets";
+    private static final String SNAPSHOT_OPTION = "--snapshot";
+    private static final String SCHEDULES_OPTION = "--schedules";
+    private static final String RATE_CURVE_OPTION = "--rate-curve";
+    private static final String SYNTHETIC_MARKET_OPTION = "--synthetic-market";
+    private static final String LOAD_TEST_OPTION = "--load-test";
+    // synthetic markets look like input.csv, seeded so load tests are repeatable
+    private static final double SYNTHETIC_MIN_RATE = 0.02;
+    private static final double SYNTHETIC_MAX_RATE = 0.15;
+    private static final int SYNTHETIC_MAX_AVAILABLE = 1000;
+    private static final long SYNTHETIC_SEED = 42;
+    private static final String QUOTE_CACHE_NAME = "quotes";
+
     public static void main(String[] args) {
         System.setProperty("java.util.logging.config.file", "configuration/logging/logging.properties");
-        AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
-        ctx.register(QuoteCalculationApp.class);
-        ctx.refresh();
-        QuoteCalculationApp quoteCalculationApp = ctx.getBean(QuoteCalculationApp.class);
-        System.out.println(quoteCalculationApp.calculate(args));
+        QuoteCalculationApp quoteCalculationApp = Bootstrap.create();
+        MetricsReporter metricsReporter = startMetrics();
+        // the markets mode quotes with an app per market, registered by the market registry
+        if (args.length == 0 || !MARKETS_OPTION.equals(args[0]))
+            quoteCalculationApp.registerCacheMetrics(QUOTE_CACHE_NAME);
+        if (args.length > 0 && (SERVER_OPTION.equals(args[0]) || MARKETS_OPTION.equals(args[0]))) {
+            if (SERVER_OPTION.equals(args[0]))
+                serve(quoteCalculationApp, args);
+            else
+                serveMarkets(args);
+            if (metricsReporter != null)
+                Runtime.getRuntime().addShutdownHook(new Thread(metricsReporter::close));
+            return;
+        }
+        if (args.length > 0 && (BATCH_OPTION.equals(args[0]) || SCHEDULES_OPTION.equals(args[0]))) {
+            batch(quoteCalculationApp, args);
+        } else if (args.length > 0 && SNAPSHOT_OPTION.equals(args[0])) {
+            snapshot(quoteCalculationApp, args);
+        } else if (args.length > 0 && RATE_CURVE_OPTION.equals(args[0])) {
+            rateCurve(quoteCalculationApp, args);
+        } else if (args.length > 0 && SYNTHETIC_MARKET_OPTION.equals(args[0])) {
+            syntheticMarket(args);
+        } else if (args.length > 0 && LOAD_TEST_OPTION.equals(args[0])) {
+            loadTest(quoteCalculationApp, args);
+        } else {
+            System.out.println(quoteCalculationApp.calculate(args));
+        }
+        if (metricsReporter != null)
+            metricsReporter.close();
+    }
+
+    /**
+     * Exposes the quote metrics over JMX and logs them periodically if they are enabled
+     * @return reporter of the metrics, null if they are disabled
+     */
+    private static MetricsReporter startMetrics() {
+        if (!QuoteMetrics.GLOBAL.isEnabled())
+            return null;
+        QuoteMetrics.GLOBAL.registerMBeans();
+        return new MetricsReporter(QuoteMetrics.GLOBAL, METRICS_REPORT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Loads the market once and quotes a file of requests into a file of quotes, or of amortization schedules
+     */
+    private static void batch(final QuoteCalculationApp quoteCalculationApp, final String[] args) {
+        boolean schedules = SCHEDULES_OPTION.equals(args[0]);
+        if (args.length != 4) {
+            System.out.println("Usage: quote " + args[0] + " [market_file] [requests_file] ["
+                    + (schedules ? "schedules_file" : "quotes_file") + "]");
+            return;
+        }
+        MarketSnapshot marketSnapshot;
+        try {
+            marketSnapshot = new MarketSnapshot(1, quoteCalculationApp.loadOrderBook(args[1]),
+                    System.currentTimeMillis());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error occurred while processing input parameters: " + e.getMessage());
+            return;
+        } catch (IOException e) {
+            System.out.println("Error occurred while reading the market file: " + e.getMessage());
+            return;
+        }
+        BatchQuoteProcessor batchQuoteProcessor = new BatchQuoteProcessor(quoteCalculationApp,
+                Runtime.getRuntime().availableProcessors(), BATCH_QUEUE_CAPACITY);
+        try {
+            if (schedules) {
+                long count = batchQuoteProcessor.processSchedules(marketSnapshot, Paths.get(args[2]),
+                        Paths.get(args[3]));
+                System.out.println("Wrote " + count + " schedules into " + args[3]);
+            } else {
+                long count = batchQuoteProcessor.process(marketSnapshot, Paths.get(args[2]), Paths.get(args[3]));
+                System.out.println("Quoted " + count + " requests into " + args[3]);
+            }
+        } catch (IOException e) {
+            System.out.println("Error occurred while processing the requests: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Interrupted while processing the requests");
+        }
+    }
+
+    /**
+     * Writes a synthetic market file of the given number of offers, with uniformly or normally distributed rates
+     */
+    private static void syntheticMarket(final String[] args) {
+        if (args.length != 3 && args.length != 4) {
+            System.out.println("Usage: quote --synthetic-market [offers] [market_file] [uniform|normal (optional)]");
+            return;
+        }
+        try {
+            SyntheticMarketGenerator.RateDistribution rateDistribution = args.length == 4
+                    ? SyntheticMarketGenerator.RateDistribution.valueOf(args[3].toUpperCase(Locale.ROOT))
+                    : SyntheticMarketGenerator.RateDistribution.UNIFORM;
+            new SyntheticMarketGenerator(rateDistribution, SYNTHETIC_MIN_RATE, SYNTHETIC_MAX_RATE,
+                    SYNTHETIC_MAX_AVAILABLE, SYNTHETIC_SEED).write(Integer.parseInt(args[1]), Paths.get(args[2]));
+            System.out.println("Wrote " + args[1] + " offers into " + args[2]);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error occurred while processing input parameters: " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Error occurred while writing the market file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sends quote requests at a fixed rate, in process on a market file or to a local quote endpoint, and writes
+     * the latency percentiles as JSON
+     */
+    private static void loadTest(final QuoteCalculationApp quoteCalculationApp, final String[] args) {
+        if (args.length != 5) {
+            System.out.println("Usage: quote --load-test [market_file|quote_url] [requests_per_second] "
+                    + "[duration_seconds] [results_file]");
+            return;
+        }
+        try {
+            LoadGenerator.Target target = args[1].startsWith("http://") || args[1].startsWith("https://")
+                    ? LoadGenerator.endpoint(args[1])
+                    : LoadGenerator.inProcess(quoteCalculationApp, new MarketSnapshot(1,
+                    quoteCalculationApp.loadOrderBook(args[1]), System.currentTimeMillis()));
+            LoadTestResult result = new LoadGenerator(args[1], target, LOAD_TEST_CONCURRENCY, SYNTHETIC_SEED)
+                    .run(Double.parseDouble(args[2]), TimeUnit.SECONDS.toMillis(Long.parseLong(args[3])));
+            try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(args[4]), StandardCharsets.UTF_8)) {
+                result.writeJson(writer);
+                writer.newLine();
+            }
+            System.out.println("Sent " + result.getRequestCount() + " requests with " + result.getErrorCount()
+                    + " errors, results in " + args[4]);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error occurred while processing input parameters: " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Error occurred while running the load test: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Interrupted while running the load test");
+        }
+    }
+
+    /**
+     * Writes the rate curve of the market file to a file, as JSON if the file ends with .json, as CSV otherwise
+     */
+    private static void rateCurve(final QuoteCalculationApp quoteCalculationApp, final String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: quote --rate-curve [market_file] [curve_file]");
+            return;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+            RateCurve rateCurve = quoteCalculationApp.calculateRateCurve(args[1]);
+            if (args[2].endsWith(".json"))
+                RateCurveRenderer.writeJson(rateCurve, writer);
+            else
+                RateCurveRenderer.writeCsv(rateCurve, writer);
+            System.out.println("Wrote " + rateCurve.getBreakpoints().size() + " breakpoints into " + args[2]);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error occurred while processing input parameters: " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Error occurred while writing the rate curve: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the market file as a market snapshot file, which the other modes map instead of parsing
+     */
+    private static void snapshot(final QuoteCalculationApp quoteCalculationApp, final String[] args) {
+        if (args.length != 3 || !args[2].endsWith(MappedOrderBook.FILE_EXTENSION)) {
+            System.out.println("Usage: quote --snapshot [market_file] [snapshot_file" + MappedOrderBook.FILE_EXTENSION
+                    + "]");
+            return;
+        }
+        try {
+            int count = quoteCalculationApp.writeSnapshot(args[1], args[2]);
+            System.out.println("Wrote " + count + " offers into " + args[2]);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error occurred while processing input parameters: " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Error occurred while writing the market snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads every market of the definitions file and serves quotes of all of them until the process is stopped.
+     * Each market gets its own beans, so the markets share no state
+     */
+    private static void serveMarkets(final String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: quote --markets [market_definitions_file] [port]");
+            return;
+        }
+        MarketRegistry marketRegistry = new MarketRegistry(Bootstrap::create, MARKET_POLL_INTERVAL_MILLIS);
+        try {
+            for (MarketDefinition definition : new MarketDefinitionFileParser().getMarketDefinitionsFromFile(args[1])) {
+                marketRegistry.register(definition);
+            }
+        } catch (IllegalArgumentException e) {
+            marketRegistry.close();
+            System.out.println("Error occurred while processing input parameters: " + e.getMessage());
+            return;
+        } catch (IOException e) {
+            marketRegistry.close();
+            System.out.println("Error occurred while reading the market file: " + e.getMessage());
+            return;
+        }
+        QuoteServer quoteServer = new QuoteServer(marketRegistry);
+        try {
+            int port = quoteServer.start(Integer.parseInt(args[2]));
+            Runtime.getRuntime().addShutdownHook(new Thread(quoteServer::stop));
+            System.out.println("Serving quotes of markets " + marketRegistry.getMarketIds() + " on port " + port);
+        } catch (NumberFormatException e) {
+            marketRegistry.close();
+            System.out.println("Error occurred while processing input parameters: Invalid port " + args[2]);
+        } catch (IOException e) {
+            marketRegistry.close();
+            System.out.println("Error occurred while starting the server: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the market once and serves quotes until the process is stopped.
+     * The market file is reloaded in the background whenever it changes
+     */
+    private static void serve(final QuoteCalculationApp quoteCalculationApp, final String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: quote --server [market_file] [port]");
+            return;
+        }
+        MarketDataWatcher marketDataWatcher;
+        try {
+            marketDataWatcher = new MarketDataWatcher(args[1], quoteCalculationApp::loadOrderBook,
+                    MARKET_POLL_INTERVAL_MILLIS);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error occurred while processing input parameters: " + e.getMessage());
+            return;
+        } catch (IOException e) {
+            System.out.println("Error occurred while reading the market file: " + e.getMessage());
+            return;
+        }
+        QuoteServer quoteServer = new QuoteServer(quoteCalculationApp, marketDataWatcher::current);
+        try {
+            int port = quoteServer.start(Integer.parseInt(args[2]));
+            Runtime.getRuntime().addShutdownHook(new Thread(quoteServer::stop));
+            System.out.println("Serving quotes on port " + port);
+        } catch (NumberFormatException e) {
+            System.out.println("Error occurred while processing input parameters: Invalid port " + args[2]);
+        } catch (IOException e) {
+            System.out.println("Error occurred while starting the server: " + e.getMessage());
+        }
     }
 }
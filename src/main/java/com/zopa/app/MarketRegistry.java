@@ -0,0 +1,151 @@
+package com.zopa.app;
+
+import com.zopa.input.MarketDataWatcher;
+import com.zopa.metrics.QuoteMetrics;
+import com.zopa.model.MarketDefinition;
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.Quote;
+import com.zopa.output.QuoteRenderer;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Serves several markets, each with its own currency, locale, limits and terms, from one process.
+ * Every market has its own QuoteCalculationApp, market file watcher and renderer, so its snapshots, caches
+ * and formatters are never shared with another market. Quotes are routed by market id
+ */
+public class MarketRegistry implements AutoCloseable {
+    private final Function<Currency, QuoteCalculationApp> quoteCalculationAppFactory;
+    private final long pollIntervalMillis;
+    private final Map<String, Market> markets = new ConcurrentHashMap<>();
+
+    /**
+     * @param quoteCalculationAppFactory creates the QuoteCalculationApp of each market, quoting in its currency
+     * @param pollIntervalMillis interval between checks of the market files for changes
+     */
+    public MarketRegistry(@NonNull final Function<Currency, QuoteCalculationApp> quoteCalculationAppFactory,
+                          final long pollIntervalMillis) {
+        isTrue(pollIntervalMillis > 0, "pollIntervalMillis should be positive");
+        this.quoteCalculationAppFactory = quoteCalculationAppFactory;
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    /**
+     * Loads the market file of the definition and starts watching it for changes
+     * @param definition Definition of the market
+     * @throws IOException if the market file can not be loaded
+     * @throws IllegalArgumentException if the market has no file or is already registered
+     */
+    public synchronized void register(@NonNull final MarketDefinition definition) throws IOException {
+        isTrue(definition.getMarketFile() != null, "market file of " + definition.getId() + " is required");
+        isTrue(!markets.containsKey(definition.getId()), "market " + definition.getId() + " is already registered");
+
+        QuoteCalculationApp quoteCalculationApp = quoteCalculationAppFactory.apply(definition.getCurrency());
+        MarketDataWatcher watcher = new MarketDataWatcher(definition.getMarketFile(),
+                file -> quoteCalculationApp.loadOrderBook(file, definition.getMaxAmount()), pollIntervalMillis);
+        markets.put(definition.getId(), new Market(definition, quoteCalculationApp, watcher,
+                new QuoteRenderer(definition.getLocale(), definition.getCurrency())));
+        quoteCalculationApp.registerCacheMetrics(definition.getId());
+    }
+
+    /**
+     * @return ids of the registered markets in ascending order
+     */
+    public Set<String> getMarketIds() {
+        return Collections.unmodifiableSet(new TreeSet<>(markets.keySet()));
+    }
+
+    public MarketDefinition getDefinition(final String marketId) {
+        return market(marketId).definition;
+    }
+
+    /**
+     * @return current snapshot of the market
+     */
+    public MarketSnapshot getSnapshot(final String marketId) {
+        return market(marketId).watcher.current();
+    }
+
+    /**
+     * Validates the request against the limits and terms of the market and quotes it on the given snapshot
+     * of the market
+     * @param marketId id of the market
+     * @param marketSnapshot Snapshot of the market, from getSnapshot
+     * @param amount requested amount as loan
+     * @param numberOfMonths number of months to repay the loan, default number of months of the market if null
+     * @return Quote if requested amount is available, empty otherwise
+     * @throws IllegalArgumentException if the market is unknown, or the amount or number of months is invalid
+     */
+    public Optional<Quote> calculateQuote(final String marketId, @NonNull final MarketSnapshot marketSnapshot,
+                                          final String amount, final String numberOfMonths) {
+        Market market = market(marketId);
+        return market.quoteCalculationApp.calculateQuote(marketSnapshot, market.definition, amount, numberOfMonths);
+    }
+
+    /**
+     * Quotes the largest amount of the market within either limit on the given snapshot of the market,
+     * see QuoteCalculationApp.calculateMaxQuote
+     * @throws IllegalArgumentException if the market is unknown, or the limits or number of months are invalid
+     */
+    public Optional<Quote> calculateMaxQuote(final String marketId, @NonNull final MarketSnapshot marketSnapshot,
+                                             final String maxRate, final String maxMonthlyRepayment,
+                                             final String numberOfMonths) {
+        Market market = market(marketId);
+        return market.quoteCalculationApp.calculateMaxQuote(marketSnapshot, market.definition, maxRate,
+                maxMonthlyRepayment, numberOfMonths);
+    }
+
+    /**
+     * @return quote in the given format, in the currency and locale of the market
+     */
+    public String render(final String marketId, @NonNull final Quote quote,
+                         @NonNull final QuoteRenderer.Format format) {
+        return market(marketId).quoteRenderer.render(quote, format);
+    }
+
+    /**
+     * Stops watching the market files and removes the quote caches of the markets from the quote metrics
+     */
+    @Override
+    public synchronized void close() {
+        for (Market market : markets.values()) {
+            market.watcher.close();
+            QuoteMetrics.GLOBAL.unregisterCache(market.definition.getId());
+        }
+        markets.clear();
+    }
+
+    private Market market(final String marketId) {
+        Market market = marketId == null ? null : markets.get(marketId);
+        if (market == null)
+            throw new IllegalArgumentException(String.format("Unknown market [%s]. Market should be one of %s",
+                    marketId, getMarketIds()));
+        return market;
+    }
+
+    private static final class Market {
+        private final MarketDefinition definition;
+        private final QuoteCalculationApp quoteCalculationApp;
+        private final MarketDataWatcher watcher;
+        private final QuoteRenderer quoteRenderer;
+
+        private Market(final MarketDefinition definition, final QuoteCalculationApp quoteCalculationApp,
+                       final MarketDataWatcher watcher, final QuoteRenderer quoteRenderer) {
+            this.definition = definition;
+            this.quoteCalculationApp = quoteCalculationApp;
+            this.watcher = watcher;
+            this.quoteRenderer = quoteRenderer;
+        }
+    }
+}
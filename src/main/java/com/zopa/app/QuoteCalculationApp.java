@@ -1,19 +1,40 @@
 package com.zopa.app;
 
+import com.zopa.calculator.AmortizationSchedule;
+import com.zopa.calculator.InverseQuoteCalculator;
 import com.zopa.calculator.QuoteCalculator;
 import com.zopa.input.MarketDataFileParser;
+import com.zopa.metrics.CacheMetricsMXBean;
+import com.zopa.metrics.Outcome;
+import com.zopa.metrics.QuoteMetrics;
+import com.zopa.metrics.Stage;
+import com.zopa.model.MappedOrderBook;
+import com.zopa.model.MarketDefinition;
+import com.zopa.model.MarketSnapshot;
 import com.zopa.model.Offer;
+import com.zopa.model.OrderBook;
+import com.zopa.model.PrefixSumOrderBook;
 import com.zopa.model.Quote;
+import com.zopa.model.RateCurve;
+import lombok.NonNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Optional;
 import java.util.SortedSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import static com.zopa.config.Config.LOAN_LENGTH_IN_MONTHS;
+import static com.zopa.config.Config.MAX_LOAN_AMOUNT;
+import static com.zopa.input.InputParser.parseLimit;
+import static com.zopa.input.InputParser.parseNumberOfMonths;
 import static com.zopa.input.InputParser.parseRequestedAmount;
+import static org.springframework.util.Assert.isTrue;
 
 @ComponentScan(basePackages = "com.zopa")
 @Configuration
@@ -21,39 +42,227 @@ public class QuoteCalculationApp {
 
     private QuoteCalculator quoteCalculator;
     private MarketDataFileParser marketDataFileParser;
+    private InverseQuoteCalculator inverseQuoteCalculator;
 
     @Autowired
     public QuoteCalculationApp(final QuoteCalculator quoteCalculator, final MarketDataFileParser marketDataFileParser) {
         this.quoteCalculator = quoteCalculator;
         this.marketDataFileParser = marketDataFileParser;
+        this.inverseQuoteCalculator = new InverseQuoteCalculator(quoteCalculator);
+    }
+
+    /**
+     * Adds the hits and misses of the quote cache of the app to the quote metrics, if its calculator caches quotes
+     * @param name name of the cache in the metrics
+     */
+    public void registerCacheMetrics(final String name) {
+        if (quoteCalculator instanceof CacheMetricsMXBean)
+            QuoteMetrics.GLOBAL.registerCache(name, (CacheMetricsMXBean) quoteCalculator);
     }
 
     /**
      * Calculates and returns the result of the quote as String. If any problem occurs related to input data,
      * it returns the related error message to the client
-     * @param args app arguments to start. It expects an array with marketDataFilePath and requestedAmount
+     * @param args app arguments to start. It expects an array with marketDataFilePath, requestedAmount and
+     *             optionally numberOfMonths, which is LOAN_LENGTH_IN_MONTHS by default
      * @return result of the calculation
      */
     public String calculate(final String[] args) {
-        if (args.length != 2)
-            return "Usage: quote [market_file] [requested_amount]";
+        if (args.length != 2 && args.length != 3)
+            return "Usage: quote [market_file] [requested_amount] [number_of_months (optional)]";
         String marketDataFile = args[0];
         String amount = args[1];
         try {
-            // Read market data from file
-            SortedSet<Offer> offerSet = marketDataFileParser.getOffersFromFile(marketDataFile);
+            // Read the cheapest offers which can be loaned from the market data file
+            long start = QuoteMetrics.GLOBAL.start();
+            SortedSet<Offer> offerSet = marketDataFileParser.getCheapestOffersFromFile(marketDataFile, MAX_LOAN_AMOUNT);
+            QuoteMetrics.GLOBAL.record(Stage.PARSE, start);
+            start = QuoteMetrics.GLOBAL.start();
             int requestedAmount = parseRequestedAmount(amount);
+            int numberOfMonths = args.length == 3 ? parseNumberOfMonths(args[2]) : LOAN_LENGTH_IN_MONTHS;
+            QuoteMetrics.GLOBAL.record(Stage.VALIDATION, start);
             // Calculate quote
-            Optional<Quote> quoteOptional = quoteCalculator.calculateQuote(offerSet, requestedAmount, LOAN_LENGTH_IN_MONTHS);
+            Optional<Quote> quoteOptional = quoteCalculator.calculateQuote(offerSet, requestedAmount, numberOfMonths);
+            QuoteMetrics.GLOBAL.count(quoteOptional.isPresent() ? Outcome.QUOTED : Outcome.NOT_AVAILABLE);
             // return quote as string
-            return quoteOptional
+            start = QuoteMetrics.GLOBAL.start();
+            String response = quoteOptional
                     .map(q -> q.toString())
                     .orElse("No available loans for the current amount");
+            QuoteMetrics.GLOBAL.record(Stage.FORMAT, start);
+            return response;
         } catch (IllegalArgumentException e) {
+            QuoteMetrics.GLOBAL.count(Outcome.REJECTED);
             return "Error occurred while processing input parameters: " + e.getMessage();
         } catch (IOException e) {
             return "Error occurred while reading the market file: " + e.getMessage();
         }
     }
 
+    /**
+     * Loads the cheapest offers which can be loaned from the market data file into an order book,
+     * so a long running process can quote it repeatedly
+     * @param marketDataFile path of the market data file
+     * @return Order book of the market
+     * @throws IOException if the market data file can not be read
+     */
+    public OrderBook loadOrderBook(final String marketDataFile) throws IOException {
+        return loadOrderBook(marketDataFile, MAX_LOAN_AMOUNT);
+    }
+
+    /**
+     * Loads the cheapest offers which can be loaned up to the given amount from the market data file
+     * into an order book. A market snapshot file, ending with MappedOrderBook.FILE_EXTENSION, is memory mapped
+     * instead, it holds every offer of the market so it covers any maximum amount
+     * @param marketDataFile path of the market data file or market snapshot file
+     * @param maxAmount maximum amount which can be requested from the market
+     * @return Order book of the market
+     * @throws IOException if the market data file can not be read
+     * @throws IllegalArgumentException if maxAmount is not positive
+     */
+    public OrderBook loadOrderBook(final String marketDataFile, final int maxAmount) throws IOException {
+        isTrue(maxAmount > 0, "maxAmount should be positive");
+        long start = QuoteMetrics.GLOBAL.start();
+        OrderBook orderBook = marketDataFile.endsWith(MappedOrderBook.FILE_EXTENSION)
+                ? MappedOrderBook.open(Paths.get(marketDataFile))
+                : PrefixSumOrderBook.fromOffers(
+                        marketDataFileParser.getCheapestOffersFromFile(marketDataFile, maxAmount));
+        QuoteMetrics.GLOBAL.record(Stage.PARSE, start);
+        return orderBook;
+    }
+
+    /**
+     * Loads the order book like loadOrderBook on the given executor, so the caller can go on while the market
+     * file is read and indexed
+     * @param marketDataFile path of the market data file or market snapshot file
+     * @param maxAmount maximum amount which can be requested from the market
+     * @param executor executor reading the file, preferably not the one calculating quotes
+     * @return future of the order book, failed with the IOException if the file can not be read, with the
+     * RejectedExecutionException if the executor does not accept the load, or with anything else the load throws
+     */
+    public CompletableFuture<OrderBook> loadOrderBookAsync(@NonNull final String marketDataFile, final int maxAmount,
+                                                           @NonNull final Executor executor) {
+        CompletableFuture<OrderBook> orderBook = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    orderBook.complete(loadOrderBook(marketDataFile, maxAmount));
+                } catch (Throwable e) {
+                    // an Error would otherwise leave the caller waiting forever
+                    orderBook.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            orderBook.completeExceptionally(e);
+        }
+        return orderBook;
+    }
+
+    /**
+     * Builds the rate curve of every offer of the market data file
+     * @param marketDataFile path of the market data file
+     * @return Rate curve of the market
+     * @throws IOException if the market data file can not be read
+     */
+    public RateCurve calculateRateCurve(final String marketDataFile) throws IOException {
+        return RateCurve.fromOffers(marketDataFileParser.getOffersFromFile(marketDataFile));
+    }
+
+    /**
+     * Writes every offer of the market data file as a market snapshot file, which loadOrderBook maps without
+     * parsing whatever the maximum amount of the market. The snapshot is not updated with the market data file,
+     * it should be written again whenever the market data file changes
+     * @param marketDataFile path of the market data file
+     * @param snapshotFile path of the market snapshot file, replaced if it exists
+     * @return number of offers written
+     * @throws IOException if the market data file can not be read or the snapshot file can not be written
+     */
+    public int writeSnapshot(final String marketDataFile, final String snapshotFile) throws IOException {
+        SortedSet<Offer> offerSet = marketDataFileParser.getOffersFromFile(marketDataFile);
+        MappedOrderBook.write(offerSet, Paths.get(snapshotFile));
+        return offerSet.size();
+    }
+
+    /**
+     * Validates the requested amount and number of months, and calculates the quote from the market snapshot
+     * @param marketSnapshot Snapshot of the market
+     * @param amount requested amount as loan
+     * @param numberOfMonths number of months to repay the loan, LOAN_LENGTH_IN_MONTHS if null
+     * @return Quote priced on the snapshot if requested amount is available, empty otherwise
+     * @throws IllegalArgumentException if the amount or number of months is invalid
+     */
+    public Optional<Quote> calculateQuote(final MarketSnapshot marketSnapshot, final String amount,
+                                          final String numberOfMonths) {
+        return calculateQuote(marketSnapshot, MarketDefinition.DEFAULT, amount, numberOfMonths);
+    }
+
+    /**
+     * Validates the requested amount and number of months against the limits and terms of the market,
+     * and calculates the quote from the market snapshot
+     * @param marketSnapshot Snapshot of the market
+     * @param market Definition of the market
+     * @param amount requested amount as loan
+     * @param numberOfMonths number of months to repay the loan, default number of months of the market if null
+     * @return Quote priced on the snapshot if requested amount is available, empty otherwise
+     * @throws IllegalArgumentException if the amount or number of months is invalid for the market
+     */
+    public Optional<Quote> calculateQuote(final MarketSnapshot marketSnapshot, @NonNull final MarketDefinition market,
+                                          final String amount, final String numberOfMonths) {
+        long start = QuoteMetrics.GLOBAL.start();
+        int requestedAmount;
+        int months;
+        try {
+            requestedAmount = parseRequestedAmount(amount, market);
+            months = numberOfMonths == null ? market.getDefaultNumberOfMonths()
+                    : parseNumberOfMonths(numberOfMonths, market);
+        } catch (IllegalArgumentException e) {
+            QuoteMetrics.GLOBAL.count(Outcome.REJECTED);
+            throw e;
+        }
+        QuoteMetrics.GLOBAL.record(Stage.VALIDATION, start);
+        Optional<Quote> quoteOptional = quoteCalculator.calculateQuote(marketSnapshot, requestedAmount, months);
+        QuoteMetrics.GLOBAL.count(quoteOptional.isPresent() ? Outcome.QUOTED : Outcome.NOT_AVAILABLE);
+        return quoteOptional;
+    }
+
+    /**
+     * Calculates the quote of the largest amount the market lends within either a maximum rate or a maximum
+     * monthly repayment
+     * @param marketSnapshot Snapshot of the market
+     * @param market Definition of the market
+     * @param maxRate highest acceptable yearly rate, null if the monthly repayment is limited
+     * @param maxMonthlyRepayment highest acceptable monthly repayment, null if the rate is limited
+     * @param numberOfMonths number of months to repay the loan, default number of months of the market if null
+     * @return Quote of the largest amount within the limit, empty if no amount is
+     * @throws IllegalArgumentException if not exactly one limit is given, or a limit or the number of months
+     * is invalid for the market
+     */
+    public Optional<Quote> calculateMaxQuote(final MarketSnapshot marketSnapshot,
+                                             @NonNull final MarketDefinition market, final String maxRate,
+                                             final String maxMonthlyRepayment, final String numberOfMonths) {
+        if ((maxRate == null) == (maxMonthlyRepayment == null))
+            throw new IllegalArgumentException("Either a maximum rate or a maximum monthly repayment should be given");
+        int months = numberOfMonths == null ? market.getDefaultNumberOfMonths()
+                : parseNumberOfMonths(numberOfMonths, market);
+        return maxRate != null
+                ? inverseQuoteCalculator.maxQuoteForRate(marketSnapshot, market, parseLimit(maxRate, "rate"), months)
+                : inverseQuoteCalculator.maxQuoteForMonthlyRepayment(marketSnapshot, market,
+                parseLimit(maxMonthlyRepayment, "monthly repayment"), months);
+    }
+
+    /**
+     * Validates and quotes the request like calculateQuote, and returns the amortization schedule of the quote
+     * @param marketSnapshot Snapshot of the market
+     * @param amount requested amount as loan
+     * @param numberOfMonths number of months to repay the loan, LOAN_LENGTH_IN_MONTHS if null
+     * @return Schedule calculating its periods on demand if requested amount is available, empty otherwise
+     * @throws IllegalArgumentException if the amount or number of months is invalid
+     */
+    public Optional<AmortizationSchedule> calculateSchedule(final MarketSnapshot marketSnapshot, final String amount,
+                                                            final String numberOfMonths) {
+        Optional<Quote> quoteOptional = calculateQuote(marketSnapshot, amount, numberOfMonths);
+        int months = numberOfMonths == null ? LOAN_LENGTH_IN_MONTHS : parseNumberOfMonths(numberOfMonths);
+        return quoteOptional.map(quote -> quoteCalculator.calculateSchedule(quote, months));
+    }
+
 }
@@ -0,0 +1,191 @@
+package com.zopa.app;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.zopa.metrics.QuoteMetrics;
+import com.zopa.metrics.Stage;
+import com.zopa.model.MarketDefinition;
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.Quote;
+import com.zopa.output.QuoteRenderer;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Long running quote server which serves GET /quote?amount=&amp;months= over the JDK built-in HTTP server,
+ * with the beans of QuoteCalculationApp. Each request is priced on the current market snapshot, whose
+ * version is returned in the X-Market-Version header.
+ * Served from a market registry, requests choose their market with GET /quote?market=&amp;amount=&amp;months=
+ * and are validated, priced and rendered as defined by that market.
+ * GET /max-quote?rate= or GET /max-quote?repayment=, with optional months and market, quotes the largest amount
+ * which can be borrowed at most at the given rate or monthly repayment.
+ * Requests are handled on virtual threads when the JVM supports them, otherwise on a fixed size pool
+ */
+public class QuoteServer {
+    private static final Logger LOGGER = Logger.getLogger(QuoteServer.class.getName());
+    private static final String QUOTE_PATH = "/quote";
+    private static final String MAX_QUOTE_PATH = "/max-quote";
+    private static final String NOT_AVAILABLE = "No available loans for the current amount";
+    private static final String NOT_AVAILABLE_WITHIN_LIMIT = "No available loans within the requested limit";
+    private static final int STOP_DELAY_IN_SECONDS = 1;
+
+    private final QuoteCalculationApp quoteCalculationApp;
+    private final Supplier<MarketSnapshot> marketSnapshotSupplier;
+    // null if the server quotes a single market
+    private final MarketRegistry marketRegistry;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public QuoteServer(@NonNull final QuoteCalculationApp quoteCalculationApp,
+                       @NonNull final Supplier<MarketSnapshot> marketSnapshotSupplier) {
+        this.quoteCalculationApp = quoteCalculationApp;
+        this.marketSnapshotSupplier = marketSnapshotSupplier;
+        this.marketRegistry = null;
+    }
+
+    public QuoteServer(@NonNull final MarketRegistry marketRegistry) {
+        this.quoteCalculationApp = null;
+        this.marketSnapshotSupplier = null;
+        this.marketRegistry = marketRegistry;
+    }
+
+    /**
+     * Starts serving quotes on the given port
+     * @param port port to listen on, 0 for any free port
+     * @return the port the server listens on
+     * @throws IOException if the server can not be started
+     */
+    public synchronized int start(final int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = newHandlerExecutor();
+        server.setExecutor(executor);
+        server.createContext(QUOTE_PATH, exchange -> handle(exchange, this::quote, NOT_AVAILABLE));
+        server.createContext(MAX_QUOTE_PATH, exchange -> handle(exchange, this::maxQuote, NOT_AVAILABLE_WITHIN_LIMIT));
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, letting the requests being handled complete
+     */
+    public synchronized void stop() {
+        if (server == null)
+            return;
+        server.stop(STOP_DELAY_IN_SECONDS);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(STOP_DELAY_IN_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+    }
+
+    private void handle(final HttpExchange exchange, final QuoteQuery query, final String notAvailable)
+            throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Only GET is supported");
+                return;
+            }
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            String marketId = parameters.get("market");
+            // read once, so the whole request is priced on the same snapshot
+            MarketSnapshot marketSnapshot = marketRegistry == null ? marketSnapshotSupplier.get()
+                    : marketRegistry.getSnapshot(marketId);
+            exchange.getResponseHeaders().set("X-Market-Version", String.valueOf(marketSnapshot.getVersion()));
+            Optional<Quote> quoteOptional = query.calculate(marketId, marketSnapshot, parameters);
+            if (quoteOptional.isPresent()) {
+                long start = QuoteMetrics.GLOBAL.start();
+                String body = marketRegistry == null ? quoteOptional.get().toString()
+                        : marketRegistry.render(marketId, quoteOptional.get(), QuoteRenderer.Format.TEXT);
+                QuoteMetrics.GLOBAL.record(Stage.FORMAT, start);
+                respond(exchange, 200, body);
+            } else {
+                respond(exchange, 404, notAvailable);
+            }
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, "Error occurred while processing input parameters: " + e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Quote request failed", e);
+            respond(exchange, 500, "Error occurred while calculating the quote");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Optional<Quote> quote(final String marketId, final MarketSnapshot marketSnapshot,
+                                  final Map<String, String> parameters) {
+        return marketRegistry == null
+                ? quoteCalculationApp.calculateQuote(marketSnapshot, parameters.get("amount"), parameters.get("months"))
+                : marketRegistry.calculateQuote(marketId, marketSnapshot, parameters.get("amount"),
+                parameters.get("months"));
+    }
+
+    private Optional<Quote> maxQuote(final String marketId, final MarketSnapshot marketSnapshot,
+                                     final Map<String, String> parameters) {
+        return marketRegistry == null
+                ? quoteCalculationApp.calculateMaxQuote(marketSnapshot, MarketDefinition.DEFAULT,
+                parameters.get("rate"), parameters.get("repayment"), parameters.get("months"))
+                : marketRegistry.calculateMaxQuote(marketId, marketSnapshot, parameters.get("rate"),
+                parameters.get("repayment"), parameters.get("months"));
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(final String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null)
+            return parameters;
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Quote of a request on a snapshot of a market, the market id is null if the server quotes a single market
+     */
+    @FunctionalInterface
+    private interface QuoteQuery {
+        Optional<Quote> calculate(String marketId, MarketSnapshot marketSnapshot, Map<String, String> parameters);
+    }
+
+    /**
+     * Looks up virtual threads reflectively as the application is compiled for Java 8
+     */
+    private static ExecutorService newHandlerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+        }
+    }
+}
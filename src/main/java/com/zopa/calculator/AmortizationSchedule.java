@@ -0,0 +1,124 @@
+package com.zopa.calculator;
+
+import com.zopa.model.Quote;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Month by month amortization schedule of a quote, produced lazily so schedules of long terms and large batches
+ * are never held in memory.
+ * The exact balance is carried from period to period at full precision, balance x (1 + monthly rate) - monthly
+ * repayment, so rounding never compounds. Each period reports its share of the rounded running totals:
+ * - payment is the rounded cumulative payment less that of the previous period, within a minor unit of the
+ *   monthly repayment of the quote
+ * - interest is derived the same way from the cumulative balance x monthly rate, so it is never negative
+ * - principal is payment - interest
+ * Amounts are rounded half even to the minor unit of the currency. The final period repays the remaining balance
+ * with its interest, so the final balance is zero and the payments add up to the total repayment of the quote
+ * rounded to the minor unit
+ */
+public class AmortizationSchedule implements Iterable<AmortizationSchedule.Period> {
+    private static final BigDecimal YEARLY_PAYMENTS = new BigDecimal(12);
+
+    private final BigDecimal amount;
+    private final BigDecimal monthlyRate;
+    private final BigDecimal monthlyRepayment;
+    private final int numberOfMonths;
+    private final int scale;
+
+    /**
+     * @param quote Quote to repay
+     * @param numberOfMonths number of months the quote is repaid in
+     * @param scale number of fraction digits of the currency
+     */
+    public AmortizationSchedule(@NonNull final Quote quote, final int numberOfMonths, final int scale) {
+        isTrue(numberOfMonths > 0, "numberOfMonths should be positive");
+        isTrue(scale >= 0, "scale should not be negative");
+        this.amount = BigDecimal.valueOf(quote.getRequestedAmount());
+        this.monthlyRate = quote.getRate().divide(YEARLY_PAYMENTS, MathContext.DECIMAL128);
+        this.monthlyRepayment = quote.getMonthlyRepayment();
+        this.numberOfMonths = numberOfMonths;
+        this.scale = scale;
+    }
+
+    public int getNumberOfMonths() {
+        return numberOfMonths;
+    }
+
+    /**
+     * @return iterator calculating each period on demand, every iterator starts from the first period
+     */
+    @Override
+    public Iterator<Period> iterator() {
+        return new PeriodIterator();
+    }
+
+    /**
+     * @return sequential stream of the periods, calculated on demand
+     */
+    public Stream<Period> stream() {
+        return StreamSupport.stream(Spliterators.spliterator(iterator(), numberOfMonths,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    @Value
+    public static class Period {
+        private int number;
+        private BigDecimal payment;
+        private BigDecimal interest;
+        private BigDecimal principal;
+        // balance left after the payment
+        private BigDecimal balance;
+    }
+
+    private final class PeriodIterator implements Iterator<Period> {
+        private int number;
+        // exact balance and running totals, rounded only when reported
+        private BigDecimal exactBalance = amount;
+        private BigDecimal cumulativeInterest = BigDecimal.ZERO;
+        private BigDecimal cumulativePayment = BigDecimal.ZERO;
+        private BigDecimal reportedInterest = BigDecimal.ZERO.setScale(scale);
+        private BigDecimal reportedPayment = BigDecimal.ZERO.setScale(scale);
+
+        @Override
+        public boolean hasNext() {
+            return number < numberOfMonths;
+        }
+
+        @Override
+        public Period next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            number++;
+            BigDecimal interest = exactBalance.multiply(monthlyRate, MathContext.DECIMAL128);
+            cumulativeInterest = cumulativeInterest.add(interest);
+            if (number < numberOfMonths) {
+                cumulativePayment = cumulativePayment.add(monthlyRepayment);
+                exactBalance = exactBalance.add(interest).subtract(monthlyRepayment);
+            } else {
+                // the final period repays the balance, which the monthly repayment only matches within its precision
+                cumulativePayment = amount.add(cumulativeInterest);
+            }
+            BigDecimal roundedInterest = cumulativeInterest.setScale(scale, RoundingMode.HALF_EVEN);
+            BigDecimal roundedPayment = cumulativePayment.setScale(scale, RoundingMode.HALF_EVEN);
+            interest = roundedInterest.subtract(reportedInterest);
+            BigDecimal payment = roundedPayment.subtract(reportedPayment);
+            reportedInterest = roundedInterest;
+            reportedPayment = roundedPayment;
+            return new Period(number, payment, interest, payment.subtract(interest),
+                    amount.subtract(roundedPayment).add(roundedInterest));
+        }
+    }
+}
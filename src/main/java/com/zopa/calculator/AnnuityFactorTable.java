@@ -0,0 +1,108 @@
+package com.zopa.calculator;
+
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Annuity (discount) factors of monthly compounding loans.
+ * For yearly rates on a grid, the compound factors (1 + mRate)^n of all terms up to the maximum number of months
+ * are precomputed once per rate, on its first use, by multiplying the factor of the previous term with (1 + mRate).
+ * Rates off the grid and terms beyond the maximum are compounded the same way up to the requested term,
+ * so no calculation raises to the power of the term.
+ * Compound factors keep COMPOUND_PRECISION digits, far more than a repayment in pence needs,
+ * and the factor is divided in DECIMAL128 like the closed formula
+ */
+public class AnnuityFactorTable {
+    static final MathContext COMPOUND_PRECISION = new MathContext(64, RoundingMode.HALF_EVEN);
+    private static final BigDecimal YEARLY_PAYMENTS = new BigDecimal(12);
+
+    private final BigDecimal gridStep;
+    private final int maximumNumberOfMonths;
+    // compound factors of rate (index x gridStep) indexed by number of months, null until first use
+    private final AtomicReferenceArray<BigDecimal[]> rows;
+
+    public AnnuityFactorTable(@NonNull final BigDecimal gridStep, @NonNull final BigDecimal gridMax,
+                              final int maximumNumberOfMonths) {
+        isTrue(gridStep.signum() > 0, "gridStep should be positive");
+        isTrue(gridMax.compareTo(gridStep) >= 0, "gridMax should not be less than gridStep");
+        isTrue(maximumNumberOfMonths > 0, "maximumNumberOfMonths should be positive");
+        this.gridStep = gridStep;
+        this.maximumNumberOfMonths = maximumNumberOfMonths;
+        this.rows = new AtomicReferenceArray<>(gridMax.divideToIntegralValue(gridStep).intValueExact() + 1);
+    }
+
+    /**
+     * Discount Factor = {[(1 + mRate) ^numberOfMonths] - 1} / [mRate(1 + mRate)^numberOfMonths]
+     * where
+     *  (mRate) = Annual rate divided by number of payment periods
+     * @param rate Yearly rate for the loan
+     * @param numberOfMonths Total number of months of repayment
+     * @return Discount factor
+     */
+    public BigDecimal discountFactor(@NonNull final BigDecimal rate, final int numberOfMonths) {
+        isTrue(numberOfMonths > 0, "numberOfMonths should be positive");
+
+        final BigDecimal mRate = monthlyRate(rate);
+        final BigDecimal compoundFactor = compoundFactor(rate, mRate, numberOfMonths);
+        final BigDecimal numerator = compoundFactor.subtract(BigDecimal.ONE);
+        final BigDecimal denominator = mRate.multiply(compoundFactor);
+
+        return numerator.divide(denominator, MathContext.DECIMAL128);
+    }
+
+    private BigDecimal compoundFactor(final BigDecimal rate, final BigDecimal mRate, final int numberOfMonths) {
+        int gridIndex = gridIndex(rate);
+        if (gridIndex < 0 || numberOfMonths > maximumNumberOfMonths)
+            return compoundTo(mRate, numberOfMonths);
+
+        BigDecimal[] row = rows.get(gridIndex);
+        if (row == null) {
+            // concurrent first uses may both compute the row, they are identical so any of them can win
+            rows.compareAndSet(gridIndex, null, compound(mRate, maximumNumberOfMonths));
+            row = rows.get(gridIndex);
+        }
+        return row[numberOfMonths];
+    }
+
+    /**
+     * @return index of the rate on the grid, -1 if the rate is not a multiple of the grid step within the grid
+     */
+    private int gridIndex(final BigDecimal rate) {
+        if (rate.signum() <= 0)
+            return -1;
+        BigDecimal[] quotientAndRemainder = rate.divideAndRemainder(gridStep);
+        if (quotientAndRemainder[1].signum() != 0
+                || quotientAndRemainder[0].compareTo(BigDecimal.valueOf(rows.length())) >= 0)
+            return -1;
+        return quotientAndRemainder[0].intValueExact();
+    }
+
+    private static BigDecimal monthlyRate(final BigDecimal rate) {
+        return rate.divide(YEARLY_PAYMENTS, MathContext.DECIMAL128);
+    }
+
+    private static BigDecimal compoundTo(final BigDecimal mRate, final int numberOfMonths) {
+        final BigDecimal growth = mRate.add(BigDecimal.ONE);
+        BigDecimal factor = BigDecimal.ONE;
+        for (int month = 1; month <= numberOfMonths; month++) {
+            factor = factor.multiply(growth, COMPOUND_PRECISION);
+        }
+        return factor;
+    }
+
+    private static BigDecimal[] compound(final BigDecimal mRate, final int numberOfMonths) {
+        final BigDecimal growth = mRate.add(BigDecimal.ONE);
+        BigDecimal[] factors = new BigDecimal[numberOfMonths + 1];
+        factors[0] = BigDecimal.ONE;
+        for (int month = 1; month <= numberOfMonths; month++) {
+            factors[month] = factors[month - 1].multiply(growth, COMPOUND_PRECISION);
+        }
+        return factors;
+    }
+}
@@ -0,0 +1,122 @@
+package com.zopa.calculator;
+
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.Offer;
+import com.zopa.model.OrderBook;
+import com.zopa.model.Quote;
+import lombok.NonNull;
+
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static com.zopa.config.Config.ASYNC_QUEUE_CAPACITY;
+import static com.zopa.config.Config.ASYNC_THREADS;
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Non blocking front of a QuoteCalculator for event driven callers. Quotes are calculated on a fixed number of
+ * threads fed by a bounded queue, and the caller gets a future right away.
+ * When the queue is full the quote is not queued and its future fails at once with a RejectedExecutionException,
+ * so the caller never blocks and can shed or retry the request. Quotes in flight are bounded by
+ * threads + queueCapacity
+ */
+public class AsyncQuoteCalculator implements AutoCloseable {
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final QuoteCalculator quoteCalculator;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public AsyncQuoteCalculator(final QuoteCalculator quoteCalculator) {
+        this(quoteCalculator, ASYNC_THREADS, ASYNC_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param quoteCalculator calculator of the quotes
+     * @param threads number of threads calculating quotes
+     * @param queueCapacity number of quotes waiting for a thread before further quotes are rejected
+     */
+    public AsyncQuoteCalculator(@NonNull final QuoteCalculator quoteCalculator, final int threads,
+                                final int queueCapacity) {
+        isTrue(threads > 0, "threads should be positive");
+        isTrue(queueCapacity > 0, "queueCapacity should be positive");
+        this.quoteCalculator = quoteCalculator;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CompletableFuture<Optional<Quote>> calculateQuote(@NonNull final MarketSnapshot marketSnapshot,
+                                                             final int amount, final int numberOfMonths) {
+        return submit(() -> quoteCalculator.calculateQuote(marketSnapshot, amount, numberOfMonths));
+    }
+
+    public CompletableFuture<Optional<Quote>> calculateQuote(@NonNull final OrderBook orderBook, final int amount,
+                                                             final int numberOfMonths) {
+        return submit(() -> quoteCalculator.calculateQuote(orderBook, amount, numberOfMonths));
+    }
+
+    public CompletableFuture<Optional<Quote>> calculateQuote(@NonNull final SortedSet<Offer> offerSet,
+                                                             final int amount, final int numberOfMonths) {
+        return submit(() -> quoteCalculator.calculateQuote(offerSet, amount, numberOfMonths));
+    }
+
+    /**
+     * @return Number of quotes rejected because the queue was full
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * @return Number of quotes waiting for a thread
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops accepting quotes, the quotes already submitted are still calculated
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private CompletableFuture<Optional<Quote>> submit(final Supplier<Optional<Quote>> calculation) {
+        CompletableFuture<Optional<Quote>> quote = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    quote.complete(calculation.get());
+                } catch (Throwable e) {
+                    // an Error would otherwise leave the caller waiting forever
+                    quote.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            quote.completeExceptionally(e);
+        }
+        return quote;
+    }
+
+    private static ThreadFactory threadFactory() {
+        final int poolNumber = POOL_NUMBER.incrementAndGet();
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "quote-async-" + poolNumber + "-" + threadNumber.incrementAndGet());
+            // calculations never hold resources which need a clean shutdown
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
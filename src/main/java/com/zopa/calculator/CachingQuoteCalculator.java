@@ -0,0 +1,201 @@
+package com.zopa.calculator;
+
+import com.zopa.metrics.CacheMetricsMXBean;
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.Offer;
+import com.zopa.model.OrderBook;
+import com.zopa.model.Quote;
+import lombok.NonNull;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.zopa.config.Config.QUOTE_CACHE_SIZE;
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Quote calculator which caches the quotes of a market snapshot by amount and number of months.
+ * A calculator serves the snapshots of a single market, whose versions increase with every change, e.g. the ones
+ * of a MarketDataWatcher; each market gets its own calculator.
+ * Works as follows:
+ * - The cache holds the quotes of a single snapshot, the latest version seen. A request on a newer snapshot
+ *   replaces the cache, so the quotes of an older market are dropped at once and never served again
+ * - Requests on an older snapshot than the cached one, e.g. in flight during a reload, are calculated
+ *   without the cache
+ * - Requests on another snapshot with the same version as the cached one can only come from another market, they
+ *   are calculated without the cache as well, so neither market serves the quotes of the other nor evicts them
+ * - The first miss of a key puts a future into the cache and calculates the quote, concurrent requests for the
+ *   same key wait for that future, so a burst of identical misses calculates the quote once
+ * The number of quotes of a snapshot is bounded by the valid amounts and numbers of months, a maximum size still
+ * guards against unexpected keys by calculating the quotes above it without the cache.
+ * Quotes calculated from offer sets and order books are not versioned and delegated as they are.
+ * Its hits and misses are reported once it is registered with QuoteMetrics.registerCache
+ */
+@Primary
+@Component
+public class CachingQuoteCalculator implements QuoteCalculator, CacheMetricsMXBean {
+    private final QuoteCalculator delegate;
+    private final int maximumSize;
+    private final AtomicReference<Generation> generation = new AtomicReference<>();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    @Autowired
+    public CachingQuoteCalculator(final FastPathLoanCalculator delegate) {
+        this(delegate, QUOTE_CACHE_SIZE);
+    }
+
+    public CachingQuoteCalculator(@NonNull final QuoteCalculator delegate, final int maximumSize) {
+        isTrue(maximumSize > 0, "maximumSize should be positive");
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+    }
+
+    public Optional<Quote> calculateQuote(final SortedSet<Offer> offerSet, final int amount,
+                                          final int numberOfMonths) {
+        return delegate.calculateQuote(offerSet, amount, numberOfMonths);
+    }
+
+    public Optional<Quote> calculateQuote(final OrderBook orderBook, final int amount, final int numberOfMonths) {
+        return delegate.calculateQuote(orderBook, amount, numberOfMonths);
+    }
+
+    public List<Optional<Quote>> calculateQuotes(final SortedSet<Offer> offerSet, final int[] amounts,
+                                                 final int numberOfMonths) {
+        return delegate.calculateQuotes(offerSet, amounts, numberOfMonths);
+    }
+
+    /**
+     * Returns the cached quote of the snapshot, amount and number of months, calculating it once on a miss
+     * @param marketSnapshot Snapshot of the market to price the quote on
+     * @param amount requested amount as loan
+     * @param numberOfMonths number of months to repay the loan
+     * @return Quote with the version of the snapshot if available, otherwise empty
+     */
+    public Optional<Quote> calculateQuote(@NonNull final MarketSnapshot marketSnapshot, final int amount,
+                                          final int numberOfMonths) {
+        Generation current = generationOf(marketSnapshot);
+        if (current == null) {
+            missCount.increment();
+            return delegate.calculateQuote(marketSnapshot, amount, numberOfMonths);
+        }
+
+        QuoteKey key = new QuoteKey(amount, numberOfMonths);
+        CompletableFuture<Optional<Quote>> cached = current.quotes.get(key);
+        if (cached == null) {
+            if (current.quotes.size() >= maximumSize) {
+                missCount.increment();
+                return delegate.calculateQuote(marketSnapshot, amount, numberOfMonths);
+            }
+            CompletableFuture<Optional<Quote>> calculation = new CompletableFuture<>();
+            cached = current.quotes.putIfAbsent(key, calculation);
+            if (cached == null) {
+                missCount.increment();
+                return calculate(current, key, calculation, marketSnapshot);
+            }
+        }
+        hitCount.increment();
+        return await(cached);
+    }
+
+    /**
+     * @return Number of quotes served from the cache, including the ones waiting for the same miss
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return Number of quotes calculated
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return Ratio of the quotes served from the cache, 0 if no quote is requested yet
+     */
+    public double getHitRatio() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * @return Number of quotes cached for the latest snapshot
+     */
+    public int getSize() {
+        Generation current = generation.get();
+        return current == null ? 0 : current.quotes.size();
+    }
+
+    /**
+     * @return cache of the snapshot, replacing the cache of an older snapshot, null if the snapshot is older
+     * than the cached one or another snapshot of the same version
+     */
+    private Generation generationOf(final MarketSnapshot marketSnapshot) {
+        while (true) {
+            Generation current = generation.get();
+            if (current != null && current.snapshot == marketSnapshot)
+                return current;
+            if (current != null && current.snapshot.getVersion() >= marketSnapshot.getVersion())
+                return null;
+            Generation next = new Generation(marketSnapshot);
+            if (generation.compareAndSet(current, next))
+                return next;
+        }
+    }
+
+    private Optional<Quote> calculate(final Generation current, final QuoteKey key,
+                                      final CompletableFuture<Optional<Quote>> calculation,
+                                      final MarketSnapshot marketSnapshot) {
+        try {
+            Optional<Quote> quote = delegate.calculateQuote(marketSnapshot, key.getAmount(), key.getNumberOfMonths());
+            calculation.complete(quote);
+            return quote;
+        } catch (Throwable e) {
+            // the waiting requests fail as well, the next request calculates again
+            current.quotes.remove(key, calculation);
+            calculation.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Optional<Quote> await(final CompletableFuture<Optional<Quote>> cached) {
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    private static final class Generation {
+        private final MarketSnapshot snapshot;
+        private final ConcurrentMap<QuoteKey, CompletableFuture<Optional<Quote>>> quotes = new ConcurrentHashMap<>();
+
+        private Generation(final MarketSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    @Value
+    private static class QuoteKey {
+        private int amount;
+        private int numberOfMonths;
+    }
+}
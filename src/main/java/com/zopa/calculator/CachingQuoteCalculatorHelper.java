@@ -0,0 +1,149 @@
+package com.zopa.calculator;
+
+import com.zopa.model.Offer;
+import com.zopa.model.OrderBook;
+import lombok.NonNull;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.zopa.config.Config.DISCOUNT_FACTOR_CACHE_SIZE;
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Quote calculator helper which caches discount factors by rate and number of months.
+ * The cache is bounded and split into segments, each evicting its least recently used entry when full,
+ * so concurrent quotes only contend when their keys fall into the same segment.
+ * Other calculations are delegated as they are
+ */
+@Primary
+@Component
+public class CachingQuoteCalculatorHelper implements QuoteCalculatorHelper {
+    private static final int SEGMENT_COUNT = 16;
+
+    private final QuoteCalculatorHelper delegate;
+    private final Segment[] segments;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    @Autowired
+    public CachingQuoteCalculatorHelper(final QuoteCalculatorHelperImpl delegate) {
+        this(delegate, DISCOUNT_FACTOR_CACHE_SIZE);
+    }
+
+    public CachingQuoteCalculatorHelper(@NonNull final QuoteCalculatorHelper delegate, final int maximumSize) {
+        isTrue(maximumSize > 0, "maximumSize should be positive");
+        this.delegate = delegate;
+        int segmentCount = Math.min(SEGMENT_COUNT, maximumSize);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // spread the remainder so the segments add up to maximumSize
+            segments[i] = new Segment(maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0));
+        }
+    }
+
+    public Optional<BigDecimal> calculateRate(final SortedSet<Offer> offerSet, final int amount) {
+        return delegate.calculateRate(offerSet, amount);
+    }
+
+    public Optional<BigDecimal> calculateRate(final OrderBook orderBook, final int amount) {
+        return delegate.calculateRate(orderBook, amount);
+    }
+
+    public List<Optional<BigDecimal>> calculateRates(final SortedSet<Offer> offerSet, final int[] amounts) {
+        return delegate.calculateRates(offerSet, amounts);
+    }
+
+    /**
+     * Returns the cached discount factor of the rate and number of months, calculating it on a miss.
+     * Rates are compared by value, so 0.07 and 0.070 share the same entry
+     * @param rate Yearly rate for the loan
+     * @param numberOfMonths Total number of months of repayment
+     * @return Discount factor
+     */
+    public BigDecimal calculateDiscountFactor(@NonNull final BigDecimal rate, final int numberOfMonths) {
+        DiscountFactorKey key = new DiscountFactorKey(rate.stripTrailingZeros(), numberOfMonths);
+        Segment segment = segments[(key.hashCode() & Integer.MAX_VALUE) % segments.length];
+
+        BigDecimal discountFactor;
+        synchronized (segment) {
+            discountFactor = segment.get(key);
+        }
+        if (discountFactor != null) {
+            hitCount.increment();
+            return discountFactor;
+        }
+
+        missCount.increment();
+        // calculated outside the lock, a concurrent miss for the same key at worst calculates it twice
+        discountFactor = delegate.calculateDiscountFactor(rate, numberOfMonths);
+        synchronized (segment) {
+            segment.put(key, discountFactor);
+        }
+        return discountFactor;
+    }
+
+    public BigDecimal calculateMonthlyPayments(final BigDecimal discountFactor, final int amount) {
+        return delegate.calculateMonthlyPayments(discountFactor, amount);
+    }
+
+    public BigDecimal calculateTotalPayments(final BigDecimal monthlyPayments, final int numberOfMonths) {
+        return delegate.calculateTotalPayments(monthlyPayments, numberOfMonths);
+    }
+
+    /**
+     * @return Number of discount factors served from the cache
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return Number of discount factors calculated because they were not in the cache
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return Number of discount factors currently cached
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Value
+    private static class DiscountFactorKey {
+        private BigDecimal rate;
+        private int numberOfMonths;
+    }
+
+    private static class Segment extends LinkedHashMap<DiscountFactorKey, BigDecimal> {
+        private final int maximumSize;
+
+        Segment(final int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<DiscountFactorKey, BigDecimal> eldest) {
+            return size() > maximumSize;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.zopa.calculator;
+
+import com.zopa.metrics.QuoteMetrics;
+import com.zopa.metrics.Stage;
+import com.zopa.model.Offer;
+import com.zopa.model.OrderBook;
+import com.zopa.model.Quote;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.zopa.config.Config.CURRENCY;
+import static com.zopa.config.Config.FAST_PATH_CALCULATION;
+import static com.zopa.config.Config.FAST_PATH_VERIFICATION;
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Quote calculator which calculates the monthly and total repayments in double precision.
+ * The weighted rate is still calculated exactly by the helper, only the discount factor and the payments,
+ * where BigDecimal.pow dominates the cost, are done in double.
+ *
+ * Error bound, in units of u = 2^-53 relative error:
+ * - rate to double and division by 12: 2u
+ * - y = n * log1p(mRate): log1p is within 1 ulp, the product adds u, so y is within 5u
+ * - g = expm1(y) = (1 + mRate)^n - 1: the error of y is amplified by at most (1 + y), expm1 adds 2u,
+ *   so g is within 5u(1 + y) + 2u
+ * - payment = amount * mRate * (g + 1) / g: g appears twice and four roundings are added,
+ *   so the payment is within 10u(1 + y) + 10u, and the total repayment adds one more u
+ * The bound used below doubles this to also cover the DECIMAL128 rounding of the exact path and the
+ * conversion back to BigDecimal.
+ *
+ * Quote amounts are displayed rounded to the minor unit of the currency, e.g. pence. When verification is enabled
+ * and a payment is closer to a half minor unit than its error bound, the rounded amount could differ from the
+ * exact path, so the quote is recalculated by the exact calculator. Otherwise both paths always display the same
+ * numbers in the currency of the calculator, which should be the one the quotes are rendered in
+ */
+@Component
+public class FastPathLoanCalculator implements QuoteCalculator {
+    private static final double UNIT_ROUNDOFF = Math.ulp(1.0) / 2;
+
+    private final MonthlyCompoundInterestLoanCalculator exactCalculator;
+    private final QuoteCalculatorHelper quoteCalculatorHelper;
+    private final boolean enabled;
+    private final boolean verification;
+    // minor units per major unit of the currency the quotes are rounded to
+    private final double minorUnits;
+    private final LongAdder fallbackCount = new LongAdder();
+
+    @Autowired
+    public FastPathLoanCalculator(final MonthlyCompoundInterestLoanCalculator exactCalculator,
+                                  final QuoteCalculatorHelper quoteCalculatorHelper) {
+        this(exactCalculator, quoteCalculatorHelper, FAST_PATH_CALCULATION, FAST_PATH_VERIFICATION, CURRENCY);
+    }
+
+    public FastPathLoanCalculator(final MonthlyCompoundInterestLoanCalculator exactCalculator,
+                                  final QuoteCalculatorHelper quoteCalculatorHelper,
+                                  final boolean enabled,
+                                  final boolean verification) {
+        this(exactCalculator, quoteCalculatorHelper, enabled, verification, CURRENCY);
+    }
+
+    /**
+     * @param currency Currency the quotes are rounded to when rendered, its fraction digits decide which
+     *                 payments are verified against the exact calculator
+     */
+    public FastPathLoanCalculator(@NonNull final MonthlyCompoundInterestLoanCalculator exactCalculator,
+                                  @NonNull final QuoteCalculatorHelper quoteCalculatorHelper,
+                                  final boolean enabled,
+                                  final boolean verification,
+                                  @NonNull final Currency currency) {
+        isTrue(currency.getDefaultFractionDigits() >= 0, "currency should have a minor unit");
+        this.exactCalculator = exactCalculator;
+        this.quoteCalculatorHelper = quoteCalculatorHelper;
+        this.enabled = enabled;
+        this.verification = verification;
+        this.minorUnits = Math.pow(10, currency.getDefaultFractionDigits());
+    }
+
+    public Optional<Quote> calculateQuote(@NonNull final SortedSet<Offer> offerSet,
+                                          final int amount,
+                                          final int numberOfMonths) {
+        if (!enabled)
+            return exactCalculator.calculateQuote(offerSet, amount, numberOfMonths);
+        long start = QuoteMetrics.GLOBAL.start();
+        Optional<BigDecimal> rateOptional = quoteCalculatorHelper.calculateRate(offerSet, amount);
+        QuoteMetrics.GLOBAL.record(Stage.RATE, start);
+        return rateOptional.map(rate -> calculateQuote(rate, amount, numberOfMonths));
+    }
+
+    public Optional<Quote> calculateQuote(@NonNull final OrderBook orderBook,
+                                          final int amount,
+                                          final int numberOfMonths) {
+        if (!enabled)
+            return exactCalculator.calculateQuote(orderBook, amount, numberOfMonths);
+        long start = QuoteMetrics.GLOBAL.start();
+        Optional<BigDecimal> rateOptional = quoteCalculatorHelper.calculateRate(orderBook, amount);
+        QuoteMetrics.GLOBAL.record(Stage.RATE, start);
+        return rateOptional.map(rate -> calculateQuote(rate, amount, numberOfMonths));
+    }
+
+    public List<Optional<Quote>> calculateQuotes(@NonNull final SortedSet<Offer> offerSet,
+                                                 @NonNull final int[] amounts,
+                                                 final int numberOfMonths) {
+        if (!enabled)
+            return exactCalculator.calculateQuotes(offerSet, amounts, numberOfMonths);
+        long start = QuoteMetrics.GLOBAL.start();
+        List<Optional<BigDecimal>> rates = quoteCalculatorHelper.calculateRates(offerSet, amounts);
+        QuoteMetrics.GLOBAL.record(Stage.RATE, start);
+        List<Optional<Quote>> quotes = new ArrayList<>(amounts.length);
+        for (int i = 0; i < amounts.length; i++) {
+            int amount = amounts[i];
+            quotes.add(rates.get(i).map(rate -> calculateQuote(rate, amount, numberOfMonths)));
+        }
+        return quotes;
+    }
+
+    /**
+     * @return Number of quotes recalculated by the exact calculator
+     */
+    public long getFallbackCount() {
+        return fallbackCount.sum();
+    }
+
+    private Quote calculateQuote(final BigDecimal rate, final int amount, final int numberOfMonths) {
+        long start = QuoteMetrics.GLOBAL.start();
+        double mRate = rate.doubleValue() / 12;
+        if (!(mRate > 0) || numberOfMonths <= 0 || amount <= 0)
+            return exactQuote(rate, amount, numberOfMonths);
+
+        double y = numberOfMonths * Math.log1p(mRate);
+        // (1 + mRate)^n - 1 without the cancellation of subtracting one from the power
+        double growth = Math.expm1(y);
+        double monthlyPayments = amount * mRate * (growth + 1) / growth;
+        double totalPayments = monthlyPayments * numberOfMonths;
+
+        double relativeError = 2 * UNIT_ROUNDOFF * (10 * (1 + y) + 12);
+        if (!Double.isFinite(totalPayments) || verification
+                && (nearRoundingBoundary(monthlyPayments, relativeError)
+                || nearRoundingBoundary(totalPayments, relativeError))) {
+            return exactQuote(rate, amount, numberOfMonths);
+        }
+        // the discount factor and the payments are a single calculation in double precision
+        QuoteMetrics.GLOBAL.record(Stage.PAYMENT, start);
+
+        return Quote.builder()
+                .rate(rate)
+                .requestedAmount(amount)
+                .monthlyRepayment(BigDecimal.valueOf(monthlyPayments))
+                .totalRepayment(BigDecimal.valueOf(totalPayments))
+                .build();
+    }
+
+    private Quote exactQuote(final BigDecimal rate, final int amount, final int numberOfMonths) {
+        fallbackCount.increment();
+        return exactCalculator.calculateQuote(rate, amount, numberOfMonths);
+    }
+
+    /**
+     * Checks whether the value may round to a different minor unit than the exact value it approximates
+     * @param value approximated amount
+     * @param relativeError bound of the relative error of the value
+     * @return true if a half minor unit lies within the error bound of the value
+     */
+    private boolean nearRoundingBoundary(final double value, final double relativeError) {
+        double units = value * minorUnits;
+        double distance = Math.abs(units - Math.floor(units) - 0.5);
+        return distance <= Math.abs(units) * (relativeError + UNIT_ROUNDOFF);
+    }
+}
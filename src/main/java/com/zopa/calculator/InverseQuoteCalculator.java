@@ -0,0 +1,92 @@
+package com.zopa.calculator;
+
+import com.zopa.model.MarketDefinition;
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.Quote;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Answers inverse quote queries: the largest amount which can be borrowed within a rate or a monthly repayment.
+ * Offers are filled cheapest first, so the weighted rate never decreases as the amount grows, the discount factor
+ * never increases and the monthly repayment strictly increases. Both limits therefore hold for every amount up to
+ * the largest one and for none above it, which is found by binary search over the amounts the market accepts
+ * (multiples of its amount multiplier between its limits, up to the total amount of the order book).
+ * Each probe is a logarithmic lookup in the order book, so a query costs O(log amounts x log offers)
+ */
+public class InverseQuoteCalculator {
+    private final QuoteCalculator quoteCalculator;
+
+    public InverseQuoteCalculator(@NonNull final QuoteCalculator quoteCalculator) {
+        this.quoteCalculator = quoteCalculator;
+    }
+
+    /**
+     * @param marketSnapshot Snapshot of the market
+     * @param market Definition of the market, whose amount limits and multiplier are honoured
+     * @param maxRate highest acceptable yearly rate
+     * @param numberOfMonths number of months to repay the loan
+     * @return Quote of the largest amount whose rate is at most maxRate, empty if no amount is
+     */
+    public Optional<Quote> maxQuoteForRate(@NonNull final MarketSnapshot marketSnapshot,
+                                           @NonNull final MarketDefinition market,
+                                           @NonNull final BigDecimal maxRate, final int numberOfMonths) {
+        isTrue(maxRate.signum() > 0, "maxRate should be positive");
+        return maxQuote(marketSnapshot, market, numberOfMonths, amount -> marketSnapshot.getOrderBook()
+                .weightedRate(amount)
+                .map(rate -> rate.compareTo(maxRate) <= 0)
+                .orElse(false));
+    }
+
+    /**
+     * The monthly repayment is compared as quoted, rounded to the minor unit of the currency of the market
+     * @param marketSnapshot Snapshot of the market
+     * @param market Definition of the market, whose amount limits and multiplier are honoured
+     * @param maxMonthlyRepayment highest acceptable monthly repayment
+     * @param numberOfMonths number of months to repay the loan
+     * @return Quote of the largest amount whose monthly repayment is at most maxMonthlyRepayment, empty if no
+     * amount is
+     */
+    public Optional<Quote> maxQuoteForMonthlyRepayment(@NonNull final MarketSnapshot marketSnapshot,
+                                                       @NonNull final MarketDefinition market,
+                                                       @NonNull final BigDecimal maxMonthlyRepayment,
+                                                       final int numberOfMonths) {
+        isTrue(maxMonthlyRepayment.signum() > 0, "maxMonthlyRepayment should be positive");
+        final int scale = market.getCurrency().getDefaultFractionDigits();
+        return maxQuote(marketSnapshot, market, numberOfMonths, amount -> quoteCalculator
+                .calculateQuote(marketSnapshot, amount, numberOfMonths)
+                .map(quote -> quote.getMonthlyRepayment().setScale(scale, RoundingMode.HALF_EVEN)
+                        .compareTo(maxMonthlyRepayment) <= 0)
+                .orElse(false));
+    }
+
+    /**
+     * Finds the largest accepted amount satisfying the limit, given that the limit holds for every smaller amount
+     */
+    private Optional<Quote> maxQuote(final MarketSnapshot marketSnapshot, final MarketDefinition market,
+                                     final int numberOfMonths, final IntPredicate withinLimit) {
+        isTrue(numberOfMonths > 0, "numberOfMonths should be positive");
+        final int multiplier = market.getAmountMultiplier();
+        long highestAmount = Math.min(market.getMaxAmount(), marketSnapshot.getOrderBook().totalAmount());
+        // amounts are low x multiplier ... high x multiplier
+        int low = (market.getMinAmount() + multiplier - 1) / multiplier;
+        int high = (int) (highestAmount / multiplier);
+        if (low > high || !withinLimit.test(low * multiplier))
+            return Optional.empty();
+
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (withinLimit.test(mid * multiplier))
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        return quoteCalculator.calculateQuote(marketSnapshot, low * multiplier, numberOfMonths);
+    }
+}
@@ -1,12 +1,17 @@
 package com.zopa.calculator;
 
+import com.zopa.metrics.QuoteMetrics;
+import com.zopa.metrics.Stage;
 import com.zopa.model.Offer;
+import com.zopa.model.OrderBook;
 import com.zopa.model.Quote;
 import lombok.NonNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.SortedSet;
 
@@ -32,20 +37,77 @@ public class MonthlyCompoundInterestLoanCalculator implements QuoteCalculator {
     public Optional<Quote> calculateQuote(@NonNull final SortedSet<Offer> offerSet,
                                           final int amount,
                                           final int numberOfMonths) {
-        Optional<BigDecimal> rateOptional = quoteCalculatorHelper.calculateRate(offerSet, amount);
-        if (!rateOptional.isPresent())
-            return Optional.empty();
+        long start = QuoteMetrics.GLOBAL.start();
+        Optional<BigDecimal> rate = quoteCalculatorHelper.calculateRate(offerSet, amount);
+        QuoteMetrics.GLOBAL.record(Stage.RATE, start);
+        return quoteFromRate(rate, amount, numberOfMonths);
+    }
+
+    /**
+     * Calculate quote based on monthly compound interest from an order book built once for the offers
+     * @param orderBook Order book of available offers
+     * @param amount requested amount as loan
+     * @param numberOfMonths number of months to repay the loan
+     * @return Quote if requested amount is available, empty otherwise
+     */
+    public Optional<Quote> calculateQuote(@NonNull final OrderBook orderBook,
+                                          final int amount,
+                                          final int numberOfMonths) {
+        long start = QuoteMetrics.GLOBAL.start();
+        Optional<BigDecimal> rate = quoteCalculatorHelper.calculateRate(orderBook, amount);
+        QuoteMetrics.GLOBAL.record(Stage.RATE, start);
+        return quoteFromRate(rate, amount, numberOfMonths);
+    }
 
-        BigDecimal discountFactor = quoteCalculatorHelper.calculateDiscountFactor(rateOptional.get(), numberOfMonths);
+    /**
+     * Calculate quotes based on monthly compound interest for several amounts. Rates of all amounts are
+     * calculated in a single sweep over the offers
+     * @param offerSet Available set off offers
+     * @param amounts requested amounts as loan, in any order
+     * @param numberOfMonths number of months to repay the loans
+     * @return Quotes in the order of the amounts, each present if its amount is available, empty otherwise
+     */
+    public List<Optional<Quote>> calculateQuotes(@NonNull final SortedSet<Offer> offerSet,
+                                                 @NonNull final int[] amounts,
+                                                 final int numberOfMonths) {
+        long start = QuoteMetrics.GLOBAL.start();
+        List<Optional<BigDecimal>> rates = quoteCalculatorHelper.calculateRates(offerSet, amounts);
+        QuoteMetrics.GLOBAL.record(Stage.RATE, start);
+        List<Optional<Quote>> quotes = new ArrayList<>(amounts.length);
+        for (int i = 0; i < amounts.length; i++) {
+            quotes.add(quoteFromRate(rates.get(i), amounts[i], numberOfMonths));
+        }
+        return quotes;
+    }
+
+    /**
+     * Calculate quote based on monthly compound interest for an already calculated rate
+     * @param rate weighted yearly rate of the loan
+     * @param amount requested amount as loan
+     * @param numberOfMonths number of months to repay the loan
+     * @return Quote of the loan
+     */
+    public Quote calculateQuote(@NonNull final BigDecimal rate, final int amount, final int numberOfMonths) {
+        long start = QuoteMetrics.GLOBAL.start();
+        BigDecimal discountFactor = quoteCalculatorHelper.calculateDiscountFactor(rate, numberOfMonths);
+        QuoteMetrics.GLOBAL.record(Stage.DISCOUNT_FACTOR, start);
+        start = QuoteMetrics.GLOBAL.start();
         BigDecimal monthlyPayments = quoteCalculatorHelper.calculateMonthlyPayments(discountFactor, amount);
         BigDecimal totalPayments = quoteCalculatorHelper.calculateTotalPayments(monthlyPayments, numberOfMonths);
+        QuoteMetrics.GLOBAL.record(Stage.PAYMENT, start);
 
-        return Optional.of(Quote.builder()
-                .rate(rateOptional.get())
+        return Quote.builder()
+                .rate(rate)
                 .requestedAmount(amount)
                 .monthlyRepayment(monthlyPayments)
                 .totalRepayment(totalPayments)
-                .build());
+                .build();
+    }
+
+    private Optional<Quote> quoteFromRate(final Optional<BigDecimal> rateOptional,
+                                          final int amount,
+                                          final int numberOfMonths) {
+        return rateOptional.map(rate -> calculateQuote(rate, amount, numberOfMonths));
     }
 
 }
@@ -0,0 +1,116 @@
+package com.zopa.calculator;
+
+import com.zopa.model.Offer;
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Allocates loans from the available amounts of the offers, so the same money is never lent twice.
+ * Unlike calculateRate, which only prices a loan, a reservation takes the filled amounts out of the offers until
+ * it is released.
+ * The remaining amount of each offer is an element of an atomic array, decreased with compare and set, so
+ * reservations contend per offer instead of on a lock and an offer can never go below zero:
+ * - Visit the offers from the cheapest, and take the smaller of the remaining and the still missing amount
+ *   with compare and set, retrying the offer if another reservation changed it in between
+ * - If the offers run out before the amount is filled, give back the taken amounts and return empty
+ * While a failed reservation gives back its amounts, a concurrent one may see less than is finally available
+ * and fail as well, but it can never take more than is available
+ */
+public class OfferReservationEngine {
+    private final String[] lenders;
+    private final BigDecimal[] rates;
+    private final AtomicIntegerArray remainingAmounts;
+
+    /**
+     * @param offerSet Set of offers, whose available amounts can be reserved
+     */
+    public OfferReservationEngine(@NonNull final SortedSet<Offer> offerSet) {
+        this.lenders = new String[offerSet.size()];
+        this.rates = new BigDecimal[offerSet.size()];
+        int[] amounts = new int[offerSet.size()];
+        int i = 0;
+        for (Offer offer : offerSet) {
+            isTrue(offer.getAmount() >= 0, "amounts should not be negative");
+            lenders[i] = offer.getLender();
+            rates[i] = offer.getRate();
+            amounts[i] = offer.getAmount();
+            i++;
+        }
+        this.remainingAmounts = new AtomicIntegerArray(amounts);
+    }
+
+    /**
+     * Reserves the amount from the cheapest offers which still have money available
+     * @param amount Total amount to loan
+     * @return Reservation of the amount, empty if the remaining offers do not satisfy the amount
+     */
+    public Optional<Reservation> reserve(final int amount) {
+        isTrue(amount > 0, "amount should be positive");
+
+        List<Allocation> allocations = new ArrayList<>();
+        int missing = amount;
+        for (int i = 0; i < rates.length && missing > 0; i++) {
+            int remaining;
+            int taken;
+            do {
+                remaining = remainingAmounts.get(i);
+                taken = Math.min(remaining, missing);
+            } while (taken > 0 && !remainingAmounts.compareAndSet(i, remaining, remaining - taken));
+            if (taken > 0) {
+                allocations.add(new Allocation(i, taken));
+                missing -= taken;
+            }
+        }
+        if (missing > 0) {
+            giveBack(allocations);
+            return Optional.empty();
+        }
+        return Optional.of(new Reservation(this, amount, allocations));
+    }
+
+    /**
+     * @return amount not reserved yet, or released, of all offers
+     */
+    public long getRemainingAmount() {
+        long total = 0;
+        for (int i = 0; i < remainingAmounts.length(); i++) {
+            total += remainingAmounts.get(i);
+        }
+        return total;
+    }
+
+    String lender(final int offerIndex) {
+        return lenders[offerIndex];
+    }
+
+    BigDecimal rate(final int offerIndex) {
+        return rates[offerIndex];
+    }
+
+    void giveBack(final List<Allocation> allocations) {
+        for (Allocation allocation : allocations) {
+            remainingAmounts.addAndGet(allocation.offerIndex, allocation.amount);
+        }
+    }
+
+    /**
+     * Amount reserved from an offer
+     */
+    static final class Allocation {
+        final int offerIndex;
+        final int amount;
+
+        Allocation(final int offerIndex, final int amount) {
+            this.offerIndex = offerIndex;
+            this.amount = amount;
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.zopa.calculator;
 
+import com.zopa.model.MarketSnapshot;
 import com.zopa.model.Offer;
+import com.zopa.model.OrderBook;
 import com.zopa.model.Quote;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.SortedSet;
 
+import static com.zopa.config.Config.CURRENCY;
+
 public interface QuoteCalculator {
     /**
      * Calculate quote for a qiven set of offers, requested amount and number of months for payment
@@ -15,4 +20,44 @@ public interface QuoteCalculator {
      * @return Quote if available, otherwise empty
      */
     Optional<Quote> calculateQuote(SortedSet<Offer> offerSet, int amount, int numberOfMonths);
+
+    /**
+     * Calculate quote for a qiven order book, requested amount and number of months for payment
+     * @param orderBook Order book of available offers
+     * @param amount requested amount as loan
+     * @param numberOfMonths number of months to repay the loan
+     * @return Quote if available, otherwise empty
+     */
+    Optional<Quote> calculateQuote(OrderBook orderBook, int amount, int numberOfMonths);
+
+    /**
+     * Calculate quote for a qiven market snapshot, requested amount and number of months for payment
+     * @param marketSnapshot Snapshot of the market to price the quote on
+     * @param amount requested amount as loan
+     * @param numberOfMonths number of months to repay the loan
+     * @return Quote with the version of the snapshot if available, otherwise empty
+     */
+    default Optional<Quote> calculateQuote(MarketSnapshot marketSnapshot, int amount, int numberOfMonths) {
+        return calculateQuote(marketSnapshot.getOrderBook(), amount, numberOfMonths)
+                .map(quote -> quote.toBuilder().marketVersion(marketSnapshot.getVersion()).build());
+    }
+
+    /**
+     * Calculate quotes for several requested amounts in one pass over the given set of offers
+     * @param offerSet Available set of offers
+     * @param amounts requested amounts as loan, in any order
+     * @param numberOfMonths number of months to repay the loans
+     * @return Quotes in the order of the amounts, each present if available, otherwise empty
+     */
+    List<Optional<Quote>> calculateQuotes(SortedSet<Offer> offerSet, int[] amounts, int numberOfMonths);
+
+    /**
+     * Amortization schedule of a quote in the currency of the application, see AmortizationSchedule
+     * @param quote Quote to repay
+     * @param numberOfMonths number of months the quote is repaid in
+     * @return Schedule calculating its periods on demand
+     */
+    default AmortizationSchedule calculateSchedule(final Quote quote, final int numberOfMonths) {
+        return new AmortizationSchedule(quote, numberOfMonths, CURRENCY.getDefaultFractionDigits());
+    }
 }
@@ -1,8 +1,10 @@
 package com.zopa.calculator;
 
 import com.zopa.model.Offer;
+import com.zopa.model.OrderBook;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 import java.util.SortedSet;
 
@@ -16,6 +18,24 @@ public interface QuoteCalculatorHelper {
      */
     Optional<BigDecimal> calculateRate(SortedSet<Offer> offerSet, int amount);
 
+    /**
+     * Calculates rate based on the offers indexed in the order book
+     * @param orderBook Order book of available offers
+     * @param amount Total amount to loan
+     * @return calculated rate as optional if offers satisfy amount.
+     * otherwise return empty
+     */
+    Optional<BigDecimal> calculateRate(OrderBook orderBook, int amount);
+
+    /**
+     * Calculates rates for several amounts in one pass over the current offers available
+     * @param offerSet Set of available offers
+     * @param amounts Total amounts to loan, in any order
+     * @return calculated rates in the order of the amounts, each present if offers satisfy its amount.
+     * otherwise empty
+     */
+    List<Optional<BigDecimal>> calculateRates(SortedSet<Offer> offerSet, int[] amounts);
+
     /**
      * Calculates discount factor
      * @param rate yearly rate
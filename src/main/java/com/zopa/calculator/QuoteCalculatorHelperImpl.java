@@ -1,27 +1,40 @@
 package com.zopa.calculator;
 
 import com.zopa.model.Offer;
-import com.zopa.model.WeightedValue;
+import com.zopa.model.OrderBook;
 import lombok.NonNull;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.SortedSet;
 
+import static com.zopa.config.Config.ANNUITY_RATE_GRID_MAX;
+import static com.zopa.config.Config.ANNUITY_RATE_GRID_STEP;
+import static com.zopa.config.Config.MAX_LOAN_LENGTH_IN_MONTHS;
 import static org.springframework.util.Assert.isTrue;
 
 @Component
 public class QuoteCalculatorHelperImpl implements QuoteCalculatorHelper {
+    private final AnnuityFactorTable annuityFactorTable =
+            new AnnuityFactorTable(ANNUITY_RATE_GRID_STEP, ANNUITY_RATE_GRID_MAX, MAX_LOAN_LENGTH_IN_MONTHS);
+
     /**
      * This method calculates the weighted rate from the given set of offers
      * Works as follows:
-     * - Add offer amount to the total amount until requested amount is reached
-     * - In each iteration, calculate the weighted average of rate
-     * - return optional of weighted rate if amount is reached, otherwise return empty
+     * - Visit the offers in ascending rate until requested amount is reached, without indexing the whole set
+     * - Accumulate amount x rate of the offers which are filled completely, then the partial one
+     * - return optional of the accumulated amount x rate divided once by the amount if amount is reached,
+     *   otherwise return empty
+     * Callers quoting the same offers repeatedly should build an order book once and use
+     * {@link #calculateRate(OrderBook, int)}
      * @param offerSet Set of available offers
      * @param amount Total amount to loan
      * @return calculated rate as optional if offers satisfy amount.
@@ -30,35 +43,87 @@ public class QuoteCalculatorHelperImpl implements QuoteCalculatorHelper {
     public Optional<BigDecimal> calculateRate(@NonNull final SortedSet<Offer> offerSet, final int amount) {
         isTrue(amount > 0, "amount should be positive");
 
-        List<WeightedValue> offersToLoan = new LinkedList<>();
-        int currTotal = 0;
-        for (Offer offer: offerSet) {
-            if (currTotal + offer.getAmount() < amount) {
-                offersToLoan.add(WeightedValue.builder()
-                        .weight(BigDecimal.valueOf(offer.getAmount()))
-                        .value(offer.getRate())
-                        .build());
-                currTotal = currTotal + offer.getAmount();
+        long cumulativeAmount = 0;
+        BigDecimal cumulativeWeightedRate = BigDecimal.ZERO;
+        for (Offer offer : offerSet) {
+            if (cumulativeAmount + offer.getAmount() < amount) {
+                cumulativeAmount += offer.getAmount();
+                cumulativeWeightedRate = cumulativeWeightedRate
+                        .add(offer.getRate().multiply(BigDecimal.valueOf(offer.getAmount())));
             } else {
-                offersToLoan.add(WeightedValue.builder()
-                        .weight(BigDecimal.valueOf(amount - currTotal))
-                        .value(offer.getRate())
-                        .build());
-                currTotal = amount;
-                break;
+                BigDecimal weightedTotal = cumulativeWeightedRate
+                        .add(offer.getRate().multiply(BigDecimal.valueOf(amount - cumulativeAmount)));
+                return Optional.of(weightedTotal.divide(BigDecimal.valueOf(amount), MathContext.DECIMAL128));
             }
         }
+        return Optional.empty();
+    }
+
+    /**
+     * This method calculates the weighted rate from the given order book
+     * Works as follows:
+     * - Binary search the offer where the cumulative amount reaches the requested amount
+     * - Add the partial amount x rate of that offer to the cumulative amount x rate of the cheaper offers
+     * - return optional of weighted rate if amount is reached, otherwise return empty
+     * @param orderBook Order book of available offers
+     * @param amount Total amount to loan
+     * @return calculated rate as optional if offers satisfy amount.
+     *      * otherwise return empty
+     */
+    public Optional<BigDecimal> calculateRate(@NonNull final OrderBook orderBook, final int amount) {
+        isTrue(amount > 0, "amount should be positive");
+
+        return orderBook.weightedRate(amount);
+    }
+
+    /**
+     * This method calculates the weighted rates of several amounts in a single sweep over the offers
+     * Works as follows:
+     * - Visit the amounts in ascending order
+     * - For each amount, consume the offers which are filled completely and accumulate their amount x rate
+     * - Add the partial amount x rate of the offer where the amount is filled and divide by the amount
+     * - Once the offers run out, the remaining amounts are not available
+     * @param offerSet Set of available offers
+     * @param amounts Total amounts to loan, in any order
+     * @return calculated rates in the order of the amounts, each present if offers satisfy its amount.
+     *      * otherwise empty
+     */
+    public List<Optional<BigDecimal>> calculateRates(@NonNull final SortedSet<Offer> offerSet,
+                                                     @NonNull final int[] amounts) {
+        Integer[] order = new Integer[amounts.length];
+        for (int i = 0; i < amounts.length; i++) {
+            isTrue(amounts[i] > 0, "amount should be positive");
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> amounts[i]));
 
-        return currTotal == amount ? Optional.of(offersToLoan.stream()
-                .reduce(QuoteCalculatorHelperImpl::calculateWeightedAverage)
-                .get()
-                .getValue()) : Optional.empty();
+        List<Optional<BigDecimal>> rates = new ArrayList<>(Collections.nCopies(amounts.length, Optional.empty()));
+        Iterator<Offer> offers = offerSet.iterator();
+        Offer current = offers.hasNext() ? offers.next() : null;
+        long cumulativeAmount = 0;
+        BigDecimal cumulativeWeightedRate = BigDecimal.ZERO;
+        for (int index : order) {
+            int amount = amounts[index];
+            while (current != null && cumulativeAmount + current.getAmount() < amount) {
+                cumulativeAmount += current.getAmount();
+                cumulativeWeightedRate = cumulativeWeightedRate
+                        .add(current.getRate().multiply(BigDecimal.valueOf(current.getAmount())));
+                current = offers.hasNext() ? offers.next() : null;
+            }
+            if (current == null)
+                break;
+            BigDecimal weightedTotal = cumulativeWeightedRate
+                    .add(current.getRate().multiply(BigDecimal.valueOf(amount - cumulativeAmount)));
+            rates.set(index, Optional.of(weightedTotal.divide(BigDecimal.valueOf(amount), MathContext.DECIMAL128)));
+        }
+        return rates;
     }
 
     /**
      * Discount Factor = {[(1 + mRate) ^numberOfMonths] - 1} / [mRate(1 + mRate)^numberOfMonths]
      * where
      *  (mRate) = Annual rate divided by number of payment periods
+     * Compound factors are looked up from the annuity factor table instead of being raised to the power
      * @param rate Yearly rate for the loan
      * @param numberOfMonths Total number of months of repayment
      * @return Discount factor
@@ -66,13 +131,7 @@ public class QuoteCalculatorHelperImpl implements QuoteCalculatorHelper {
     public BigDecimal calculateDiscountFactor(@NonNull final BigDecimal rate, final int numberOfMonths) {
         isTrue(numberOfMonths > 0, "numberOfMonths should be positive");
 
-        final int yearlyPayments = 12;
-        final BigDecimal mRate = rate.divide(new BigDecimal(yearlyPayments), MathContext.DECIMAL128);
-
-        final BigDecimal numerator = mRate.add(BigDecimal.ONE).pow(numberOfMonths).subtract(BigDecimal.ONE);
-        final BigDecimal denominator = mRate.multiply(mRate.add(BigDecimal.ONE).pow(numberOfMonths));
-
-        return numerator.divide(denominator, MathContext.DECIMAL128);
+        return annuityFactorTable.discountFactor(rate, numberOfMonths);
     }
 
     /**
@@ -98,13 +157,4 @@ public class QuoteCalculatorHelperImpl implements QuoteCalculatorHelper {
 
         return monthlyPayments.multiply(new BigDecimal(numberOfMonths));
     }
-
-    private static WeightedValue calculateWeightedAverage(final WeightedValue wv1, final WeightedValue wv2) {
-        return WeightedValue.builder().value(
-                wv1.getValue().multiply(wv1.getWeight())
-                .add(wv2.getValue().multiply(wv2.getWeight()))
-                .divide(wv1.getWeight().add(wv2.getWeight()), MathContext.DECIMAL128))
-                .weight(wv1.getWeight().add(wv2.getWeight()))
-                .build();
-    }
 }
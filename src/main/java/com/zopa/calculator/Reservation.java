@@ -0,0 +1,89 @@
+package com.zopa.calculator;
+
+import com.zopa.model.Offer;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Amounts reserved from offers for a loan. A reservation is pending until it is either committed,
+ * which lends the amounts for good, or released, which makes them available to other reservations again
+ */
+public class Reservation {
+    public enum State {
+        PENDING, COMMITTED, RELEASED
+    }
+
+    private final OfferReservationEngine engine;
+    private final int amount;
+    private final List<OfferReservationEngine.Allocation> allocations;
+    private final AtomicReference<State> state = new AtomicReference<>(State.PENDING);
+
+    Reservation(final OfferReservationEngine engine, final int amount,
+                final List<OfferReservationEngine.Allocation> allocations) {
+        this.engine = engine;
+        this.amount = amount;
+        this.allocations = allocations;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * @return weighted rate of the reserved amounts, the same as calculateRate of the offers left when reserved
+     */
+    public BigDecimal getRate() {
+        BigDecimal weightedTotal = BigDecimal.ZERO;
+        for (OfferReservationEngine.Allocation allocation : allocations) {
+            weightedTotal = weightedTotal.add(
+                    engine.rate(allocation.offerIndex).multiply(BigDecimal.valueOf(allocation.amount)));
+        }
+        return weightedTotal.divide(BigDecimal.valueOf(amount), MathContext.DECIMAL128);
+    }
+
+    /**
+     * @return the reserved part of each offer, from the cheapest, with the reserved amount as available amount
+     */
+    public List<Offer> getAllocations() {
+        List<Offer> offers = new ArrayList<>(allocations.size());
+        for (OfferReservationEngine.Allocation allocation : allocations) {
+            offers.add(Offer.builder()
+                    .lender(engine.lender(allocation.offerIndex))
+                    .rate(engine.rate(allocation.offerIndex))
+                    .amount(allocation.amount)
+                    .build());
+        }
+        return Collections.unmodifiableList(offers);
+    }
+
+    /**
+     * Lends the reserved amounts for good
+     * @throws IllegalStateException if the reservation is not pending
+     */
+    public void commit() {
+        transition(State.COMMITTED);
+    }
+
+    /**
+     * Makes the reserved amounts available to other reservations again
+     * @throws IllegalStateException if the reservation is not pending
+     */
+    public void release() {
+        transition(State.RELEASED);
+        engine.giveBack(allocations);
+    }
+
+    private void transition(final State target) {
+        if (!state.compareAndSet(State.PENDING, target))
+            throw new IllegalStateException("Reservation is already " + state.get());
+    }
+}
@@ -1,5 +1,6 @@
 package com.zopa.config;
 
+import java.math.BigDecimal;
 import java.util.Currency;
 import java.util.Locale;
 
@@ -7,8 +8,48 @@ public class Config {
     public static final Currency CURRENCY = Currency.getInstance("GBP");
     public static final Locale LOCALE = Locale.UK;
     public static final int LOAN_LENGTH_IN_MONTHS = 36;
+    public static final int MIN_LOAN_LENGTH_IN_MONTHS = 1;
+    public static final int MAX_LOAN_LENGTH_IN_MONTHS = 360;
     public static final int MAX_LOAN_AMOUNT = 15000;
     public static final int MIN_LOAN_AMOUNT = 1000;
     public static final int LOAN_AMOUNT_MULTIPLIER = 100;
+    public static final int DISCOUNT_FACTOR_CACHE_SIZE = 4096;
+    // quotes cached per market snapshot, above the valid amounts times a few numbers of months
+    public static final int QUOTE_CACHE_SIZE = 65536;
+    public static final long MARKET_POLL_INTERVAL_MILLIS = 1000;
+    // quotes in flight between reading the requests and writing the quotes of a batch
+    public static final int BATCH_QUEUE_CAPACITY = 4096;
+    // -Dquote.async.threads and -Dquote.async.queueCapacity bound the executor of asynchronous quotes, quotes
+    // submitted while the queue is full are rejected
+    public static final int ASYNC_THREADS =
+            Integer.getInteger("quote.async.threads", Runtime.getRuntime().availableProcessors());
+    public static final int ASYNC_QUEUE_CAPACITY = Integer.getInteger("quote.async.queueCapacity", 1024);
+    // -Dquote.load.concurrency bounds the requests a load test has in flight, later requests queue up behind them
+    public static final int LOAD_TEST_CONCURRENCY =
+            Integer.getInteger("quote.load.concurrency", Runtime.getRuntime().availableProcessors() * 4);
+    // yearly rates which are multiples of the step up to the maximum get a precomputed annuity factor row
+    public static final BigDecimal ANNUITY_RATE_GRID_STEP = new BigDecimal("0.001");
+    public static final BigDecimal ANNUITY_RATE_GRID_MAX = new BigDecimal("0.5");
+    // -Dquote.fastPath=true calculates quotes in double precision, verified against BigDecimal near pence boundaries
+    public static final boolean FAST_PATH_CALCULATION = Boolean.getBoolean("quote.fastPath");
+    public static final boolean FAST_PATH_VERIFICATION =
+            Boolean.parseBoolean(System.getProperty("quote.fastPath.verify", "true"));
+    // -Dquote.bootstrap=spring wires the application with Spring component scanning instead of directly
+    public static final boolean SPRING_BOOTSTRAP = "spring".equals(System.getProperty("quote.bootstrap"));
+    // -Dquote.metrics=true records latencies of the quote stages and quote outcomes, exposed over JMX and logged
+    public static final boolean METRICS_ENABLED = Boolean.getBoolean("quote.metrics");
+    public static final long METRICS_REPORT_INTERVAL_MILLIS = Long.getLong("quote.metrics.reportIntervalMillis", 60000);
 
+    /**
+     * @return All valid loan amounts, multiples of LOAN_AMOUNT_MULTIPLIER between MIN_LOAN_AMOUNT and
+     * MAX_LOAN_AMOUNT in ascending order
+     */
+    public static int[] loanAmountLadder() {
+        int first = (MIN_LOAN_AMOUNT + LOAN_AMOUNT_MULTIPLIER - 1) / LOAN_AMOUNT_MULTIPLIER * LOAN_AMOUNT_MULTIPLIER;
+        int[] amounts = new int[first > MAX_LOAN_AMOUNT ? 0 : (MAX_LOAN_AMOUNT - first) / LOAN_AMOUNT_MULTIPLIER + 1];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = first + i * LOAN_AMOUNT_MULTIPLIER;
+        }
+        return amounts;
+    }
 }
@@ -1,19 +1,25 @@
 package com.zopa.input;
 
+import com.zopa.model.MarketDefinition;
 import com.zopa.model.Offer;
+import com.zopa.model.OfferEvent;
 import lombok.NonNull;
 import org.apache.commons.csv.CSVRecord;
 
 import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.regex.Pattern;
 
-import static com.zopa.config.Config.LOAN_AMOUNT_MULTIPLIER;
-import static com.zopa.config.Config.MAX_LOAN_AMOUNT;
-import static com.zopa.config.Config.MIN_LOAN_AMOUNT;
+import static com.zopa.config.Config.MAX_LOAN_LENGTH_IN_MONTHS;
+import static com.zopa.config.Config.MIN_LOAN_LENGTH_IN_MONTHS;
 
 
 public class InputParser {
     public static final String NAME_REGEX = "^[a-zA-Z0-9]+$";
+    private static final Pattern NAME_PATTERN = Pattern.compile(NAME_REGEX);
     public static Offer parseOffer(@NonNull final CSVRecord csvRecord) {
         return Offer.builder()
                 .lender(parseName(csvRecord.get("lender")))
@@ -22,14 +28,35 @@ public class InputParser {
                 .build();
     }
 
-    private static String parseName(final String name) {
-        if (!Pattern.matches(NAME_REGEX, name)) {
+    public static OfferEvent parseOfferEvent(@NonNull final CSVRecord csvRecord) {
+        OfferEvent.Type type = parseEventType(csvRecord.get("action"));
+        OfferEvent.OfferEventBuilder event = OfferEvent.builder()
+                .type(type)
+                .lender(parseName(csvRecord.get("lender")));
+        if (type == OfferEvent.Type.ADD)
+            event.rate(parseRate(csvRecord.get("rate")));
+        if (type != OfferEvent.Type.WITHDRAW)
+            event.amount(parseAmount(csvRecord.get("available")));
+        return event.build();
+    }
+
+    private static OfferEvent.Type parseEventType(final String type) {
+        try {
+            return OfferEvent.Type.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid action [%s]. Action should be one of ADD, AMEND or WITHDRAW", type));
+        }
+    }
+
+    static String parseName(final String name) {
+        if (!NAME_PATTERN.matcher(name).matches()) {
             throw new IllegalArgumentException("Lender name may only contain alpha-numerical characters");
         }
         return name;
     }
 
-    private static BigDecimal parseRate(final String rate) {
+    static BigDecimal parseRate(final String rate) {
         try {
             return new BigDecimal(rate);
         } catch (NumberFormatException e) {
@@ -38,18 +65,110 @@ public class InputParser {
         }
     }
 
+    /**
+     * @return limit of an inverse quote query, such as a maximum rate or monthly repayment, if it is a positive
+     * decimal number
+     */
+    public static BigDecimal parseLimit(final String limit, @NonNull final String name) {
+        BigDecimal value;
+        try {
+            value = new BigDecimal(limit);
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid %s [%s]. It should be a decimal number", name, limit));
+        }
+        if (value.signum() <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid %s [%s]. It should be positive", name, limit));
+        }
+        return value;
+    }
+
     public static int parseRequestedAmount(final String requestedAmount) {
+        return parseRequestedAmount(requestedAmount, MarketDefinition.DEFAULT);
+    }
+
+    /**
+     * @return requested amount if it is a multiple of the amount multiplier between the limits of the market
+     */
+    public static int parseRequestedAmount(final String requestedAmount, @NonNull final MarketDefinition market) {
         int value = parseAmount(requestedAmount);
 
-        if (value < MIN_LOAN_AMOUNT || value > MAX_LOAN_AMOUNT || value % LOAN_AMOUNT_MULTIPLIER != 0) {
+        if (value < market.getMinAmount() || value > market.getMaxAmount()
+                || value % market.getAmountMultiplier() != 0) {
             throw new IllegalArgumentException(String.format("Invalid requested amount [%s]. Amount should be a "
-                            + "multiple of %d between %d and %d", requestedAmount, LOAN_AMOUNT_MULTIPLIER, MIN_LOAN_AMOUNT,
-                    MAX_LOAN_AMOUNT));
+                            + "multiple of %d between %d and %d", requestedAmount, market.getAmountMultiplier(),
+                    market.getMinAmount(), market.getMaxAmount()));
+        }
+        return value;
+    }
+
+    public static int parseNumberOfMonths(final String numberOfMonths) {
+        return parseNumberOfMonths(numberOfMonths, MarketDefinition.DEFAULT);
+    }
+
+    /**
+     * @return number of months if it is one of the terms of the market, or between the minimum and maximum loan
+     * length if the market does not restrict its terms
+     */
+    public static int parseNumberOfMonths(final String numberOfMonths, @NonNull final MarketDefinition market) {
+        int value;
+        try {
+            value = Integer.parseInt(numberOfMonths);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid number of months [%s]. Number of months should be numerical", numberOfMonths));
+        }
+
+        if (!market.getTerms().isEmpty()) {
+            if (!market.getTerms().contains(value)) {
+                throw new IllegalArgumentException(String.format("Invalid number of months [%s]. Number of months "
+                        + "should be one of %s", numberOfMonths, market.getTerms()));
+            }
+        } else if (value < MIN_LOAN_LENGTH_IN_MONTHS || value > MAX_LOAN_LENGTH_IN_MONTHS) {
+            throw new IllegalArgumentException(String.format("Invalid number of months [%s]. Number of months "
+                    + "should be between %d and %d", numberOfMonths, MIN_LOAN_LENGTH_IN_MONTHS, MAX_LOAN_LENGTH_IN_MONTHS));
         }
         return value;
     }
 
-    private static int parseAmount(final String amount) {
+    /**
+     * Parses a market definition with the columns id, market_file, currency, locale, min_amount, max_amount,
+     * amount_multiplier, terms and default_term. Terms are separated by spaces, an empty terms column allows
+     * any number of months between the minimum and maximum loan length
+     */
+    public static MarketDefinition parseMarketDefinition(@NonNull final CSVRecord csvRecord) {
+        String id = parseName(csvRecord.get("id"));
+        String terms = csvRecord.get("terms").trim();
+        SortedSet<Integer> termSet = new TreeSet<>();
+        if (!terms.isEmpty()) {
+            for (String term : terms.split("\\s+")) {
+                termSet.add(parseNumberOfMonths(term));
+            }
+        }
+        return MarketDefinition.builder()
+                .id(id)
+                .marketFile(csvRecord.get("market_file"))
+                .currency(parseCurrency(csvRecord.get("currency")))
+                .locale(Locale.forLanguageTag(csvRecord.get("locale")))
+                .minAmount(parseAmount(csvRecord.get("min_amount")))
+                .maxAmount(parseAmount(csvRecord.get("max_amount")))
+                .amountMultiplier(parseAmount(csvRecord.get("amount_multiplier")))
+                .terms(termSet)
+                .defaultNumberOfMonths(parseNumberOfMonths(csvRecord.get("default_term")))
+                .build();
+    }
+
+    private static Currency parseCurrency(final String currency) {
+        try {
+            return Currency.getInstance(currency);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid currency [%s]. Currency should be an ISO 4217 code", currency));
+        }
+    }
+
+    static int parseAmount(final String amount) {
         int value;
         try {
             value = Integer.parseInt(amount);
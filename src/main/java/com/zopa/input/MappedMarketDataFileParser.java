@@ -0,0 +1,61 @@
+package com.zopa.input;
+
+import com.zopa.model.OrderBook;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Alternative to MarketDataFileParser which memory maps the market file and parses the Lender, Rate and
+ * Available columns straight from its bytes, without commons-csv records or a String per value
+ */
+@Component
+public class MappedMarketDataFileParser {
+
+    /**
+     * Parses the market file into columns
+     * @param filePath path of the market file
+     * @return Columns of the offers in file order
+     * @throws IOException if the file can not be read or is larger than 2GB
+     * @throws IllegalArgumentException if a record is invalid, with the line number of the record
+     */
+    public MarketDataColumns getColumnsFromFile(final String filePath) throws IOException {
+        MappedByteBuffer buffer = map(filePath);
+        MarketDataRecordParser recordParser = MarketDataRecordParser.fromHeader(buffer);
+        MarketDataColumns columns = new MarketDataColumns(buffer);
+        MarketDataRecordParser.ParsedRange parsedRange =
+                recordParser.parseRange(recordParser.dataStart(), buffer.limit(), columns);
+        if (parsedRange.errorMessage != null)
+            throw invalidRecord(recordParser.headerLines() + parsedRange.errorLine, parsedRange.errorMessage);
+        return columns;
+    }
+
+    /**
+     * Parses the market file into an order book
+     * @param filePath path of the market file
+     * @return Order book of the offers
+     * @throws IOException if the file can not be read or is larger than 2GB
+     */
+    public OrderBook getOrderBookFromFile(final String filePath) throws IOException {
+        return getColumnsFromFile(filePath).toOrderBook();
+    }
+
+    static MappedByteBuffer map(final String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Market file [%s] is larger than 2GB, use "
+                        + "MarketDataFileParser.getCheapestOffersFromFile instead", filePath));
+            }
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    static IllegalArgumentException invalidRecord(final int line, final String message) {
+        return new IllegalArgumentException(String.format("Invalid record at line %d: %s", line, message));
+    }
+}
@@ -0,0 +1,180 @@
+package com.zopa.input;
+
+import com.zopa.model.Offer;
+import com.zopa.model.OrderBook;
+import com.zopa.model.PrefixSumOrderBook;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Columnar market data parsed from the bytes of a market file. Lender names are kept as offsets into the
+ * file buffer and rates as unscaled longs with their scale, so no object is created per offer until the
+ * offers are needed
+ */
+public final class MarketDataColumns {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long[] LONG_POWERS_OF_TEN = new long[19];
+
+    static {
+        LONG_POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < LONG_POWERS_OF_TEN.length; i++) {
+            LONG_POWERS_OF_TEN[i] = LONG_POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private int size;
+    private int[] lenderOffsets = new int[INITIAL_CAPACITY];
+    private int[] lenderLengths = new int[INITIAL_CAPACITY];
+    private long[] unscaledRates = new long[INITIAL_CAPACITY];
+    private byte[] rateScales = new byte[INITIAL_CAPACITY];
+    private int[] amounts = new int[INITIAL_CAPACITY];
+
+    MarketDataColumns(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    void add(final int lenderOffset, final int lenderLength, final long unscaledRate, final int rateScale,
+             final int amount) {
+        if (size == amounts.length) {
+            int capacity = size * 2;
+            lenderOffsets = Arrays.copyOf(lenderOffsets, capacity);
+            lenderLengths = Arrays.copyOf(lenderLengths, capacity);
+            unscaledRates = Arrays.copyOf(unscaledRates, capacity);
+            rateScales = Arrays.copyOf(rateScales, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+        }
+        lenderOffsets[size] = lenderOffset;
+        lenderLengths[size] = lenderLength;
+        unscaledRates[size] = unscaledRate;
+        rateScales[size] = (byte) rateScale;
+        amounts[size] = amount;
+        size++;
+    }
+
+    /**
+     * Appends the rows of other columns parsed from the same buffer
+     * @param other columns to append
+     */
+    void addAll(final MarketDataColumns other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.lenderOffsets[i], other.lenderLengths[i], other.unscaledRates[i], other.rateScales[i],
+                    other.amounts[i]);
+        }
+    }
+
+    /**
+     * @return Number of offers
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Decodes the lender name of an offer from the file buffer
+     * @param index index of the offer in file order
+     * @return Lender name
+     */
+    public String lender(final int index) {
+        byte[] name = new byte[lenderLengths[index]];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = buffer.get(lenderOffsets[index] + i);
+        }
+        return new String(name, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @param index index of the offer in file order
+     * @return Rate of the offer
+     */
+    public BigDecimal rate(final int index) {
+        return BigDecimal.valueOf(unscaledRates[index], rateScales[index]);
+    }
+
+    /**
+     * @param index index of the offer in file order
+     * @return Available amount of the offer
+     */
+    public int amount(final int index) {
+        return amounts[index];
+    }
+
+    /**
+     * Builds the order book of the offers without creating Offer objects
+     * @return Order book of the offers
+     */
+    public OrderBook toOrderBook() {
+        int[] order = sortedByRate();
+        BigDecimal[] sortedRates = new BigDecimal[size];
+        int[] sortedAmounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedRates[i] = rate(order[i]);
+            sortedAmounts[i] = amounts[order[i]];
+        }
+        return PrefixSumOrderBook.fromSortedRates(sortedRates, sortedAmounts);
+    }
+
+    /**
+     * @return Sorted set of the offers, equal to the one parsed by MarketDataFileParser
+     */
+    public SortedSet<Offer> toOffers() {
+        SortedSet<Offer> offerSet = new TreeSet<>();
+        for (int index : sortedByRate()) {
+            offerSet.add(Offer.builder().lender(lender(index)).rate(rate(index)).amount(amounts[index]).build());
+        }
+        return offerSet;
+    }
+
+    /**
+     * Sorts the offer indexes by rate keeping the file order of equal rates, as the TreeSet of offers does.
+     * Rates are compared as longs brought to the largest scale when they fit, otherwise as BigDecimals
+     */
+    int[] sortedByRate() {
+        int maxScale = 0;
+        for (int i = 0; i < size; i++) {
+            maxScale = Math.max(maxScale, rateScales[i]);
+        }
+        long[] keys = new long[size];
+        try {
+            for (int i = 0; i < size; i++) {
+                keys[i] = Math.multiplyExact(unscaledRates[i], LONG_POWERS_OF_TEN[maxScale - rateScales[i]]);
+            }
+        } catch (ArithmeticException e) {
+            keys = null;
+        }
+
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[size], 0, size, keys);
+        return order;
+    }
+
+    private void mergeSort(final int[] order, final int[] work, final int from, final int to, final long[] keys) {
+        if (to - from < 2)
+            return;
+        int mid = (from + to) >>> 1;
+        mergeSort(order, work, from, mid, keys);
+        mergeSort(order, work, mid, to, keys);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            // taking from the left on equal rates keeps the sort stable
+            if (right >= to || left < mid && compareRates(order[left], order[right], keys) <= 0)
+                work[i] = order[left++];
+            else
+                work[i] = order[right++];
+        }
+        System.arraycopy(work, from, order, from, to - from);
+    }
+
+    private int compareRates(final int index1, final int index2, final long[] keys) {
+        return keys != null ? Long.compare(keys[index1], keys[index2]) : rate(index1).compareTo(rate(index2));
+    }
+}
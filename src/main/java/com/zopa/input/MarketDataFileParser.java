@@ -3,26 +3,88 @@ package com.zopa.input;
 import com.zopa.model.Offer;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
 
+import static org.springframework.util.Assert.isTrue;
+
 @Component
 public class MarketDataFileParser {
+    private static final CSVFormat MARKET_DATA_FORMAT = CSVFormat.DEFAULT.withFirstRecordAsHeader()
+            .withAllowMissingColumnNames(false)
+            .withIgnoreHeaderCase();
+
     public SortedSet<Offer> getOffersFromFile(final String filePath) throws IOException {
         File csvData = new File(filePath);
-        CSVParser parser = CSVParser.parse(csvData, Charset.forName("UTF-8"),
-                CSVFormat.DEFAULT.withFirstRecordAsHeader()
-                        .withAllowMissingColumnNames(false)
-                        .withIgnoreHeaderCase());
+        CSVParser parser = CSVParser.parse(csvData, Charset.forName("UTF-8"), MARKET_DATA_FORMAT);
 
         return parser.getRecords().stream()
                 .map(InputParser::parseOffer)
                 .collect(Collectors.toCollection(TreeSet::new));
     }
+
+    /**
+     * Streams the records of the file and keeps only the cheapest offers whose cumulative amount covers the
+     * given amount. No loan up to that amount can use the other offers, so quotes calculated from the
+     * returned set are the same as from the whole file, while memory stays bounded by the kept offers.
+     * Works as follows:
+     * - Keep the offers in a heap with the most expensive (and among equal rates the latest) offer on top
+     * - After adding each offer, remove the top while the rest still covers the amount
+     * @param filePath path of the market file
+     * @param coverAmount maximum amount to be loaned from the returned offers
+     * @return Sorted set of the cheapest offers covering the amount, or all offers if they do not cover it
+     * @throws IOException if the file can not be read
+     */
+    public SortedSet<Offer> getCheapestOffersFromFile(final String filePath, final int coverAmount)
+            throws IOException {
+        isTrue(coverAmount > 0, "coverAmount should be positive");
+
+        PriorityQueue<RankedOffer> cheapestOffers = new PriorityQueue<>(RankedOffer.CHEAPEST_FIRST.reversed());
+        long keptAmount = 0;
+        long sequence = 0;
+        try (CSVParser parser = CSVParser.parse(new File(filePath), Charset.forName("UTF-8"), MARKET_DATA_FORMAT)) {
+            for (CSVRecord record : parser) {
+                Offer offer = InputParser.parseOffer(record);
+                cheapestOffers.add(new RankedOffer(offer, sequence++));
+                keptAmount += offer.getAmount();
+                while (keptAmount - cheapestOffers.peek().offer.getAmount() >= coverAmount) {
+                    keptAmount -= cheapestOffers.poll().offer.getAmount();
+                }
+            }
+        }
+
+        // offers with equal rates are added in file order, as the TreeSet keeps them in insertion order
+        List<RankedOffer> rankedOffers = new ArrayList<>(cheapestOffers);
+        rankedOffers.sort(RankedOffer.CHEAPEST_FIRST);
+        SortedSet<Offer> offerSet = new TreeSet<>();
+        for (RankedOffer rankedOffer : rankedOffers) {
+            offerSet.add(rankedOffer.offer);
+        }
+        return offerSet;
+    }
+
+    private static class RankedOffer {
+        private static final Comparator<RankedOffer> CHEAPEST_FIRST = Comparator
+                .comparing((RankedOffer rankedOffer) -> rankedOffer.offer.getRate())
+                .thenComparingLong(rankedOffer -> rankedOffer.sequence);
+
+        private final Offer offer;
+        private final long sequence;
+
+        RankedOffer(final Offer offer, final long sequence) {
+            this.offer = offer;
+            this.sequence = sequence;
+        }
+    }
 }
@@ -0,0 +1,293 @@
+package com.zopa.input;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses market data records straight from the bytes of a market file with the rules of InputParser.
+ * Valid values are parsed without creating Strings, invalid ones are handed to InputParser so the error
+ * messages are the same as MarketDataFileParser's. Unlike commons-csv, quoted values are not supported
+ */
+final class MarketDataRecordParser {
+    private static final byte COMMA = ',';
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final int MAX_RATE_SCALE = 18;
+
+    private final ByteBuffer buffer;
+    private final List<String> header;
+    private final int lenderColumn;
+    private final int rateColumn;
+    private final int availableColumn;
+    private final int dataStart;
+    private final int headerLines;
+
+    private MarketDataRecordParser(final ByteBuffer buffer, final List<String> header, final int dataStart,
+                                   final int headerLines) {
+        this.buffer = buffer;
+        this.header = header;
+        this.lenderColumn = columnIndex("lender");
+        this.rateColumn = columnIndex("rate");
+        this.availableColumn = columnIndex("available");
+        this.dataStart = dataStart;
+        this.headerLines = headerLines;
+    }
+
+    /**
+     * Reads the header of the market file. Empty lines before the header are skipped
+     * @param buffer bytes of the market file from position 0 to its limit
+     * @return parser of the records following the header
+     */
+    static MarketDataRecordParser fromHeader(final ByteBuffer buffer) {
+        int lineStart = 0;
+        int lines = 0;
+        while (lineStart < buffer.limit()) {
+            int lineEnd = lineEnd(buffer, lineStart);
+            int contentEnd = contentEnd(buffer, lineStart, lineEnd);
+            lines++;
+            if (contentEnd > lineStart) {
+                return new MarketDataRecordParser(buffer, parseHeader(buffer, lineStart, contentEnd),
+                        nextLineStart(buffer, lineEnd), lines);
+            }
+            lineStart = nextLineStart(buffer, lineEnd);
+        }
+        return new MarketDataRecordParser(buffer, new ArrayList<>(), buffer.limit(), lines);
+    }
+
+    /**
+     * @return position of the first record
+     */
+    int dataStart() {
+        return dataStart;
+    }
+
+    /**
+     * @return number of lines up to and including the header
+     */
+    int headerLines() {
+        return headerLines;
+    }
+
+    /**
+     * @return position of the start of the line following the given position, or the limit of the buffer
+     */
+    int alignToNextLine(final int position) {
+        if (position <= dataStart)
+            return dataStart;
+        if (position >= buffer.limit())
+            return buffer.limit();
+        return buffer.get(position - 1) == LF ? position : nextLineStart(buffer, lineEnd(buffer, position));
+    }
+
+    /**
+     * Parses the records of the lines between two line starts. Parsing stops at the first invalid record
+     * @param from start of the first line
+     * @param to start of the line after the last one, or the limit of the buffer
+     * @param columns columns to add the parsed offers to
+     * @return number of lines parsed and the first error, if any
+     */
+    ParsedRange parseRange(final int from, final int to, final MarketDataColumns columns) {
+        int lines = 0;
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineEnd(buffer, lineStart);
+            lines++;
+            try {
+                parseRecord(lineStart, contentEnd(buffer, lineStart, lineEnd), columns);
+            } catch (IllegalArgumentException e) {
+                return new ParsedRange(lines, lines, e.getMessage());
+            }
+            lineStart = nextLineStart(buffer, lineEnd);
+        }
+        return new ParsedRange(lines, 0, null);
+    }
+
+    private void parseRecord(final int start, final int end, final MarketDataColumns columns) {
+        if (start == end)
+            return;
+        if (lenderColumn < 0 || rateColumn < 0 || availableColumn < 0) {
+            String missing = lenderColumn < 0 ? "lender" : rateColumn < 0 ? "rate" : "available";
+            throw new IllegalArgumentException(
+                    String.format("Mapping for %s not found, expected one of %s", missing, header));
+        }
+
+        int lenderStart = -1, lenderEnd = -1, rateStart = -1, rateEnd = -1, amountStart = -1, amountEnd = -1;
+        int column = 0;
+        int fieldStart = start;
+        for (int position = start; position <= end; position++) {
+            if (position < end && buffer.get(position) != COMMA)
+                continue;
+            if (fieldStart < position && buffer.get(fieldStart) == QUOTE)
+                throw new IllegalArgumentException("Quoted values are not supported");
+            if (column == lenderColumn) {
+                lenderStart = fieldStart;
+                lenderEnd = position;
+            } else if (column == rateColumn) {
+                rateStart = fieldStart;
+                rateEnd = position;
+            } else if (column == availableColumn) {
+                amountStart = fieldStart;
+                amountEnd = position;
+            }
+            column++;
+            fieldStart = position + 1;
+        }
+        if (column <= Math.max(lenderColumn, Math.max(rateColumn, availableColumn))) {
+            throw new IllegalArgumentException(String.format("Record has %d values but the header has %d columns",
+                    column, header.size()));
+        }
+
+        validateName(lenderStart, lenderEnd);
+        long[] rate = parseRate(rateStart, rateEnd);
+        columns.add(lenderStart, lenderEnd - lenderStart, rate[0], (int) rate[1], parseAmount(amountStart, amountEnd));
+    }
+
+    private void validateName(final int start, final int end) {
+        boolean valid = end > start;
+        for (int position = start; valid && position < end; position++) {
+            byte b = buffer.get(position);
+            valid = b >= '0' && b <= '9' || b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z';
+        }
+        if (!valid)
+            InputParser.parseName(string(start, end));
+    }
+
+    /**
+     * Parses plain decimal rates from the bytes. Other forms accepted by BigDecimal, like exponents,
+     * are parsed by InputParser
+     * @return unscaled value and scale of the rate
+     */
+    private long[] parseRate(final int start, final int end) {
+        int position = start;
+        boolean negative = false;
+        if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+'))
+            negative = buffer.get(position++) == '-';
+
+        long unscaled = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; position < end; position++) {
+            byte b = buffer.get(position);
+            if (b >= '0' && b <= '9' && unscaled <= (Long.MAX_VALUE - 9) / 10) {
+                unscaled = unscaled * 10 + (b - '0');
+                digits++;
+                if (fraction)
+                    scale++;
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                return slowRate(start, end);
+            }
+        }
+        if (digits == 0 || scale > MAX_RATE_SCALE)
+            return slowRate(start, end);
+        return new long[]{negative ? -unscaled : unscaled, scale};
+    }
+
+    private long[] slowRate(final int start, final int end) {
+        String value = string(start, end);
+        BigDecimal rate = InputParser.parseRate(value);
+        if (rate.scale() < 0)
+            rate = rate.setScale(0);
+        if (rate.scale() > MAX_RATE_SCALE || rate.unscaledValue().bitLength() > 63) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid rate [%s]. Rate has too many digits", value));
+        }
+        return new long[]{rate.unscaledValue().longValue(), rate.scale()};
+    }
+
+    private int parseAmount(final int start, final int end) {
+        int position = start;
+        if (position < end && buffer.get(position) == '+')
+            position++;
+        long value = 0;
+        for (; position < end; position++) {
+            byte b = buffer.get(position);
+            if (b < '0' || b > '9' || value > Integer.MAX_VALUE)
+                return InputParser.parseAmount(string(start, end));
+            value = value * 10 + (b - '0');
+        }
+        if (position == start || value <= 0 || value > Integer.MAX_VALUE)
+            return InputParser.parseAmount(string(start, end));
+        return (int) value;
+    }
+
+    private String string(final int start, final int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int columnIndex(final String name) {
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i).toLowerCase(Locale.ROOT).equals(name))
+                return i;
+        }
+        return -1;
+    }
+
+    private static List<String> parseHeader(final ByteBuffer buffer, final int start, final int end) {
+        List<String> header = new ArrayList<>();
+        int fieldStart = start;
+        for (int position = start; position <= end; position++) {
+            if (position < end && buffer.get(position) != COMMA)
+                continue;
+            byte[] name = new byte[position - fieldStart];
+            for (int i = 0; i < name.length; i++) {
+                name[i] = buffer.get(fieldStart + i);
+            }
+            String column = new String(name, StandardCharsets.UTF_8);
+            if (column.isEmpty())
+                throw new IllegalArgumentException("A header name is missing in " + header);
+            for (String existing : header) {
+                if (existing.equalsIgnoreCase(column)) {
+                    throw new IllegalArgumentException(
+                            String.format("The header contains a duplicate name: \"%s\"", column));
+                }
+            }
+            header.add(column);
+            fieldStart = position + 1;
+        }
+        return header;
+    }
+
+    private static int lineEnd(final ByteBuffer buffer, final int lineStart) {
+        int position = lineStart;
+        while (position < buffer.limit() && buffer.get(position) != LF) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int contentEnd(final ByteBuffer buffer, final int lineStart, final int lineEnd) {
+        return lineEnd > lineStart && buffer.get(lineEnd - 1) == CR ? lineEnd - 1 : lineEnd;
+    }
+
+    private static int nextLineStart(final ByteBuffer buffer, final int lineEnd) {
+        return Math.min(lineEnd + 1, buffer.limit());
+    }
+
+    /**
+     * Result of parsing a range of lines
+     */
+    static final class ParsedRange {
+        final int lines;
+        // line of the first invalid record counted from the start of the range, 0 if all records are valid
+        final int errorLine;
+        final String errorMessage;
+
+        ParsedRange(final int lines, final int errorLine, final String errorMessage) {
+            this.lines = lines;
+            this.errorLine = errorLine;
+            this.errorMessage = errorMessage;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.zopa.input;
+
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.OrderBook;
+import lombok.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Keeps the snapshot of a market file up to date in a long running process.
+ * The file is polled in the background and re-parsed when its modification time or size changes.
+ * The new order book is published as a new snapshot version with a single atomic reference swap, so
+ * readers never lock and quotes in flight keep the snapshot they started with.
+ * If the changed file can not be loaded, the previous snapshot stays in place
+ */
+public class MarketDataWatcher implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(MarketDataWatcher.class.getName());
+
+    private final File marketDataFile;
+    private final MarketLoader marketLoader;
+    private final AtomicReference<MarketSnapshot> snapshot = new AtomicReference<>();
+    private final ScheduledExecutorService scheduler;
+    // guarded by this, readers of the snapshot never take the lock
+    private long lastModified;
+    private long lastLength;
+
+    /**
+     * Loads the market file and starts polling it for changes
+     * @param marketDataFile path of the market data file
+     * @param marketLoader loader of the market file into an order book
+     * @param pollIntervalMillis interval between checks of the file
+     * @throws IOException if the market file can not be loaded initially
+     */
+    public MarketDataWatcher(@NonNull final String marketDataFile, @NonNull final MarketLoader marketLoader,
+                             final long pollIntervalMillis) throws IOException {
+        isTrue(pollIntervalMillis > 0, "pollIntervalMillis should be positive");
+        this.marketDataFile = new File(marketDataFile);
+        this.marketLoader = marketLoader;
+        this.lastModified = this.marketDataFile.lastModified();
+        this.lastLength = this.marketDataFile.length();
+        publish(marketLoader.load(marketDataFile));
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "market-data-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::reloadIfChanged, pollIntervalMillis, pollIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return Latest snapshot of the market, read without locking
+     */
+    public MarketSnapshot current() {
+        return snapshot.get();
+    }
+
+    /**
+     * Re-parses the market file if it changed since the last load
+     * @return true if a new snapshot is published
+     */
+    synchronized boolean reloadIfChanged() {
+        long modified = marketDataFile.lastModified();
+        long length = marketDataFile.length();
+        if (modified == lastModified && length == lastLength)
+            return false;
+
+        lastModified = modified;
+        lastLength = length;
+        try {
+            publish(marketLoader.load(marketDataFile.getPath()));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Market file " + marketDataFile + " could not be reloaded, keeping version "
+                    + current().getVersion(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void publish(final OrderBook orderBook) {
+        MarketSnapshot previous = snapshot.get();
+        long version = previous == null ? 1 : previous.getVersion() + 1;
+        // writers are serialized by reloadIfChanged, so a plain set is enough
+        snapshot.set(new MarketSnapshot(version, orderBook, System.currentTimeMillis()));
+    }
+
+    /**
+     * Loads a market file into an order book
+     */
+    @FunctionalInterface
+    public interface MarketLoader {
+        OrderBook load(String marketDataFile) throws IOException;
+    }
+}
@@ -0,0 +1,57 @@
+package com.zopa.input;
+
+import com.zopa.model.MarketDefinition;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses a CSV file of market definitions, one market per record, e.g.
+ * <pre>
+ * id,market_file,currency,locale,min_amount,max_amount,amount_multiplier,terms,default_term
+ * GBP,gbp.csv,GBP,en-GB,1000,15000,100,12 24 36 48 60,36
+ * </pre>
+ * Relative market files are resolved against the directory of the definitions file
+ */
+@Component
+public class MarketDefinitionFileParser {
+    private static final CSVFormat MARKET_DEFINITION_FORMAT = CSVFormat.DEFAULT.withFirstRecordAsHeader()
+            .withAllowMissingColumnNames(false)
+            .withIgnoreHeaderCase()
+            .withIgnoreSurroundingSpaces();
+
+    /**
+     * @param filePath path of the market definitions file
+     * @return Market definitions in the order of the file
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if a definition is invalid or a market id is defined twice
+     */
+    public List<MarketDefinition> getMarketDefinitionsFromFile(final String filePath) throws IOException {
+        File definitionsFile = new File(filePath);
+        File directory = definitionsFile.getAbsoluteFile().getParentFile();
+        List<MarketDefinition> definitions = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        try (CSVParser parser = CSVParser.parse(definitionsFile, StandardCharsets.UTF_8, MARKET_DEFINITION_FORMAT)) {
+            for (CSVRecord csvRecord : parser) {
+                MarketDefinition definition = InputParser.parseMarketDefinition(csvRecord);
+                if (!ids.add(definition.getId()))
+                    throw new IllegalArgumentException(
+                            String.format("Market [%s] is defined more than once", definition.getId()));
+                File marketFile = new File(definition.getMarketFile());
+                if (!marketFile.isAbsolute())
+                    marketFile = new File(directory, definition.getMarketFile());
+                definitions.add(definition.toBuilder().marketFile(marketFile.getPath()).build());
+            }
+        }
+        return definitions;
+    }
+}
@@ -0,0 +1,49 @@
+package com.zopa.input;
+
+import com.zopa.model.IncrementalOrderBook;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Applies a stream of offer changes to an incremental order book. The delta file is a CSV file with the
+ * columns Action, Lender, Rate and Available, where Action is ADD, AMEND or WITHDRAW.
+ * AMEND only uses Available and WITHDRAW only uses Lender, the other values may be left empty
+ */
+@Component
+public class MarketDeltaFileParser {
+    private static final CSVFormat MARKET_DELTA_FORMAT = CSVFormat.DEFAULT.withFirstRecordAsHeader()
+            .withAllowMissingColumnNames(false)
+            .withIgnoreHeaderCase();
+
+    /**
+     * Streams the events of the delta file into the order book in file order. The events before an invalid
+     * one stay applied
+     * @param filePath path of the delta file
+     * @param orderBook order book to apply the events to
+     * @return number of events applied
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if an event is invalid or can not be applied, with its line number
+     */
+    public long applyDeltasFromFile(final String filePath, final IncrementalOrderBook orderBook)
+            throws IOException {
+        long applied = 0;
+        try (CSVParser parser = CSVParser.parse(new File(filePath), Charset.forName("UTF-8"), MARKET_DELTA_FORMAT)) {
+            for (CSVRecord record : parser) {
+                try {
+                    orderBook.apply(InputParser.parseOfferEvent(record));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(String.format("Invalid event at line %d: %s",
+                            parser.getCurrentLineNumber(), e.getMessage()), e);
+                }
+                applied++;
+            }
+        }
+        return applied;
+    }
+}
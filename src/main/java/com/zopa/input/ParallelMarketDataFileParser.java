@@ -0,0 +1,155 @@
+package com.zopa.input;
+
+import com.zopa.model.OrderBook;
+import com.zopa.model.PrefixSumOrderBook;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Loads large market files on a fork-join pool. The memory mapped file is split into line aligned byte
+ * ranges, each range is parsed with the rules of MappedMarketDataFileParser and sorted by rate,
+ * and the sorted runs are merged pairwise into the order book.
+ * Offers with equal rates keep their file order and an invalid record is reported with the same line
+ * number as the single threaded parsers report it
+ */
+@Component
+public class ParallelMarketDataFileParser {
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    @Autowired
+    public ParallelMarketDataFileParser() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelMarketDataFileParser(@NonNull final ForkJoinPool pool, final int chunkSize) {
+        isTrue(chunkSize > 0, "chunkSize should be positive");
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Parses the market file into an order book in parallel
+     * @param filePath path of the market file
+     * @return Order book of the offers
+     * @throws IOException if the file can not be read or is larger than 2GB
+     * @throws IllegalArgumentException if a record is invalid, with the line number of the first invalid record
+     */
+    public OrderBook getOrderBookFromFile(final String filePath) throws IOException {
+        MappedByteBuffer buffer = MappedMarketDataFileParser.map(filePath);
+        MarketDataRecordParser recordParser = MarketDataRecordParser.fromHeader(buffer);
+        SortedRun run = pool.invoke(new ParseTask(recordParser, buffer, recordParser.dataStart(), buffer.limit()));
+        if (run.errorMessage != null) {
+            throw MappedMarketDataFileParser.invalidRecord(recordParser.headerLines() + run.errorLine,
+                    run.errorMessage);
+        }
+        return PrefixSumOrderBook.fromSortedRates(run.rates, run.amounts);
+    }
+
+    private class ParseTask extends RecursiveTask<SortedRun> {
+        private final MarketDataRecordParser recordParser;
+        private final MappedByteBuffer buffer;
+        private final int from;
+        private final int to;
+
+        ParseTask(final MarketDataRecordParser recordParser, final MappedByteBuffer buffer,
+                  final int from, final int to) {
+            this.recordParser = recordParser;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SortedRun compute() {
+            int middle = to - from > chunkSize ? recordParser.alignToNextLine(from + (to - from) / 2) : to;
+            if (middle <= from || middle >= to)
+                return parse();
+
+            ParseTask right = new ParseTask(recordParser, buffer, middle, to);
+            right.fork();
+            SortedRun left = new ParseTask(recordParser, buffer, from, middle).compute();
+            return SortedRun.merge(left, right.join());
+        }
+
+        private SortedRun parse() {
+            MarketDataColumns columns = new MarketDataColumns(buffer);
+            MarketDataRecordParser.ParsedRange parsedRange = recordParser.parseRange(from, to, columns);
+            if (parsedRange.errorMessage != null)
+                return SortedRun.error(parsedRange.errorLine, parsedRange.errorMessage);
+
+            int[] order = columns.sortedByRate();
+            BigDecimal[] rates = new BigDecimal[order.length];
+            int[] amounts = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                rates[i] = columns.rate(order[i]);
+                amounts[i] = columns.amount(order[i]);
+            }
+            return new SortedRun(rates, amounts, parsedRange.lines, 0, null);
+        }
+    }
+
+    /**
+     * Offers of consecutive lines sorted by rate, or the first invalid record in them
+     */
+    private static final class SortedRun {
+        private final BigDecimal[] rates;
+        private final int[] amounts;
+        private final int lines;
+        private final int errorLine;
+        private final String errorMessage;
+
+        SortedRun(final BigDecimal[] rates, final int[] amounts, final int lines, final int errorLine,
+                  final String errorMessage) {
+            this.rates = rates;
+            this.amounts = amounts;
+            this.lines = lines;
+            this.errorLine = errorLine;
+            this.errorMessage = errorMessage;
+        }
+
+        static SortedRun error(final int errorLine, final String errorMessage) {
+            return new SortedRun(null, null, 0, errorLine, errorMessage);
+        }
+
+        /**
+         * Merges the runs of two adjacent ranges. The error of the earlier range wins, and the error line
+         * of the later range is shifted by the lines of the earlier one
+         */
+        static SortedRun merge(final SortedRun left, final SortedRun right) {
+            if (left.errorMessage != null)
+                return left;
+            if (right.errorMessage != null)
+                return error(left.lines + right.errorLine, right.errorMessage);
+
+            int size = left.rates.length + right.rates.length;
+            BigDecimal[] rates = new BigDecimal[size];
+            int[] amounts = new int[size];
+            int l = 0;
+            int r = 0;
+            for (int i = 0; i < size; i++) {
+                // equal rates are taken from the earlier range first to keep the file order
+                if (r >= right.rates.length
+                        || l < left.rates.length && left.rates[l].compareTo(right.rates[r]) <= 0) {
+                    rates[i] = left.rates[l];
+                    amounts[i] = left.amounts[l++];
+                } else {
+                    rates[i] = right.rates[r];
+                    amounts[i] = right.amounts[r++];
+                }
+            }
+            return new SortedRun(rates, amounts, left.lines + right.lines, 0, null);
+        }
+    }
+}
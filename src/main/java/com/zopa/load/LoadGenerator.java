@@ -0,0 +1,170 @@
+package com.zopa.load;
+
+import com.zopa.app.QuoteCalculationApp;
+import com.zopa.model.MarketSnapshot;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.zopa.config.Config.loanAmountLadder;
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Open loop load generator. Requests are sent on a fixed schedule at the target rate, whether or not earlier
+ * requests have completed, as independent clients would send them:
+ * - the schedule thread waits for the intended start of each request and hands it to a pool of workers
+ * - a worker sends the request to the target and records its latency from the intended start, and its service
+ *   time from the actual start
+ * - when every worker is busy, requests queue up and the time they wait is part of their latency, so a stall of
+ *   the target shows in the percentiles instead of silently lowering the request rate (coordinated omission)
+ * Requests are random valid amounts and terms, the same for the same seed
+ */
+public class LoadGenerator {
+    private static final int[] TERMS = {12, 24, 36, 48, 60};
+    private static final int HTTP_TIMEOUT_MILLIS = 10000;
+    private static final long COMPLETION_TIMEOUT_SECONDS = 60;
+
+    /**
+     * Receiver of the requests of a load test
+     */
+    public interface Target {
+        /**
+         * Sends one request, returning once it is answered
+         * @throws Exception if the request fails, which counts as an error
+         */
+        void call(int amount, int numberOfMonths) throws Exception;
+    }
+
+    private final String targetName;
+    private final Target target;
+    private final int concurrency;
+    private final long seed;
+
+    /**
+     * @param targetName name of the target in the result
+     * @param target receiver of the requests
+     * @param concurrency number of requests in flight, later requests wait for a worker
+     * @param seed seed of the random requests
+     */
+    public LoadGenerator(@NonNull final String targetName, @NonNull final Target target, final int concurrency,
+                         final long seed) {
+        isTrue(concurrency > 0, "concurrency should be positive");
+        this.targetName = targetName;
+        this.target = target;
+        this.concurrency = concurrency;
+        this.seed = seed;
+    }
+
+    /**
+     * @return target quoting in process on the snapshot, validating requests like the server does
+     */
+    public static Target inProcess(@NonNull final QuoteCalculationApp quoteCalculationApp,
+                                   @NonNull final MarketSnapshot marketSnapshot) {
+        return (amount, numberOfMonths) -> quoteCalculationApp.calculateQuote(marketSnapshot,
+                String.valueOf(amount), String.valueOf(numberOfMonths));
+    }
+
+    /**
+     * @param quoteUrl URL of the quote endpoint, e.g. http://localhost:8080/quote
+     * @return target sending GET requests to the quote endpoint, an unavailable amount (404) is a valid answer
+     */
+    public static Target endpoint(@NonNull final String quoteUrl) {
+        return (amount, numberOfMonths) -> {
+            HttpURLConnection connection = (HttpURLConnection) new URL(quoteUrl
+                    + (quoteUrl.contains("?") ? "&" : "?") + "amount=" + amount + "&months=" + numberOfMonths)
+                    .openConnection();
+            connection.setConnectTimeout(HTTP_TIMEOUT_MILLIS);
+            connection.setReadTimeout(HTTP_TIMEOUT_MILLIS);
+            int status = connection.getResponseCode();
+            try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                // drained so the connection is reused
+                while (body != null && body.read() != -1) {
+                }
+            }
+            if (status != 200 && status != 404)
+                throw new IOException("Quote endpoint answered " + status);
+        };
+    }
+
+    /**
+     * Sends requests at the target rate for the duration and waits for all of them to complete
+     * @param requestsPerSecond target rate of requests
+     * @param durationMillis duration of the schedule
+     * @return latencies and service times of the requests
+     * @throws InterruptedException if interrupted while sending or waiting for the requests
+     * @throws IllegalStateException if the requests do not complete within a minute after the schedule
+     */
+    public LoadTestResult run(final double requestsPerSecond, final long durationMillis) throws InterruptedException {
+        isTrue(requestsPerSecond > 0 && durationMillis > 0, "requestsPerSecond and durationMillis should be positive");
+        long requestCount = (long) (requestsPerSecond * durationMillis / 1000);
+        isTrue(requestCount > 0 && requestCount <= Integer.MAX_VALUE, "requests of the run should fit an int");
+        int count = (int) requestCount;
+
+        int[] amounts = new int[count];
+        int[] terms = new int[count];
+        Random random = new Random(seed);
+        int[] ladder = loanAmountLadder();
+        for (int i = 0; i < count; i++) {
+            amounts[i] = ladder[random.nextInt(ladder.length)];
+            terms[i] = TERMS[random.nextInt(TERMS.length)];
+        }
+        long[] latencies = new long[count];
+        long[] serviceTimes = new long[count];
+        AtomicInteger errors = new AtomicInteger();
+        double intervalNanos = 1e9 / requestsPerSecond;
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < count; i++) {
+                final int request = i;
+                final long intendedStart = start + (long) (i * intervalNanos);
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                    if (Thread.interrupted())
+                        throw new InterruptedException();
+                }
+                workers.execute(() -> {
+                    long actualStart = System.nanoTime();
+                    try {
+                        target.call(amounts[request], terms[request]);
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    long end = System.nanoTime();
+                    latencies[request] = end - intendedStart;
+                    serviceTimes[request] = end - actualStart;
+                });
+            }
+            workers.shutdown();
+            // termination makes the measurements of the workers visible to this thread
+            if (!workers.awaitTermination(durationMillis + TimeUnit.SECONDS.toMillis(COMPLETION_TIMEOUT_SECONDS),
+                    TimeUnit.MILLISECONDS))
+                throw new IllegalStateException("Requests did not complete in time");
+        } finally {
+            workers.shutdownNow();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        return LoadTestResult.builder()
+                .target(targetName)
+                .targetRequestsPerSecond(requestsPerSecond)
+                .achievedRequestsPerSecond(count * 1e9 / elapsedNanos)
+                .requestCount(count)
+                .errorCount(errors.get())
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .latencyNanos(LoadTestResult.percentiles(latencies))
+                .serviceTimeNanos(LoadTestResult.percentiles(serviceTimes))
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.zopa.load;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Outcome of a load test run.
+ * Latencies are measured from the time each request was scheduled to be sent, so a stall delays the requests
+ * queued behind it and they are reported with the time they waited, instead of being sent late and reported
+ * as fast (coordinated omission). Service times are measured from when each request was actually sent, the
+ * difference between the two shows how far the target fell behind the schedule
+ */
+@Value
+@Builder
+public class LoadTestResult {
+    static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9", "p99.99"};
+
+    private String target;
+    private double targetRequestsPerSecond;
+    private double achievedRequestsPerSecond;
+    private int requestCount;
+    private int errorCount;
+    private long durationMillis;
+    // percentiles of PERCENTILES then the maximum, in nanoseconds
+    @NonNull
+    private long[] latencyNanos;
+    @NonNull
+    private long[] serviceTimeNanos;
+
+    /**
+     * @param nanos measurements, sorted in place
+     * @return percentiles of PERCENTILES then the maximum of the measurements, nearest rank
+     */
+    static long[] percentiles(@NonNull final long[] nanos) {
+        isTrue(nanos.length > 0, "nanos should not be empty");
+        Arrays.sort(nanos);
+        long[] percentiles = new long[PERCENTILES.length + 1];
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            // the epsilon keeps floating point error, e.g. 99.9% of 10000 = 9990.000000000002, off the next rank
+            int rank = (int) Math.ceil(PERCENTILES[i] / 100 * nanos.length - 1e-6);
+            percentiles[i] = nanos[Math.max(rank, 1) - 1];
+        }
+        percentiles[PERCENTILES.length] = nanos[nanos.length - 1];
+        return percentiles;
+    }
+
+    /**
+     * Writes the result as a single line JSON object, without a trailing line separator
+     */
+    public void writeJson(@NonNull final Appendable out) throws IOException {
+        out.append("{\"target\":\"").append(target.replace("\\", "\\\\").replace("\"", "\\\""))
+                .append("\",\"targetRequestsPerSecond\":").append(String.valueOf(targetRequestsPerSecond))
+                .append(",\"achievedRequestsPerSecond\":").append(String.valueOf(achievedRequestsPerSecond))
+                .append(",\"requestCount\":").append(String.valueOf(requestCount))
+                .append(",\"errorCount\":").append(String.valueOf(errorCount))
+                .append(",\"durationMillis\":").append(String.valueOf(durationMillis))
+                .append(",\"latencyNanos\":");
+        writePercentiles(latencyNanos, out);
+        out.append(",\"serviceTimeNanos\":");
+        writePercentiles(serviceTimeNanos, out);
+        out.append('}');
+    }
+
+    private static void writePercentiles(final long[] percentiles, final Appendable out) throws IOException {
+        out.append('{');
+        for (int i = 0; i < PERCENTILE_NAMES.length; i++) {
+            out.append('"').append(PERCENTILE_NAMES[i]).append("\":").append(String.valueOf(percentiles[i]))
+                    .append(',');
+        }
+        out.append("\"max\":").append(String.valueOf(percentiles[PERCENTILE_NAMES.length])).append('}');
+    }
+}
@@ -0,0 +1,91 @@
+package com.zopa.load;
+
+import lombok.NonNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Writes synthetic market files shaped like input.csv: a Lender,Rate,Available header and one offer per line,
+ * rates with three decimals and whole available amounts. Markets of the same seed are identical, so load tests
+ * can be repeated on the same market
+ */
+public class SyntheticMarketGenerator {
+    public static final String CSV_HEADER = "Lender,Rate,Available";
+    private static final int RATE_SCALE = 3;
+
+    public enum RateDistribution {
+        // rates spread evenly between the minimum and maximum rate
+        UNIFORM,
+        // rates around the middle of the range, with the range six standard deviations wide and clipped to it
+        NORMAL
+    }
+
+    private final RateDistribution rateDistribution;
+    private final double minRate;
+    private final double maxRate;
+    private final int maxAvailable;
+    private final long seed;
+
+    /**
+     * @param rateDistribution distribution of the rates of the offers
+     * @param minRate lowest rate of an offer
+     * @param maxRate highest rate of an offer
+     * @param maxAvailable highest available amount of an offer, amounts are spread evenly from 1
+     * @param seed seed of the random offers
+     */
+    public SyntheticMarketGenerator(@NonNull final RateDistribution rateDistribution, final double minRate,
+                                    final double maxRate, final int maxAvailable, final long seed) {
+        isTrue(minRate > 0 && maxRate >= minRate, "rates should be positive with minRate not above maxRate");
+        isTrue(maxAvailable > 0, "maxAvailable should be positive");
+        this.rateDistribution = rateDistribution;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.maxAvailable = maxAvailable;
+        this.seed = seed;
+    }
+
+    /**
+     * Writes the offers line by line, so markets of any size can be generated
+     * @param offers number of offers of the market
+     * @param marketFile path of the market file, replaced if it exists
+     * @throws IOException if the file can not be written
+     */
+    public void write(final int offers, @NonNull final Path marketFile) throws IOException {
+        isTrue(offers > 0, "offers should be positive");
+        Random random = new Random(seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(marketFile, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            for (int i = 1; i <= offers; i++) {
+                writer.newLine();
+                writer.write("Lender");
+                writer.write(String.valueOf(i));
+                writer.write(',');
+                writer.write(nextRate(random).toPlainString());
+                writer.write(',');
+                writer.write(String.valueOf(1 + random.nextInt(maxAvailable)));
+            }
+        }
+    }
+
+    private BigDecimal nextRate(final Random random) {
+        double rate;
+        if (rateDistribution == RateDistribution.UNIFORM) {
+            rate = minRate + random.nextDouble() * (maxRate - minRate);
+        } else {
+            rate = (minRate + maxRate) / 2 + random.nextGaussian() * (maxRate - minRate) / 6;
+        }
+        BigDecimal rounded = BigDecimal.valueOf(Math.max(minRate, Math.min(maxRate, rate)))
+                .setScale(RATE_SCALE, RoundingMode.HALF_EVEN);
+        // rounding must not produce a zero rate for tiny minimum rates
+        return rounded.signum() > 0 ? rounded : BigDecimal.ONE.movePointLeft(RATE_SCALE);
+    }
+}
@@ -0,0 +1,14 @@
+package com.zopa.metrics;
+
+/**
+ * Hits and misses of a quote cache
+ */
+public interface CacheMetricsMXBean {
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRatio();
+
+    int getSize();
+}
@@ -0,0 +1,70 @@
+package com.zopa.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Histogram of latencies in nanoseconds with a bucket per power of two, so a record only increments a couple of
+ * striped counters. Percentiles are reported as the upper bound of their bucket, which is within a factor of two
+ */
+public class LatencyHistogram {
+    // bucket i counts the latencies in [2^(i-1), 2^i), bucket 0 counts zero latencies
+    private static final int BUCKET_COUNT = Long.SIZE;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(final long nanos) {
+        // latencies are never negative, unless the clock misbehaves
+        long latency = Math.max(nanos, 0);
+        buckets[Long.SIZE - Long.numberOfLeadingZeros(latency)].increment();
+        count.increment();
+        totalNanos.add(latency);
+        maxNanos.accumulate(latency);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100
+     * @return upper bound of the latencies below the percentile in nanoseconds, 0 if nothing is recorded
+     */
+    public long getPercentileNanos(final double percentile) {
+        isTrue(percentile >= 0 && percentile <= 100, "percentile should be between 0 and 100");
+
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank)
+                return Math.min(i == 0 ? 0 : (1L << i) - 1, getMaxNanos());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,42 @@
+package com.zopa.metrics;
+
+import lombok.NonNull;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Logs the report of the quote metrics periodically, and once more when it is closed
+ */
+public class MetricsReporter implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(MetricsReporter.class.getName());
+
+    private final QuoteMetrics quoteMetrics;
+    private final ScheduledExecutorService scheduler;
+
+    public MetricsReporter(@NonNull final QuoteMetrics quoteMetrics, final long intervalMillis) {
+        isTrue(intervalMillis > 0, "intervalMillis should be positive");
+        this.quoteMetrics = quoteMetrics;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "quote-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::report, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void report() {
+        LOGGER.info(quoteMetrics.report());
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        report();
+    }
+}
@@ -0,0 +1,12 @@
+package com.zopa.metrics;
+
+/**
+ * Outcomes of quote requests which are counted
+ */
+public enum Outcome {
+    QUOTED,
+    // invalid input parameters
+    REJECTED,
+    // the market can not cover the requested amount
+    NOT_AVAILABLE
+}
@@ -0,0 +1,12 @@
+package com.zopa.metrics;
+
+/**
+ * Counts of the outcomes of quote requests
+ */
+public interface OutcomeMetricsMXBean {
+    long getQuoteCount();
+
+    long getRejectionCount();
+
+    long getNotAvailableCount();
+}
@@ -0,0 +1,230 @@
+package com.zopa.metrics;
+
+import lombok.NonNull;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.zopa.config.Config.METRICS_ENABLED;
+
+/**
+ * Latency histograms of the stages of the quote path, counters of the quote outcomes and the quote caches.
+ * When disabled, recording only checks a final flag, without reading the clock:
+ * <pre>
+ * long start = QuoteMetrics.GLOBAL.start();
+ * ...
+ * QuoteMetrics.GLOBAL.record(Stage.RATE, start);
+ * </pre>
+ */
+public class QuoteMetrics {
+    public static final QuoteMetrics GLOBAL = new QuoteMetrics(METRICS_ENABLED);
+    static final String OBJECT_NAME_PREFIX = "com.zopa.metrics:type=QuoteMetrics";
+
+    private final boolean enabled;
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private final Map<Outcome, LongAdder> outcomes = new EnumMap<>(Outcome.class);
+    private final Map<String, CacheMetricsMXBean> caches = new ConcurrentSkipListMap<>();
+    // set once the beans are registered, so caches added later are registered as well
+    private volatile MBeanServer mBeanServer;
+
+    public QuoteMetrics(final boolean enabled) {
+        this.enabled = enabled;
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, new LongAdder());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return start time of a stage to be passed to record, 0 if disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the latency of a stage since its start
+     * @param stage Stage of the quote path
+     * @param startNanos start time returned by start
+     */
+    public void record(final Stage stage, final long startNanos) {
+        if (enabled)
+            histograms.get(stage).record(System.nanoTime() - startNanos);
+    }
+
+    public void count(final Outcome outcome) {
+        if (enabled)
+            outcomes.get(outcome).increment();
+    }
+
+    public LatencyHistogram getHistogram(@NonNull final Stage stage) {
+        return histograms.get(stage);
+    }
+
+    public long getCount(@NonNull final Outcome outcome) {
+        return outcomes.get(outcome).sum();
+    }
+
+    /**
+     * Adds a quote cache to the report, and to the MBean server once the beans are registered.
+     * Does nothing if disabled
+     * @param name name of the cache, replacing the cache registered with the same name
+     * @param cache metrics of the cache
+     * @throws IllegalStateException if the bean of the cache can not be registered
+     */
+    public void registerCache(@NonNull final String name, @NonNull final CacheMetricsMXBean cache) {
+        if (!enabled)
+            return;
+        caches.put(name, cache);
+        MBeanServer server = mBeanServer;
+        if (server != null) {
+            try {
+                unregister(server, cacheObjectName(name));
+                register(server, cache, cacheObjectName(name));
+            } catch (JMException e) {
+                throw new IllegalStateException("Quote cache metrics can not be registered", e);
+            }
+        }
+    }
+
+    /**
+     * Removes a quote cache from the report and the MBean server
+     * @param name name of the cache
+     */
+    public void unregisterCache(@NonNull final String name) {
+        if (caches.remove(name) == null)
+            return;
+        MBeanServer server = mBeanServer;
+        if (server != null) {
+            try {
+                unregister(server, cacheObjectName(name));
+            } catch (JMException e) {
+                throw new IllegalStateException("Quote cache metrics can not be unregistered", e);
+            }
+        }
+    }
+
+    /**
+     * Registers an MXBean per stage, one for the outcomes and one per quote cache on the platform MBean server.
+     * Beans which are already registered are kept as they are
+     * @throws IllegalStateException if the beans can not be registered
+     */
+    public void registerMBeans() {
+        registerMBeans(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    void registerMBeans(final MBeanServer server) {
+        try {
+            for (Stage stage : Stage.values()) {
+                register(server, new StageMetrics(histograms.get(stage)),
+                        OBJECT_NAME_PREFIX + ",stage=" + stage.name().toLowerCase(Locale.ROOT));
+            }
+            register(server, new OutcomeMetrics(), OBJECT_NAME_PREFIX + ",name=outcomes");
+            mBeanServer = server;
+            for (Map.Entry<String, CacheMetricsMXBean> cache : caches.entrySet()) {
+                register(server, cache.getValue(), cacheObjectName(cache.getKey()));
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Quote metrics can not be registered", e);
+        }
+    }
+
+    static String cacheObjectName(final String name) {
+        return OBJECT_NAME_PREFIX + ",cache=" + ObjectName.quote(name);
+    }
+
+    private static void register(final MBeanServer mBeanServer, final Object mBean, final String objectName)
+            throws JMException {
+        try {
+            mBeanServer.registerMBean(mBean, new ObjectName(objectName));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered by an earlier call
+        }
+    }
+
+    private static void unregister(final MBeanServer mBeanServer, final String objectName) throws JMException {
+        ObjectName name = new ObjectName(objectName);
+        if (mBeanServer.isRegistered(name))
+            mBeanServer.unregisterMBean(name);
+    }
+
+    /**
+     * @return one line per stage with its count and latencies in microseconds, followed by the outcome counts
+     * and a line per quote cache with its hits and misses
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder("Quote metrics");
+        for (Stage stage : Stage.values()) {
+            StageMetrics metrics = new StageMetrics(histograms.get(stage));
+            report.append(String.format(Locale.ROOT, "%n%-15s count=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus",
+                    stage, metrics.getCount(), metrics.getMeanMicros(), metrics.getP50Micros(),
+                    metrics.getP99Micros(), metrics.getMaxMicros()));
+        }
+        report.append(String.format(Locale.ROOT, "%nquoted=%d rejected=%d not_available=%d",
+                getCount(Outcome.QUOTED), getCount(Outcome.REJECTED), getCount(Outcome.NOT_AVAILABLE)));
+        for (Map.Entry<String, CacheMetricsMXBean> entry : caches.entrySet()) {
+            CacheMetricsMXBean cache = entry.getValue();
+            report.append(String.format(Locale.ROOT, "%ncache %s hits=%d misses=%d hit_ratio=%.3f size=%d",
+                    entry.getKey(), cache.getHitCount(), cache.getMissCount(), cache.getHitRatio(), cache.getSize()));
+        }
+        return report.toString();
+    }
+
+    private static final class StageMetrics implements StageMetricsMXBean {
+        private static final double NANOS_PER_MICRO = 1000.0;
+        private final LatencyHistogram histogram;
+
+        private StageMetrics(final LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        public double getMeanMicros() {
+            long count = histogram.getCount();
+            return count == 0 ? 0 : histogram.getTotalNanos() / NANOS_PER_MICRO / count;
+        }
+
+        public double getP50Micros() {
+            return histogram.getPercentileNanos(50) / NANOS_PER_MICRO;
+        }
+
+        public double getP99Micros() {
+            return histogram.getPercentileNanos(99) / NANOS_PER_MICRO;
+        }
+
+        public double getMaxMicros() {
+            return histogram.getMaxNanos() / NANOS_PER_MICRO;
+        }
+    }
+
+    private final class OutcomeMetrics implements OutcomeMetricsMXBean {
+        public long getQuoteCount() {
+            return getCount(Outcome.QUOTED);
+        }
+
+        public long getRejectionCount() {
+            return getCount(Outcome.REJECTED);
+        }
+
+        public long getNotAvailableCount() {
+            return getCount(Outcome.NOT_AVAILABLE);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.zopa.metrics;
+
+/**
+ * Stages of the quote path whose latencies are recorded
+ */
+public enum Stage {
+    // reading the offers of the market file
+    PARSE,
+    // validating the requested amount and number of months
+    VALIDATION,
+    // filling the requested amount from the cheapest offers
+    RATE,
+    DISCOUNT_FACTOR,
+    // monthly and total repayments
+    PAYMENT,
+    // rendering the quote for the client
+    FORMAT
+}
@@ -0,0 +1,16 @@
+package com.zopa.metrics;
+
+/**
+ * Latencies of a stage of the quote path in microseconds
+ */
+public interface StageMetricsMXBean {
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+}
@@ -0,0 +1,291 @@
+package com.zopa.model;
+
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Mutable order book of offers keyed by lender, ordered by rate and then by arrival.
+ * Offers are kept in a treap whose nodes also hold the total amount and amount x rate of their subtree,
+ * so adding, amending and withdrawing an offer, and calculating the weighted rate of an amount,
+ * all take O(log n). Amending an offer keeps its place among offers with the same rate.
+ * Reads run concurrently, changes are exclusive
+ */
+public class IncrementalOrderBook implements OrderBook {
+    private final Map<String, Node> offersByLender = new HashMap<>();
+    private final Random priorities = new Random();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+    private long nextArrival;
+
+    /**
+     * Adds the offer of a lender who has no offer in the book
+     * @param lender Lender of the offer
+     * @param rate Rate of the offer
+     * @param amount Available amount of the offer
+     */
+    public void add(@NonNull final String lender, @NonNull final BigDecimal rate, final int amount) {
+        isTrue(amount > 0, "amount should be positive");
+        lock.writeLock().lock();
+        try {
+            isTrue(!offersByLender.containsKey(lender), "lender already has an offer: " + lender);
+            Node node = new Node(rate, amount, nextArrival++, priorities.nextInt());
+            root = insert(root, node);
+            offersByLender.put(lender, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Changes the available amount of a lender's offer
+     * @param lender Lender of the offer
+     * @param amount New available amount of the offer
+     */
+    public void amend(@NonNull final String lender, final int amount) {
+        isTrue(amount > 0, "amount should be positive");
+        lock.writeLock().lock();
+        try {
+            Node node = offersByLender.get(lender);
+            isTrue(node != null, "lender has no offer: " + lender);
+            node.amount = amount;
+            updatePath(root, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a lender's offer
+     * @param lender Lender of the offer
+     */
+    public void withdraw(@NonNull final String lender) {
+        lock.writeLock().lock();
+        try {
+            Node node = offersByLender.remove(lender);
+            isTrue(node != null, "lender has no offer: " + lender);
+            root = remove(root, node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies an event of the market to the book
+     * @param event Change of an offer
+     */
+    public void apply(@NonNull final OfferEvent event) {
+        switch (event.getType()) {
+            case ADD:
+                add(event.getLender(), event.getRate(), event.getAmount());
+                break;
+            case AMEND:
+                amend(event.getLender(), event.getAmount());
+                break;
+            case WITHDRAW:
+                withdraw(event.getLender());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown event type " + event.getType());
+        }
+    }
+
+    /**
+     * Descends the treap to the offer where the requested amount is filled, accumulating the amount x rate
+     * of the subtrees and offers left of the path
+     * @param amount Total amount to loan
+     * @return weighted rate as optional if offers satisfy amount, otherwise empty
+     */
+    @Override
+    public Optional<BigDecimal> weightedRate(final int amount) {
+        isTrue(amount > 0, "amount should be positive");
+        lock.readLock().lock();
+        try {
+            if (totalAmount(root) < amount)
+                return Optional.empty();
+
+            long remaining = amount;
+            BigDecimal weightedTotal = BigDecimal.ZERO;
+            Node node = root;
+            while (true) {
+                long leftAmount = totalAmount(node.left);
+                if (remaining <= leftAmount) {
+                    node = node.left;
+                } else if (remaining <= leftAmount + node.amount) {
+                    weightedTotal = weightedTotal.add(weightedRate(node.left))
+                            .add(node.rate.multiply(BigDecimal.valueOf(remaining - leftAmount)));
+                    return Optional.of(weightedTotal.divide(BigDecimal.valueOf(amount), MathContext.DECIMAL128));
+                } else {
+                    weightedTotal = weightedTotal.add(weightedRate(node.left))
+                            .add(node.rate.multiply(BigDecimal.valueOf(node.amount)));
+                    remaining -= leftAmount + node.amount;
+                    node = node.right;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long totalAmount() {
+        lock.readLock().lock();
+        try {
+            return totalAmount(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return offersByLender.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the current offers into an immutable order book, e.g. to publish as a market snapshot
+     * @return Immutable order book of the current offers
+     */
+    public PrefixSumOrderBook snapshot() {
+        lock.readLock().lock();
+        try {
+            List<Node> nodes = new ArrayList<>(offersByLender.size());
+            collect(root, nodes);
+            BigDecimal[] rates = new BigDecimal[nodes.size()];
+            int[] amounts = new int[nodes.size()];
+            for (int i = 0; i < rates.length; i++) {
+                rates[i] = nodes.get(i).rate;
+                amounts[i] = nodes.get(i).amount;
+            }
+            return PrefixSumOrderBook.fromSortedRates(rates, amounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Node insert(final Node subtree, final Node node) {
+        if (subtree == null)
+            return node.update();
+        if (node.compareTo(subtree) < 0) {
+            subtree.left = insert(subtree.left, node);
+            if (subtree.left.priority > subtree.priority)
+                return rotateRight(subtree);
+        } else {
+            subtree.right = insert(subtree.right, node);
+            if (subtree.right.priority > subtree.priority)
+                return rotateLeft(subtree);
+        }
+        return subtree.update();
+    }
+
+    private static Node remove(final Node subtree, final Node node) {
+        if (subtree == node)
+            return merge(node.left, node.right);
+        if (node.compareTo(subtree) < 0)
+            subtree.left = remove(subtree.left, node);
+        else
+            subtree.right = remove(subtree.right, node);
+        return subtree.update();
+    }
+
+    private static Node merge(final Node left, final Node right) {
+        if (left == null)
+            return right;
+        if (right == null)
+            return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    /**
+     * Recalculates the subtree totals on the path from the root to the node
+     */
+    private static void updatePath(final Node subtree, final Node node) {
+        if (subtree != node) {
+            updatePath(node.compareTo(subtree) < 0 ? subtree.left : subtree.right, node);
+        }
+        subtree.update();
+    }
+
+    private static Node rotateRight(final Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node.update();
+        return left.update();
+    }
+
+    private static Node rotateLeft(final Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node.update();
+        return right.update();
+    }
+
+    private static void collect(final Node subtree, final List<Node> nodes) {
+        if (subtree == null)
+            return;
+        collect(subtree.left, nodes);
+        nodes.add(subtree);
+        collect(subtree.right, nodes);
+    }
+
+    private static long totalAmount(final Node subtree) {
+        return subtree == null ? 0 : subtree.totalAmount;
+    }
+
+    private static BigDecimal weightedRate(final Node subtree) {
+        return subtree == null ? BigDecimal.ZERO : subtree.totalWeightedRate;
+    }
+
+    private static final class Node implements Comparable<Node> {
+        private final BigDecimal rate;
+        private final long arrival;
+        private final int priority;
+        private int amount;
+        private Node left;
+        private Node right;
+        // totals of the subtree rooted at this node
+        private long totalAmount;
+        private BigDecimal totalWeightedRate;
+
+        Node(final BigDecimal rate, final int amount, final long arrival, final int priority) {
+            this.rate = rate;
+            this.amount = amount;
+            this.arrival = arrival;
+            this.priority = priority;
+        }
+
+        Node update() {
+            totalAmount = IncrementalOrderBook.totalAmount(left) + amount + IncrementalOrderBook.totalAmount(right);
+            totalWeightedRate = weightedRate(left).add(rate.multiply(BigDecimal.valueOf(amount)))
+                    .add(weightedRate(right));
+            return this;
+        }
+
+        @Override
+        public int compareTo(final Node other) {
+            int result = rate.compareTo(other.rate);
+            return result != 0 ? result : Long.compare(arrival, other.arrival);
+        }
+    }
+}
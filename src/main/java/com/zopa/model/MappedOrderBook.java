@@ -0,0 +1,271 @@
+package com.zopa.model;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Order book read from a binary snapshot file which is memory mapped, so a market is quoted right after the file
+ * is opened, without parsing CSV or creating offers.
+ * The snapshot is columnar, big endian and aligned to 8 bytes:
+ * <pre>
+ * header      magic, format version, number of offers, scale of the rates, number of lenders (5 ints, padded)
+ * long[n + 1] cumulative amounts of the first i offers
+ * long[n + 1] cumulative amount x scaled rate of the first i offers
+ * long[n]     rates of the offers in ascending order, scaled to the scale of the header
+ * int[n]      amounts of the offers
+ * int[n]      lender of the offers, index into the lender dictionary
+ * int[l + 1]  offsets of the lender names from the start of the names
+ * byte[]      UTF-8 lender names
+ * </pre>
+ * Rates are exact at the largest scale of the market, so weighted rates are equal to PrefixSumOrderBook ones.
+ * The CSV market file stays the interchange format, snapshots are written from it with write
+ */
+public final class MappedOrderBook implements OrderBook {
+    public static final String FILE_EXTENSION = ".snapshot";
+    static final int MAGIC = 0x5A515342;
+    static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int scale;
+    private final int lenderCount;
+    private final int cumulativeWeightedRatesOffset;
+    private final int ratesOffset;
+    private final int amountsOffset;
+    private final int lendersOffset;
+    private final int nameOffsetsOffset;
+    private final int namesOffset;
+
+    private MappedOrderBook(final ByteBuffer buffer) {
+        isTrue(buffer.capacity() >= HEADER_SIZE && buffer.getInt(0) == MAGIC, "file is not a market snapshot");
+        isTrue(buffer.getInt(4) == FORMAT_VERSION, "unsupported market snapshot version " + buffer.getInt(4));
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        this.scale = buffer.getInt(12);
+        this.lenderCount = buffer.getInt(16);
+        isTrue(size >= 0 && size <= buffer.capacity() / 32 && lenderCount >= 0 && lenderCount <= size,
+                "market snapshot header is corrupt");
+        this.cumulativeWeightedRatesOffset = HEADER_SIZE + 8 * (size + 1);
+        this.ratesOffset = cumulativeWeightedRatesOffset + 8 * (size + 1);
+        this.amountsOffset = ratesOffset + 8 * size;
+        this.lendersOffset = amountsOffset + 4 * size;
+        this.nameOffsetsOffset = lendersOffset + 4 * size;
+        this.namesOffset = nameOffsetsOffset + 4 * (lenderCount + 1);
+        isTrue(namesOffset <= buffer.capacity()
+                        && namesOffset + (long) buffer.getInt(namesOffset - 4) == buffer.capacity(),
+                "market snapshot is truncated");
+    }
+
+    /**
+     * Maps the snapshot file read only. The file should not be modified while it is mapped, write replaces it
+     * with a new file instead
+     * @param snapshotFile path of the snapshot file
+     * @return Order book of the snapshot
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the file is not a valid snapshot
+     */
+    public static MappedOrderBook open(@NonNull final Path snapshotFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            isTrue(channel.size() <= Integer.MAX_VALUE, "market snapshot is too large");
+            return new MappedOrderBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the offers as a snapshot file. The snapshot is written to a temporary file next to it and moved
+     * in place, so order books mapping the previous snapshot keep reading a complete file
+     * @param offerSet offers sorted by rate
+     * @param snapshotFile path of the snapshot file, replaced if it exists
+     * @throws IOException if the file can not be written
+     * @throws IllegalArgumentException if the rates or amounts do not fit the format
+     */
+    public static void write(@NonNull final SortedSet<Offer> offerSet, @NonNull final Path snapshotFile)
+            throws IOException {
+        ByteBuffer snapshot = encode(offerSet);
+        Path directory = snapshotFile.toAbsolutePath().getParent();
+        Path temporaryFile = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                while (snapshot.hasRemaining()) {
+                    channel.write(snapshot);
+                }
+                channel.force(false);
+            }
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    static ByteBuffer encode(final SortedSet<Offer> offerSet) {
+        int size = offerSet.size();
+        int scale = 0;
+        Map<String, Integer> lenderIds = new LinkedHashMap<>();
+        for (Offer offer : offerSet) {
+            isTrue(offer.getAmount() >= 0, "amounts should not be negative");
+            scale = Math.max(scale, offer.getRate().scale());
+            lenderIds.putIfAbsent(offer.getLender(), lenderIds.size());
+        }
+        byte[][] names = new byte[lenderIds.size()][];
+        int namesLength = 0;
+        for (Map.Entry<String, Integer> lender : lenderIds.entrySet()) {
+            names[lender.getValue()] = lender.getKey().getBytes(StandardCharsets.UTF_8);
+            namesLength += names[lender.getValue()].length;
+        }
+
+        long length = HEADER_SIZE + 16L * (size + 1) + 16L * size + 4L * (names.length + 1) + namesLength;
+        isTrue(length <= Integer.MAX_VALUE, "market is too large for a snapshot");
+        ByteBuffer snapshot = ByteBuffer.allocate((int) length);
+        snapshot.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(size).putInt(scale).putInt(names.length).putInt(0);
+
+        long[] rates = new long[size];
+        int[] amounts = new int[size];
+        int[] lenders = new int[size];
+        int i = 0;
+        try {
+            for (Offer offer : offerSet) {
+                rates[i] = offer.getRate().setScale(scale).unscaledValue().longValueExact();
+                amounts[i] = offer.getAmount();
+                lenders[i] = lenderIds.get(offer.getLender());
+                i++;
+            }
+            long cumulativeAmount = 0;
+            snapshot.putLong(cumulativeAmount);
+            for (int amount : amounts) {
+                cumulativeAmount += amount;
+                snapshot.putLong(cumulativeAmount);
+            }
+            long cumulativeWeightedRate = 0;
+            snapshot.putLong(cumulativeWeightedRate);
+            for (i = 0; i < size; i++) {
+                cumulativeWeightedRate = Math.addExact(cumulativeWeightedRate, Math.multiplyExact(rates[i], amounts[i]));
+                snapshot.putLong(cumulativeWeightedRate);
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("rates of the market are too precise for a snapshot");
+        }
+        for (long rate : rates) {
+            snapshot.putLong(rate);
+        }
+        for (int amount : amounts) {
+            snapshot.putInt(amount);
+        }
+        for (int lender : lenders) {
+            snapshot.putInt(lender);
+        }
+        int nameOffset = 0;
+        snapshot.putInt(nameOffset);
+        for (byte[] name : names) {
+            nameOffset += name.length;
+            snapshot.putInt(nameOffset);
+        }
+        for (byte[] name : names) {
+            snapshot.put(name);
+        }
+        snapshot.flip();
+        return snapshot;
+    }
+
+    /**
+     * Finds the offer where the requested amount is filled and adds its partial amount to the cumulative
+     * amount x rate of the cheaper offers, reading both from the mapped file
+     * @param amount Total amount to loan
+     * @return weighted rate as optional if offers satisfy amount, otherwise empty
+     */
+    @Override
+    public Optional<BigDecimal> weightedRate(final int amount) {
+        isTrue(amount > 0, "amount should be positive");
+        if (cumulativeAmount(size) < amount)
+            return Optional.empty();
+
+        int fillIndex = findFillIndex(amount);
+        long weightedTotal = buffer.getLong(cumulativeWeightedRatesOffset + 8 * fillIndex)
+                + scaledRate(fillIndex) * (amount - cumulativeAmount(fillIndex));
+        return Optional.of(BigDecimal.valueOf(weightedTotal, scale)
+                .divide(BigDecimal.valueOf(amount), MathContext.DECIMAL128));
+    }
+
+    @Override
+    public long totalAmount() {
+        return cumulativeAmount(size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return rate of the offer at the index, offers are in ascending order of rate
+     */
+    public BigDecimal getRate(final int index) {
+        checkIndex(index);
+        return BigDecimal.valueOf(scaledRate(index), scale);
+    }
+
+    public int getAmount(final int index) {
+        checkIndex(index);
+        return buffer.getInt(amountsOffset + 4 * index);
+    }
+
+    /**
+     * @return lender of the offer at the index, decoded from the lender dictionary
+     */
+    public String getLender(final int index) {
+        checkIndex(index);
+        int lender = buffer.getInt(lendersOffset + 4 * index);
+        int start = buffer.getInt(nameOffsetsOffset + 4 * lender);
+        int end = buffer.getInt(nameOffsetsOffset + 4 * (lender + 1));
+        byte[] name = new byte[end - start];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = buffer.get(namesOffset + start + i);
+        }
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    private void checkIndex(final int index) {
+        isTrue(index >= 0 && index < size, "index should be between 0 and " + (size - 1));
+    }
+
+    private long cumulativeAmount(final int index) {
+        return buffer.getLong(HEADER_SIZE + 8 * index);
+    }
+
+    private long scaledRate(final int index) {
+        return buffer.getLong(ratesOffset + 8 * index);
+    }
+
+    /**
+     * @return index of the first offer whose cumulative amount reaches the requested amount
+     */
+    private int findFillIndex(final int amount) {
+        int low = 1;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeAmount(mid) < amount)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low - 1;
+    }
+}
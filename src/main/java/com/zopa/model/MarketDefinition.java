@@ -0,0 +1,72 @@
+package com.zopa.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static com.zopa.config.Config.CURRENCY;
+import static com.zopa.config.Config.LOAN_AMOUNT_MULTIPLIER;
+import static com.zopa.config.Config.LOAN_LENGTH_IN_MONTHS;
+import static com.zopa.config.Config.LOCALE;
+import static com.zopa.config.Config.MAX_LOAN_AMOUNT;
+import static com.zopa.config.Config.MIN_LOAN_AMOUNT;
+
+/**
+ * Definition of a market: where its offers are loaded from, how its quotes are formatted,
+ * which amounts can be requested and over which numbers of months they can be repaid
+ */
+@Value
+@Builder(toBuilder = true)
+public class MarketDefinition {
+    // market of the Config constants, with any number of months between the minimum and maximum loan length
+    public static final MarketDefinition DEFAULT = MarketDefinition.builder()
+            .id("default")
+            .currency(CURRENCY)
+            .locale(LOCALE)
+            .minAmount(MIN_LOAN_AMOUNT)
+            .maxAmount(MAX_LOAN_AMOUNT)
+            .amountMultiplier(LOAN_AMOUNT_MULTIPLIER)
+            .terms(Collections.emptySortedSet())
+            .defaultNumberOfMonths(LOAN_LENGTH_IN_MONTHS)
+            .build();
+
+    private String id;
+    // null if the market is not loaded from a file
+    private String marketFile;
+    private Currency currency;
+    private Locale locale;
+    private int minAmount;
+    private int maxAmount;
+    private int amountMultiplier;
+    // numbers of months a loan can be repaid over, empty for any between the minimum and maximum loan length
+    private SortedSet<Integer> terms;
+    // number of months of requests which do not choose one
+    private int defaultNumberOfMonths;
+
+    private MarketDefinition(final String id, final String marketFile, final Currency currency, final Locale locale,
+                             final int minAmount, final int maxAmount, final int amountMultiplier,
+                             final SortedSet<Integer> terms, final int defaultNumberOfMonths) {
+        if (id == null || currency == null || locale == null || terms == null)
+            throw new IllegalArgumentException("id, currency, locale and terms are required");
+        if (minAmount <= 0 || maxAmount < minAmount || amountMultiplier <= 0)
+            throw new IllegalArgumentException(String.format("Invalid amounts of market [%s]. Amounts should be "
+                    + "positive with a maximum not less than the minimum", id));
+        if (!terms.isEmpty() && !terms.contains(defaultNumberOfMonths))
+            throw new IllegalArgumentException(String.format("Invalid terms of market [%s]. Default number of "
+                    + "months %d should be one of %s", id, defaultNumberOfMonths, terms));
+        this.id = id;
+        this.marketFile = marketFile;
+        this.currency = currency;
+        this.locale = locale;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+        this.amountMultiplier = amountMultiplier;
+        this.terms = Collections.unmodifiableSortedSet(new TreeSet<>(terms));
+        this.defaultNumberOfMonths = defaultNumberOfMonths;
+    }
+}
@@ -0,0 +1,16 @@
+package com.zopa.model;
+
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Immutable, versioned view of a market. A new snapshot is published for every change of the market,
+ * so a quote calculated from one snapshot sees a consistent order book
+ */
+@Value
+public class MarketSnapshot {
+    private long version;
+    @NonNull
+    private OrderBook orderBook;
+    private long loadedAtMillis;
+}
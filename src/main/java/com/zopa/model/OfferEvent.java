@@ -0,0 +1,24 @@
+package com.zopa.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Change of a lender's offer in the market
+ */
+@Builder
+@Getter
+public class OfferEvent {
+    public enum Type {
+        ADD, AMEND, WITHDRAW
+    }
+
+    private Type type;
+    private String lender;
+    // only set for ADD
+    private BigDecimal rate;
+    // set for ADD and AMEND
+    private int amount;
+}
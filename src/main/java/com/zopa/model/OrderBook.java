@@ -0,0 +1,23 @@
+package com.zopa.model;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+public interface OrderBook {
+    /**
+     * Calculates the weighted rate of filling the given amount from the cheapest offers
+     * @param amount Total amount to loan
+     * @return weighted rate as optional if offers satisfy amount, otherwise empty
+     */
+    Optional<BigDecimal> weightedRate(int amount);
+
+    /**
+     * @return Total amount available in the order book
+     */
+    long totalAmount();
+
+    /**
+     * @return Number of offers in the order book
+     */
+    int size();
+}
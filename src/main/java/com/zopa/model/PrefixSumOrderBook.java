@@ -0,0 +1,110 @@
+package com.zopa.model;
+
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Optional;
+import java.util.SortedSet;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Immutable order book index built once from a sorted set of offers.
+ * It keeps the cumulative available amounts and the cumulative amount x rate of the offers, so the fill point
+ * of a requested amount is found by binary search and the weighted rate is calculated with a single division
+ */
+public final class PrefixSumOrderBook implements OrderBook {
+    private final BigDecimal[] rates;
+    // cumulativeAmounts[i] and cumulativeWeightedRates[i] hold the sums of the first i offers
+    private final long[] cumulativeAmounts;
+    private final BigDecimal[] cumulativeWeightedRates;
+
+    private PrefixSumOrderBook(final BigDecimal[] rates, final int[] amounts) {
+        this.rates = rates;
+        this.cumulativeAmounts = new long[rates.length + 1];
+        this.cumulativeWeightedRates = new BigDecimal[rates.length + 1];
+        cumulativeWeightedRates[0] = BigDecimal.ZERO;
+        for (int i = 0; i < rates.length; i++) {
+            cumulativeAmounts[i + 1] = cumulativeAmounts[i] + amounts[i];
+            cumulativeWeightedRates[i + 1] = cumulativeWeightedRates[i]
+                    .add(rates[i].multiply(BigDecimal.valueOf(amounts[i])));
+        }
+    }
+
+    /**
+     * Builds the order book from offers sorted by rate
+     * @param offerSet Set of available offers
+     * @return Order book of the offers
+     */
+    public static PrefixSumOrderBook fromOffers(@NonNull final SortedSet<Offer> offerSet) {
+        BigDecimal[] rates = new BigDecimal[offerSet.size()];
+        int[] amounts = new int[offerSet.size()];
+        int i = 0;
+        for (Offer offer : offerSet) {
+            rates[i] = offer.getRate();
+            amounts[i] = offer.getAmount();
+            i++;
+        }
+        return new PrefixSumOrderBook(rates, amounts);
+    }
+
+    /**
+     * Builds the order book from rates and amounts of offers sorted by rate
+     * @param rates Rates of the offers in ascending order
+     * @param amounts Available amounts of the offers
+     * @return Order book of the offers
+     */
+    public static PrefixSumOrderBook fromSortedRates(@NonNull final BigDecimal[] rates, @NonNull final int[] amounts) {
+        isTrue(rates.length == amounts.length, "rates and amounts should have the same length");
+        for (int i = 0; i < rates.length; i++) {
+            isTrue(amounts[i] >= 0, "amounts should not be negative");
+            isTrue(i == 0 || rates[i - 1].compareTo(rates[i]) <= 0, "rates should be sorted");
+        }
+        return new PrefixSumOrderBook(rates.clone(), amounts.clone());
+    }
+
+    /**
+     * Finds the offer where the requested amount is filled and adds its partial amount to the cumulative
+     * amount x rate of the cheaper offers
+     * @param amount Total amount to loan
+     * @return weighted rate as optional if offers satisfy amount, otherwise empty
+     */
+    @Override
+    public Optional<BigDecimal> weightedRate(final int amount) {
+        isTrue(amount > 0, "amount should be positive");
+        if (cumulativeAmounts[rates.length] < amount)
+            return Optional.empty();
+
+        int fillIndex = findFillIndex(amount);
+        BigDecimal weightedTotal = cumulativeWeightedRates[fillIndex]
+                .add(rates[fillIndex].multiply(BigDecimal.valueOf(amount - cumulativeAmounts[fillIndex])));
+        return Optional.of(weightedTotal.divide(BigDecimal.valueOf(amount), MathContext.DECIMAL128));
+    }
+
+    @Override
+    public long totalAmount() {
+        return cumulativeAmounts[rates.length];
+    }
+
+    @Override
+    public int size() {
+        return rates.length;
+    }
+
+    /**
+     * @return index of the first offer whose cumulative amount reaches the requested amount
+     */
+    private int findFillIndex(final int amount) {
+        int low = 1;
+        int high = rates.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeAmounts[mid] < amount)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low - 1;
+    }
+}
@@ -1,52 +1,23 @@
 package com.zopa.model;
 
+import com.zopa.output.QuoteRenderer;
 import lombok.Builder;
 import lombok.Getter;
 
 import java.math.BigDecimal;
-import java.text.NumberFormat;
 
-import static com.zopa.config.Config.CURRENCY;
-import static com.zopa.config.Config.LOCALE;
-
-@Builder
+@Builder(toBuilder = true)
 @Getter
 public class Quote {
-    private final static String LINE_SEPARATOR = System.getProperty("line.separator");
     private int requestedAmount;
     private BigDecimal rate;
     private BigDecimal monthlyRepayment;
     private BigDecimal totalRepayment;
+    // version of the market snapshot the quote is priced on, 0 if it is not priced on a snapshot
+    private long marketVersion;
 
     @Override
     public String toString() {
-
-        return new StringBuilder()
-                .append("Requested amount: ").append(formatCurrency(requestedAmount)).append(LINE_SEPARATOR)
-                .append("Rate: ").append(formatPercentage(rate)).append(LINE_SEPARATOR)
-                .append("Monthly repayment: ").append(formatCurrency(monthlyRepayment)).append(LINE_SEPARATOR)
-                .append("Total repayment: ").append(formatCurrency(totalRepayment)).append(LINE_SEPARATOR)
-                .toString();
-    }
-
-    private String formatCurrency(final int amount) {
-        NumberFormat numberFormat = NumberFormat.getCurrencyInstance(LOCALE);
-        numberFormat.setCurrency(CURRENCY);
-        numberFormat.setGroupingUsed(false);
-        numberFormat.setMaximumFractionDigits(0);
-        return numberFormat.format(amount);
-    }
-
-    private String formatCurrency(final BigDecimal amount) {
-        NumberFormat numberFormat = NumberFormat.getCurrencyInstance(LOCALE);
-        numberFormat.setCurrency(CURRENCY);
-        numberFormat.setGroupingUsed(false);
-        return numberFormat.format(amount);
-    }
-
-    private String formatPercentage(final BigDecimal percent) {
-        NumberFormat numberFormat = NumberFormat.getPercentInstance(LOCALE);
-        numberFormat.setMinimumFractionDigits(1);
-        return numberFormat.format(percent);
+        return QuoteRenderer.DEFAULT.render(this, QuoteRenderer.Format.TEXT);
     }
 }
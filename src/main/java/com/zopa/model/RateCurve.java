@@ -0,0 +1,124 @@
+package com.zopa.model;
+
+import lombok.NonNull;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedSet;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Weighted rate of a market as a function of the borrowed amount.
+ * Within the offers of one rate, the amount x rate grows linearly with the amount, so the curve is described
+ * by its breakpoints, the cumulative amounts where the rate of the next offer changes. The breakpoints are
+ * built in a single pass over the offers, offers of the same rate being merged into one segment.
+ * Between breakpoints the rate is calculated exactly as
+ * (amount x rate up to the previous breakpoint + marginal rate x amount past it) / amount,
+ * which is the rate calculateRate returns for the amount
+ */
+public final class RateCurve {
+    private final List<Breakpoint> breakpoints;
+    // cumulativeWeightedRates[i] is the amount x rate up to breakpoint i - 1, 0 before the first one
+    private final BigDecimal[] cumulativeWeightedRates;
+
+    private RateCurve(final List<Breakpoint> breakpoints, final BigDecimal[] cumulativeWeightedRates) {
+        this.breakpoints = Collections.unmodifiableList(breakpoints);
+        this.cumulativeWeightedRates = cumulativeWeightedRates;
+    }
+
+    /**
+     * Builds the curve in one pass over the offers
+     * @param offerSet offers sorted by rate
+     * @return Curve of the offers
+     */
+    public static RateCurve fromOffers(@NonNull final SortedSet<Offer> offerSet) {
+        List<Breakpoint> breakpoints = new ArrayList<>();
+        List<BigDecimal> cumulativeWeightedRates = new ArrayList<>();
+        cumulativeWeightedRates.add(BigDecimal.ZERO);
+        long cumulativeAmount = 0;
+        BigDecimal cumulativeWeightedRate = BigDecimal.ZERO;
+        BigDecimal segmentRate = null;
+        for (Offer offer : offerSet) {
+            isTrue(offer.getAmount() >= 0, "amounts should not be negative");
+            if (offer.getAmount() == 0)
+                continue;
+            if (segmentRate != null && segmentRate.compareTo(offer.getRate()) != 0) {
+                breakpoints.add(breakpoint(cumulativeAmount, cumulativeWeightedRate, segmentRate));
+                cumulativeWeightedRates.add(cumulativeWeightedRate);
+            }
+            segmentRate = offer.getRate();
+            cumulativeAmount += offer.getAmount();
+            cumulativeWeightedRate = cumulativeWeightedRate
+                    .add(offer.getRate().multiply(BigDecimal.valueOf(offer.getAmount())));
+        }
+        if (segmentRate != null)
+            breakpoints.add(breakpoint(cumulativeAmount, cumulativeWeightedRate, segmentRate));
+        return new RateCurve(breakpoints, cumulativeWeightedRates.toArray(new BigDecimal[0]));
+    }
+
+    /**
+     * @return breakpoints in ascending order of amount, the last one at the total amount of the market
+     */
+    public List<Breakpoint> getBreakpoints() {
+        return breakpoints;
+    }
+
+    public long totalAmount() {
+        return breakpoints.isEmpty() ? 0 : breakpoints.get(breakpoints.size() - 1).getAmount();
+    }
+
+    /**
+     * @param amount Total amount to loan
+     * @return weighted rate of the amount, interpolated exactly between the breakpoints around it, empty if the
+     * market does not cover the amount
+     */
+    public Optional<BigDecimal> rateAt(final int amount) {
+        isTrue(amount > 0, "amount should be positive");
+        if (totalAmount() < amount)
+            return Optional.empty();
+
+        int segment = findSegment(amount);
+        long segmentStart = segment == 0 ? 0 : breakpoints.get(segment - 1).getAmount();
+        BigDecimal weightedTotal = cumulativeWeightedRates[segment].add(
+                breakpoints.get(segment).getMarginalRate().multiply(BigDecimal.valueOf(amount - segmentStart)));
+        return Optional.of(weightedTotal.divide(BigDecimal.valueOf(amount), MathContext.DECIMAL128));
+    }
+
+    /**
+     * @return index of the first breakpoint whose amount reaches the requested amount
+     */
+    private int findSegment(final int amount) {
+        int low = 0;
+        int high = breakpoints.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (breakpoints.get(mid).getAmount() < amount)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    private static Breakpoint breakpoint(final long amount, final BigDecimal weightedTotal,
+                                         final BigDecimal marginalRate) {
+        return new Breakpoint(amount, weightedTotal.divide(BigDecimal.valueOf(amount), MathContext.DECIMAL128),
+                marginalRate);
+    }
+
+    @Value
+    public static class Breakpoint {
+        // cumulative amount of the offers up to the breakpoint
+        private long amount;
+        // weighted rate of borrowing the amount
+        private BigDecimal rate;
+        // rate of the offers filled just below the breakpoint
+        private BigDecimal marginalRate;
+    }
+}
@@ -0,0 +1,80 @@
+package com.zopa.output;
+
+import com.zopa.calculator.AmortizationSchedule;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+/**
+ * Writes amortization schedules as CSV, one record per period, while their periods are calculated, and a record
+ * with the error of each loan which has no schedule.
+ * Only the current period is held in memory, so schedules of any number of loans are streamed straight to the
+ * writer, which is expected to be buffered
+ */
+public class AmortizationScheduleWriter implements AutoCloseable {
+    public static final String CSV_HEADER = "loan,period,payment,interest,principal,balance,error";
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private final Writer out;
+
+    /**
+     * Writes CSV_HEADER to the writer
+     * @param out Writer of the schedules, closed with this writer
+     * @throws IOException if the header can not be written
+     */
+    public AmortizationScheduleWriter(@NonNull final Writer out) throws IOException {
+        this.out = out;
+        out.write(CSV_HEADER);
+        out.write(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes every period of the schedule
+     * @param loan id of the loan, written as the first column of each period
+     * @param schedule Schedule of the loan
+     * @return number of periods written
+     * @throws IOException if a period can not be written
+     */
+    public int write(@NonNull final String loan, @NonNull final AmortizationSchedule schedule) throws IOException {
+        int count = 0;
+        for (AmortizationSchedule.Period period : schedule) {
+            out.write(loan);
+            out.write(',');
+            out.write(String.valueOf(period.getNumber()));
+            writeAmount(period.getPayment());
+            writeAmount(period.getInterest());
+            writeAmount(period.getPrincipal());
+            writeAmount(period.getBalance());
+            out.write(',');
+            out.write(LINE_SEPARATOR);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Writes a record of the loan with the error instead of its periods
+     * @param loan id of the loan, written as the first column
+     * @param error why the loan has no schedule
+     * @throws IOException if the record can not be written
+     */
+    public void writeError(@NonNull final String loan, @NonNull final String error) throws IOException {
+        out.write(loan);
+        out.write(",,,,,,\"");
+        out.write(error.replace("\"", "\"\""));
+        out.write('"');
+        out.write(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeAmount(final BigDecimal amount) throws IOException {
+        out.write(',');
+        out.write(amount.toPlainString());
+    }
+}
@@ -0,0 +1,152 @@
+package com.zopa.output;
+
+import com.zopa.model.Quote;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+import java.util.Currency;
+import java.util.Locale;
+
+import static com.zopa.config.Config.CURRENCY;
+import static com.zopa.config.Config.LOCALE;
+
+/**
+ * Renders quotes as human readable text, compact JSON or CSV into any Appendable,
+ * e.g. a reused StringBuilder or a Writer.
+ * Number formats are not thread safe, so each thread formats with its own instances, created on its first use
+ * and reused by every later quote of that thread
+ */
+public class QuoteRenderer {
+    public static final QuoteRenderer DEFAULT = new QuoteRenderer(LOCALE, CURRENCY);
+    public static final String CSV_HEADER = "requested_amount,rate,monthly_repayment,total_repayment,currency,"
+            + "market_version";
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+    // rates are written as fractions to hundredths of a percent, amounts in major units of the currency rounded
+    // to its minor unit, e.g. 30.88 for £30.88
+    private static final int RATE_SCALE = 4;
+
+    public enum Format {
+        TEXT, JSON, CSV
+    }
+
+    private final Currency currency;
+    private final ThreadLocal<Formatters> formatters;
+
+    public QuoteRenderer(@NonNull final Locale locale, @NonNull final Currency currency) {
+        this.currency = currency;
+        this.formatters = ThreadLocal.withInitial(() -> new Formatters(locale, currency));
+    }
+
+    /**
+     * @return quote in the given format
+     */
+    public String render(@NonNull final Quote quote, @NonNull final Format format) {
+        StringBuilder builder = new StringBuilder(128);
+        try {
+            write(quote, format, builder);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    public void write(@NonNull final Quote quote, @NonNull final Format format, @NonNull final Appendable out)
+            throws IOException {
+        switch (format) {
+            case TEXT:
+                writeText(quote, out);
+                break;
+            case JSON:
+                writeJson(quote, out);
+                break;
+            case CSV:
+                writeCsv(quote, out);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported format " + format);
+        }
+    }
+
+    /**
+     * Writes the quote as lines of the requested amount, rate, monthly and total repayment
+     * formatted in the locale and currency of the renderer
+     */
+    public void writeText(@NonNull final Quote quote, @NonNull final Appendable out) throws IOException {
+        Formatters f = formatters.get();
+        out.append("Requested amount: ").append(f.format(f.wholeCurrency, quote.getRequestedAmount()))
+                .append(LINE_SEPARATOR);
+        out.append("Rate: ").append(f.format(f.percentage, quote.getRate())).append(LINE_SEPARATOR);
+        out.append("Monthly repayment: ").append(f.format(f.currency, quote.getMonthlyRepayment()))
+                .append(LINE_SEPARATOR);
+        out.append("Total repayment: ").append(f.format(f.currency, quote.getTotalRepayment()))
+                .append(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes the quote as a single line JSON object, without a trailing line separator
+     */
+    public void writeJson(@NonNull final Quote quote, @NonNull final Appendable out) throws IOException {
+        out.append("{\"requestedAmount\":").append(String.valueOf(quote.getRequestedAmount()))
+                .append(",\"rate\":").append(rate(quote.getRate()))
+                .append(",\"monthlyRepayment\":").append(amount(quote.getMonthlyRepayment()))
+                .append(",\"totalRepayment\":").append(amount(quote.getTotalRepayment()))
+                .append(",\"currency\":\"").append(currency.getCurrencyCode())
+                .append("\",\"marketVersion\":").append(String.valueOf(quote.getMarketVersion()))
+                .append('}');
+    }
+
+    /**
+     * Writes the quote as a CSV record with the columns of CSV_HEADER, without a trailing line separator
+     */
+    public void writeCsv(@NonNull final Quote quote, @NonNull final Appendable out) throws IOException {
+        out.append(String.valueOf(quote.getRequestedAmount()))
+                .append(',').append(rate(quote.getRate()))
+                .append(',').append(amount(quote.getMonthlyRepayment()))
+                .append(',').append(amount(quote.getTotalRepayment()))
+                .append(',').append(currency.getCurrencyCode())
+                .append(',').append(String.valueOf(quote.getMarketVersion()));
+    }
+
+    private static String rate(final BigDecimal rate) {
+        return rate.setScale(RATE_SCALE, RoundingMode.HALF_EVEN).toPlainString();
+    }
+
+    private String amount(final BigDecimal amount) {
+        return amount.setScale(currency.getDefaultFractionDigits(), RoundingMode.HALF_EVEN).toPlainString();
+    }
+
+    /**
+     * Number formats of one thread, with the buffer they format into
+     */
+    private static final class Formatters {
+        private final NumberFormat wholeCurrency;
+        private final NumberFormat currency;
+        private final NumberFormat percentage;
+        private final StringBuffer buffer = new StringBuffer(32);
+        private final FieldPosition fieldPosition = new FieldPosition(0);
+
+        private Formatters(final Locale locale, final Currency currency) {
+            this.currency = NumberFormat.getCurrencyInstance(locale);
+            this.currency.setCurrency(currency);
+            this.currency.setGroupingUsed(false);
+            this.wholeCurrency = (NumberFormat) this.currency.clone();
+            this.wholeCurrency.setMaximumFractionDigits(0);
+            this.percentage = NumberFormat.getPercentInstance(locale);
+            this.percentage.setMinimumFractionDigits(1);
+        }
+
+        /**
+         * @return formatted number, valid until the next format of this thread
+         */
+        private CharSequence format(final NumberFormat numberFormat, final Object number) {
+            buffer.setLength(0);
+            return numberFormat.format(number, buffer, fieldPosition);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.zopa.output;
+
+import com.zopa.model.RateCurve;
+import lombok.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Writes the breakpoints of a rate curve as CSV or as a JSON array, rates at their full precision
+ */
+public class RateCurveRenderer {
+    public static final String CSV_HEADER = "amount,rate,marginal_rate";
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    /**
+     * Writes CSV_HEADER and one record per breakpoint, each followed by a line separator
+     */
+    public static void writeCsv(@NonNull final RateCurve rateCurve, @NonNull final Appendable out)
+            throws IOException {
+        out.append(CSV_HEADER).append(LINE_SEPARATOR);
+        for (RateCurve.Breakpoint breakpoint : rateCurve.getBreakpoints()) {
+            out.append(String.valueOf(breakpoint.getAmount()))
+                    .append(',').append(breakpoint.getRate().toPlainString())
+                    .append(',').append(breakpoint.getMarginalRate().toPlainString())
+                    .append(LINE_SEPARATOR);
+        }
+    }
+
+    /**
+     * Writes the breakpoints as a single line JSON array of objects, without a trailing line separator
+     */
+    public static void writeJson(@NonNull final RateCurve rateCurve, @NonNull final Appendable out)
+            throws IOException {
+        out.append('[');
+        boolean first = true;
+        for (RateCurve.Breakpoint breakpoint : rateCurve.getBreakpoints()) {
+            if (!first)
+                out.append(',');
+            first = false;
+            out.append("{\"amount\":").append(String.valueOf(breakpoint.getAmount()))
+                    .append(",\"rate\":").append(breakpoint.getRate().toPlainString())
+                    .append(",\"marginalRate\":").append(breakpoint.getMarginalRate().toPlainString())
+                    .append('}');
+        }
+        out.append(']');
+    }
+}
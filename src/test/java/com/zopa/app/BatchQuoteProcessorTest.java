@@ -0,0 +1,178 @@
+package com.zopa.app;
+
+import com.zopa.calculator.MonthlyCompoundInterestLoanCalculator;
+import com.zopa.calculator.QuoteCalculator;
+import com.zopa.calculator.QuoteCalculatorHelperImpl;
+import com.zopa.input.MarketDataFileParser;
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.PrefixSumOrderBook;
+import com.zopa.output.AmortizationScheduleWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BatchQuoteProcessorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final QuoteCalculationApp quoteCalculationApp = new QuoteCalculationApp(
+            new MonthlyCompoundInterestLoanCalculator(new QuoteCalculatorHelperImpl()), new MarketDataFileParser());
+    private final MarketSnapshot marketSnapshot = new MarketSnapshot(3, PrefixSumOrderBook.fromSortedRates(
+            new BigDecimal[]{BigDecimal.valueOf(0.069), BigDecimal.valueOf(0.071)}, new int[]{480, 1520}), 0);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_zeroParallelism_throwsException() {
+        new BatchQuoteProcessor(quoteCalculationApp, 0, 10);
+    }
+
+    @Test
+    public void parseRequest_csvAndJson_returnsAmountAndMonths() {
+        assertArrayEquals(new String[]{"1000", null}, BatchQuoteProcessor.parseRequest("1000"));
+        assertArrayEquals(new String[]{"1000", "12"}, BatchQuoteProcessor.parseRequest(" 1000 , 12 "));
+        assertArrayEquals(new String[]{"1000", "12"},
+                BatchQuoteProcessor.parseRequest("{\"amount\": 1000, \"months\": \"12\"}"));
+        assertArrayEquals(new String[]{"1100", null}, BatchQuoteProcessor.parseRequest("{\"amount\":1100}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseRequest_tooManyFields_throwsException() {
+        BatchQuoteProcessor.parseRequest("1000,12,3");
+    }
+
+    @Test
+    public void process_csvOutput_writesQuotesAndErrorsInOrder() throws Exception {
+        File requests = write("requests.txt", "1000", "", "1050", "2000,12", "2100", "{\"amount\":1000,\"months\":36}");
+        File quotes = folder.newFile("quotes.csv");
+
+        long count = new BatchQuoteProcessor(quoteCalculationApp, 2, 1).process(marketSnapshot, requests.toPath(),
+                quotes.toPath());
+
+        List<String> lines = Files.readAllLines(quotes.toPath(), StandardCharsets.UTF_8);
+        assertEquals(5, count);
+        assertEquals(BatchQuoteProcessor.CSV_HEADER, lines.get(0));
+        assertEquals(6, lines.size());
+        assertEquals("1,1000,0.0700,30.88,1111.64,GBP,3,", lines.get(1));
+        assertTrue(lines.get(2).startsWith("3,,,,,,,\"Error occurred while processing input parameters: "));
+        assertTrue(lines.get(3).startsWith("4,2000,"));
+        assertEquals("5,,,,,,,\"No available loans for the current amount\"", lines.get(4));
+        assertEquals("6,1000,0.0700,30.88,1111.64,GBP,3,", lines.get(5));
+    }
+
+    @Test
+    public void process_calculationFails_writesErrorAndQuotesTheRest() throws Exception {
+        QuoteCalculator quoteCalculator = mock(QuoteCalculator.class);
+        when(quoteCalculator.calculateQuote(any(MarketSnapshot.class), eq(1000), anyInt()))
+                .thenThrow(new IllegalStateException("corrupt market"));
+        when(quoteCalculator.calculateQuote(any(MarketSnapshot.class), eq(1100), anyInt()))
+                .thenReturn(quoteCalculationApp.calculateQuote(marketSnapshot, "1100", null));
+        File requests = write("requests.txt", "1000", "1100");
+        File quotes = folder.newFile("quotes.csv");
+
+        long count = new BatchQuoteProcessor(new QuoteCalculationApp(quoteCalculator, new MarketDataFileParser()), 2, 1)
+                .process(marketSnapshot, requests.toPath(), quotes.toPath());
+
+        List<String> lines = Files.readAllLines(quotes.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, count);
+        assertEquals("1,,,,,,,\"Error occurred while calculating the quote: java.lang.IllegalStateException: "
+                + "corrupt market\"", lines.get(1));
+        assertTrue(lines.get(2).startsWith("2,1100,"));
+    }
+
+    @Test
+    public void process_jsonOutput_writesJsonLines() throws Exception {
+        File requests = write("requests.jsonl", "{\"amount\": 1000}", "{\"amount\": \"abc\"}");
+        File quotes = folder.newFile("quotes.jsonl");
+
+        new BatchQuoteProcessor(quoteCalculationApp, 2, 4).process(marketSnapshot, requests.toPath(), quotes.toPath());
+
+        List<String> lines = Files.readAllLines(quotes.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertEquals("{\"line\":1,\"quote\":{\"requestedAmount\":1000,\"rate\":0.0700,\"monthlyRepayment\":30.88,"
+                + "\"totalRepayment\":1111.64,\"currency\":\"GBP\",\"marketVersion\":3}}", lines.get(0));
+        assertTrue(lines.get(1).startsWith("{\"line\":2,\"error\":\"Error occurred while processing input parameters"));
+    }
+
+    @Test
+    public void process_manyRequests_keepsInputOrder() throws Exception {
+        List<String> requestLines = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            requestLines.add(String.valueOf(1000 + (i % 11) * 100));
+        }
+        File requests = write("many.txt", requestLines.toArray(new String[0]));
+        File quotes = folder.newFile("many.csv");
+
+        long count = new BatchQuoteProcessor(quoteCalculationApp, 4, 8).process(marketSnapshot, requests.toPath(),
+                quotes.toPath());
+
+        List<String> lines = Files.readAllLines(quotes.toPath(), StandardCharsets.UTF_8);
+        assertEquals(5000, count);
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(lines.get(i + 1).startsWith((i + 1) + "," + requestLines.get(i) + ","));
+        }
+    }
+
+    @Test
+    public void processSchedules_validRequests_writesEveryPeriod() throws Exception {
+        File requests = write("requests.txt", "1000", "abc", "2100", "2000,12");
+        File schedules = folder.newFile("schedules.csv");
+
+        long count = new BatchQuoteProcessor(quoteCalculationApp, 1, 1).processSchedules(marketSnapshot,
+                requests.toPath(), schedules.toPath());
+
+        List<String> lines = Files.readAllLines(schedules.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, count);
+        assertEquals(AmortizationScheduleWriter.CSV_HEADER, lines.get(0));
+        assertEquals(1 + 36 + 2 + 12, lines.size());
+        assertTrue(lines.get(1).startsWith("1,1,30.88,"));
+        assertTrue(lines.get(36).startsWith("1,36,") && lines.get(36).endsWith(",0.00,"));
+        assertTrue(lines.get(37).startsWith("2,,,,,,\"Error occurred while processing input parameters: "));
+        assertEquals("3,,,,,,\"No available loans for the current amount\"", lines.get(38));
+        assertTrue(lines.get(39).startsWith("4,1,"));
+    }
+
+    @Test
+    public void processSchedules_malformedRequest_writesErrorForItsLine() throws Exception {
+        File requests = write("requests.txt", "1000,12,3", "{\"months\": 12}");
+        File schedules = folder.newFile("schedules.csv");
+
+        long count = new BatchQuoteProcessor(quoteCalculationApp, 1, 1).processSchedules(marketSnapshot,
+                requests.toPath(), schedules.toPath());
+
+        List<String> lines = Files.readAllLines(schedules.toPath(), StandardCharsets.UTF_8);
+        assertEquals(0, count);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).startsWith(
+                "1,,,,,,\"Error occurred while processing input parameters: Invalid request"));
+        assertTrue(lines.get(2).startsWith("2,,,,,,\"Error occurred while processing input parameters: "));
+    }
+
+    @Test(expected = IOException.class)
+    public void process_missingRequestsFile_throwsException() throws Exception {
+        new BatchQuoteProcessor(quoteCalculationApp, 1, 1).process(marketSnapshot,
+                new File(folder.getRoot(), "missing.txt").toPath(), folder.newFile("quotes.csv").toPath());
+    }
+
+    private File write(final String name, final String... lines) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
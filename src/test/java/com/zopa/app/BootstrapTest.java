@@ -0,0 +1,35 @@
+package com.zopa.app;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BootstrapTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void direct_sameMarket_quotesAsSpring() throws IOException {
+        File market = folder.newFile("market.csv");
+        Files.write(market.toPath(), Arrays.asList("Lender,Rate,Available", "Bob,0.075,640", "Jane,0.069,480",
+                "Fred,0.071,520", "Mary,0.104,170", "John,0.081,320", "Dave,0.074,140", "Angela,0.071,60"),
+                StandardCharsets.UTF_8);
+        QuoteCalculationApp direct = Bootstrap.direct();
+        QuoteCalculationApp spring = Bootstrap.withSpring();
+
+        for (String[] args : new String[][]{{market.getPath(), "1000"}, {market.getPath(), "2300", "12"},
+                {market.getPath(), "2400"}, {market.getPath(), "1050"}}) {
+            assertEquals(spring.calculate(args), direct.calculate(args));
+        }
+        assertTrue(direct.calculate(new String[]{market.getPath(), "1000"}).contains("Rate: 7.0%"));
+    }
+}
@@ -0,0 +1,140 @@
+package com.zopa.app;
+
+import com.zopa.calculator.MonthlyCompoundInterestLoanCalculator;
+import com.zopa.calculator.QuoteCalculatorHelperImpl;
+import com.zopa.input.MarketDataFileParser;
+import com.zopa.model.MarketDefinition;
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.Quote;
+import com.zopa.output.QuoteRenderer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class MarketRegistryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MarketRegistry marketRegistry;
+
+    @Before
+    public void setup() throws IOException {
+        marketRegistry = new MarketRegistry(currency -> new QuoteCalculationApp(
+                new MonthlyCompoundInterestLoanCalculator(new QuoteCalculatorHelperImpl()), new MarketDataFileParser()),
+                60000);
+        marketRegistry.register(definition("GBP", "GBP", Locale.UK, 1000, 15000, 100,
+                market("gbp.csv", "Jane,0.069,480", "Fred,0.071,1520")));
+        marketRegistry.register(definition("EUR", "EUR", Locale.GERMANY, 500, 2000, 50,
+                market("eur.csv", "Hans,0.05,1000")));
+    }
+
+    @After
+    public void tearDown() {
+        marketRegistry.close();
+    }
+
+    @Test
+    public void getMarketIds_registeredMarkets_returnsSortedIds() {
+        assertEquals(new TreeSet<>(Arrays.asList("EUR", "GBP")), marketRegistry.getMarketIds());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void register_sameMarketTwice_throwsException() throws IOException {
+        marketRegistry.register(definition("EUR", "EUR", Locale.GERMANY, 500, 2000, 50,
+                market("eur2.csv", "Hans,0.05,1000")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getSnapshot_unknownMarket_throwsException() {
+        marketRegistry.getSnapshot("USD");
+    }
+
+    @Test
+    public void getSnapshot_markets_areIsolated() {
+        MarketSnapshot gbp = marketRegistry.getSnapshot("GBP");
+        MarketSnapshot eur = marketRegistry.getSnapshot("EUR");
+        assertNotSame(gbp.getOrderBook(), eur.getOrderBook());
+        assertEquals(2000, gbp.getOrderBook().totalAmount());
+        assertEquals(1000, eur.getOrderBook().totalAmount());
+    }
+
+    @Test
+    public void calculateQuote_amountOfOtherMarket_validatesWithMarketLimits() {
+        Optional<Quote> eurQuote = marketRegistry.calculateQuote("EUR", marketRegistry.getSnapshot("EUR"), "550", "12");
+        assertTrue(eurQuote.isPresent());
+        assertEquals(550, eurQuote.get().getRequestedAmount());
+        try {
+            marketRegistry.calculateQuote("GBP", marketRegistry.getSnapshot("GBP"), "550", "12");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("between 1000 and 15000"));
+            return;
+        }
+        throw new AssertionError("550 should be rejected by the GBP market");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void calculateQuote_termNotOfMarket_throwsException() {
+        marketRegistry.calculateQuote("EUR", marketRegistry.getSnapshot("EUR"), "1000", "36");
+    }
+
+    @Test
+    public void calculateQuote_noTerm_usesDefaultOfMarket() {
+        Optional<Quote> quote = marketRegistry.calculateQuote("EUR", marketRegistry.getSnapshot("EUR"), "1000", null);
+        Optional<Quote> twelveMonths =
+                marketRegistry.calculateQuote("EUR", marketRegistry.getSnapshot("EUR"), "1000", "12");
+        assertEquals(twelveMonths.get().getTotalRepayment(), quote.get().getTotalRepayment());
+        assertFalse(marketRegistry.calculateQuote("EUR", marketRegistry.getSnapshot("EUR"), "1500", null)
+                .isPresent());
+    }
+
+    @Test
+    public void render_market_usesCurrencyOfMarket() {
+        Quote quote = marketRegistry.calculateQuote("EUR", marketRegistry.getSnapshot("EUR"), "1000", "12").get();
+        assertTrue(marketRegistry.render("EUR", quote, QuoteRenderer.Format.TEXT).contains("€"));
+        assertTrue(marketRegistry.render("GBP", quote, QuoteRenderer.Format.TEXT).contains("£"));
+        assertTrue(marketRegistry.render("EUR", quote, QuoteRenderer.Format.JSON).contains("\"currency\":\"EUR\""));
+    }
+
+    private File market(final String name, final String... offers) throws IOException {
+        File file = folder.newFile(name);
+        StringBuilder content = new StringBuilder("Lender,Rate,Available");
+        for (String offer : offers) {
+            content.append('\n').append(offer);
+        }
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static MarketDefinition definition(final String id, final String currency, final Locale locale,
+                                               final int minAmount, final int maxAmount, final int multiplier,
+                                               final File marketFile) {
+        return MarketDefinition.builder()
+                .id(id)
+                .marketFile(marketFile.getPath())
+                .currency(Currency.getInstance(currency))
+                .locale(locale)
+                .minAmount(minAmount)
+                .maxAmount(maxAmount)
+                .amountMultiplier(multiplier)
+                .terms(new TreeSet<>(Arrays.asList(12, 24)))
+                .defaultNumberOfMonths(12)
+                .build();
+    }
+}
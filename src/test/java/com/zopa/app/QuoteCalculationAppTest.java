@@ -2,8 +2,14 @@ package com.zopa.app;
 
 import com.zopa.calculator.QuoteCalculator;
 import com.zopa.input.MarketDataFileParser;
+import com.zopa.model.MappedOrderBook;
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.Offer;
+import com.zopa.model.OrderBook;
 import com.zopa.model.Quote;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -14,10 +20,18 @@ import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static com.zopa.config.Config.LOAN_LENGTH_IN_MONTHS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -29,6 +43,9 @@ public class QuoteCalculationAppTest {
     private static final String QUOTE_PREFIX = "Requested amount";
     private static final String INSUFFICIENT_AVAILABLE_PREFIX = "No available loans for the current amount";
     
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Mock
     MarketDataFileParser marketDataFileParserMock;
     @Mock
@@ -44,58 +61,158 @@ public class QuoteCalculationAppTest {
     }
 
     @Test
-    public void calculate_withMoreThanTwoArgs_returnsErrorMessage() {
-        String response = quoteCalculationApp.calculate(new String[]{"arg1", "arg2", "arg3"});
+    public void calculate_withMoreThanThreeArgs_returnsErrorMessage() {
+        String response = quoteCalculationApp.calculate(new String[]{"arg1", "arg2", "arg3", "arg4"});
         assertTrue(response.startsWith(USAGE_MSG_PREFIX));
     }
 
     @Test
     public void calculate_marketDataFileParserThrowsIOException_returnsErrorMessage() throws IOException {
-        when(marketDataFileParserMock.getOffersFromFile(anyString())).thenThrow(new IOException("Some message"));
+        when(marketDataFileParserMock.getCheapestOffersFromFile(anyString(), anyInt())).thenThrow(new IOException("Some message"));
         String response = quoteCalculationApp.calculate(new String[]{"filePath", "1000"});
         assertTrue(response.startsWith(IO_EXCEPTION_MSG_PREFIX));
     }
 
     @Test
     public void calculate_marketDataFileParserThrowsIllegalArgumentException_returnsErrorMessage() throws IOException {
-        when(marketDataFileParserMock.getOffersFromFile(anyString())).thenThrow(new IllegalArgumentException("Some message"));
+        when(marketDataFileParserMock.getCheapestOffersFromFile(anyString(), anyInt())).thenThrow(new IllegalArgumentException("Some message"));
         String response = quoteCalculationApp.calculate(new String[]{"filePath", "1000"});
         assertTrue(response.startsWith(ILLEGAL_ARG_EXCEPTION_MSG_PREFIX));
     }
 
     @Test
     public void calculate_smallRequestedAmount_returnsErrorMessage() throws IOException {
-        when(marketDataFileParserMock.getOffersFromFile(anyString())).thenReturn(new TreeSet<>());
+        when(marketDataFileParserMock.getCheapestOffersFromFile(anyString(), anyInt())).thenReturn(new TreeSet<>());
         String response = quoteCalculationApp.calculate(new String[]{"filePath", "900"});
         assertTrue(response.startsWith(ILLEGAL_ARG_EXCEPTION_MSG_PREFIX));
     }
 
     @Test
     public void calculate_largeRequestedAmount_returnsErrorMessage() throws IOException {
-        when(marketDataFileParserMock.getOffersFromFile(anyString())).thenReturn(new TreeSet<>());
+        when(marketDataFileParserMock.getCheapestOffersFromFile(anyString(), anyInt())).thenReturn(new TreeSet<>());
         String response = quoteCalculationApp.calculate(new String[]{"filePath", "15100"});
         assertTrue(response.startsWith(ILLEGAL_ARG_EXCEPTION_MSG_PREFIX));
     }
 
     @Test
     public void calculate_nonMultiplierRequestedAmount_returnsErrorMessage() throws IOException {
-        when(marketDataFileParserMock.getOffersFromFile(anyString())).thenReturn(new TreeSet<>());
+        when(marketDataFileParserMock.getCheapestOffersFromFile(anyString(), anyInt())).thenReturn(new TreeSet<>());
         String response = quoteCalculationApp.calculate(new String[]{"filePath", "1099"});
         assertTrue(response.startsWith(ILLEGAL_ARG_EXCEPTION_MSG_PREFIX));
     }
 
     @Test
     public void calculate_insufficientAvailable_returnsInsufficientMessage() throws IOException {
-        when(marketDataFileParserMock.getOffersFromFile(anyString())).thenReturn(new TreeSet<>());
+        when(marketDataFileParserMock.getCheapestOffersFromFile(anyString(), anyInt())).thenReturn(new TreeSet<>());
         when(quoteCalculatorMock.calculateQuote(any(SortedSet.class), eq(15000), eq(LOAN_LENGTH_IN_MONTHS)))
                 .thenReturn(Optional.empty());
         String response = quoteCalculationApp.calculate(new String[]{"filePath", "15000"});
         assertTrue(response.startsWith(INSUFFICIENT_AVAILABLE_PREFIX));
     }
 
+    @Test
+    public void calculate_invalidNumberOfMonths_returnsErrorMessage() throws IOException {
+        when(marketDataFileParserMock.getCheapestOffersFromFile(anyString(), anyInt())).thenReturn(new TreeSet<>());
+        String response = quoteCalculationApp.calculate(new String[]{"filePath", "1000", "361"});
+        assertTrue(response.startsWith(ILLEGAL_ARG_EXCEPTION_MSG_PREFIX));
+    }
+
+    @Test
+    public void calculate_validNumberOfMonths_callsQuoteCalculatorWithMonths() throws IOException {
+        when(marketDataFileParserMock.getCheapestOffersFromFile(anyString(), anyInt())).thenReturn(new TreeSet<>());
+        when(quoteCalculatorMock.calculateQuote(any(SortedSet.class), eq(1000), eq(12)))
+                .thenReturn(Optional.empty());
+        String response = quoteCalculationApp.calculate(new String[]{"filePath", "1000", "12"});
+        assertTrue(response.startsWith(INSUFFICIENT_AVAILABLE_PREFIX));
+        verify(quoteCalculatorMock).calculateQuote(any(SortedSet.class), eq(1000), eq(12));
+    }
+
+    @Test
+    public void loadOrderBook_cheapestOffers_returnsOrderBook() throws IOException {
+        when(marketDataFileParserMock.getCheapestOffersFromFile(eq("filePath"), anyInt())).thenReturn(new TreeSet<>());
+        assertEquals(0, quoteCalculationApp.loadOrderBook("filePath").totalAmount());
+    }
+
+    @Test
+    public void loadOrderBookAsync_executor_completesWithOrderBook() throws Exception {
+        when(marketDataFileParserMock.getCheapestOffersFromFile(eq("filePath"), anyInt())).thenReturn(new TreeSet<>());
+        CompletableFuture<OrderBook> orderBook = quoteCalculationApp.loadOrderBookAsync("filePath", 15000,
+                Runnable::run);
+        assertEquals(0, orderBook.get().totalAmount());
+    }
+
+    @Test
+    public void loadOrderBookAsync_unreadableFile_completesWithIOException() throws Exception {
+        when(marketDataFileParserMock.getCheapestOffersFromFile(eq("filePath"), anyInt()))
+                .thenThrow(new IOException("Some message"));
+        CompletableFuture<OrderBook> orderBook = quoteCalculationApp.loadOrderBookAsync("filePath", 15000,
+                Runnable::run);
+        try {
+            orderBook.get();
+            fail("unreadable file should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void loadOrderBookAsync_loadThrowsError_completesExceptionally() throws Exception {
+        when(marketDataFileParserMock.getCheapestOffersFromFile(eq("filePath"), anyInt()))
+                .thenThrow(new OutOfMemoryError("Some message"));
+        CompletableFuture<OrderBook> orderBook = quoteCalculationApp.loadOrderBookAsync("filePath", 15000,
+                Runnable::run);
+        try {
+            orderBook.get();
+            fail("failed load should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof OutOfMemoryError);
+        }
+    }
+
+    @Test
+    public void loadOrderBook_snapshotFile_mapsWrittenSnapshot() throws IOException {
+        SortedSet<Offer> offerSet = new TreeSet<>();
+        offerSet.add(Offer.builder().rate(BigDecimal.valueOf(0.07)).amount(1500).lender("Bob").build());
+        when(marketDataFileParserMock.getOffersFromFile("filePath")).thenReturn(offerSet);
+        String snapshotFile = folder.getRoot().toPath().resolve("market" + MappedOrderBook.FILE_EXTENSION).toString();
+
+        assertEquals(1, quoteCalculationApp.writeSnapshot("filePath", snapshotFile));
+        OrderBook orderBook = quoteCalculationApp.loadOrderBook(snapshotFile);
+        assertTrue(orderBook instanceof MappedOrderBook);
+        assertEquals(1500, orderBook.totalAmount());
+    }
+
+    @Test
+    public void loadOrderBook_snapshotAboveDefaultMaxAmount_coversMaxAmount() throws IOException {
+        SortedSet<Offer> offerSet = new TreeSet<>();
+        offerSet.add(Offer.builder().rate(BigDecimal.valueOf(0.07)).amount(12000).lender("Bob").build());
+        offerSet.add(Offer.builder().rate(BigDecimal.valueOf(0.08)).amount(8000).lender("Jane").build());
+        when(marketDataFileParserMock.getOffersFromFile("filePath")).thenReturn(offerSet);
+        String snapshotFile = folder.getRoot().toPath().resolve("market" + MappedOrderBook.FILE_EXTENSION).toString();
+
+        quoteCalculationApp.writeSnapshot("filePath", snapshotFile);
+        OrderBook orderBook = quoteCalculationApp.loadOrderBook(snapshotFile, 20000);
+        assertEquals(20000, orderBook.totalAmount());
+        assertTrue(orderBook.weightedRate(20000).isPresent());
+        verify(marketDataFileParserMock, never()).getCheapestOffersFromFile(anyString(), anyInt());
+    }
+
+    @Test
+    public void calculateQuote_noMonths_usesDefaultLoanLength() {
+        when(quoteCalculatorMock.calculateQuote(any(MarketSnapshot.class), eq(1000), eq(LOAN_LENGTH_IN_MONTHS)))
+                .thenReturn(Optional.empty());
+        assertFalse(quoteCalculationApp.calculateQuote(snapshot(), "1000", null).isPresent());
+        verify(quoteCalculatorMock).calculateQuote(any(MarketSnapshot.class), eq(1000), eq(LOAN_LENGTH_IN_MONTHS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void calculateQuote_invalidMonths_throwsException() {
+        quoteCalculationApp.calculateQuote(snapshot(), "1000", "0");
+    }
+
     @Test
     public void calculate_validArgs_callsQuoteCalculator() throws IOException {
-        when(marketDataFileParserMock.getOffersFromFile("filePath")).thenReturn(new TreeSet<>());
+        when(marketDataFileParserMock.getCheapestOffersFromFile(eq("filePath"), anyInt())).thenReturn(new TreeSet<>());
         when(quoteCalculatorMock.calculateQuote(any(SortedSet.class), eq(15000), eq(LOAN_LENGTH_IN_MONTHS)))
                 .thenReturn(Optional.of(Quote.builder()
                         .requestedAmount(15000)
@@ -106,4 +223,8 @@ public class QuoteCalculationAppTest {
         String response = quoteCalculationApp.calculate(new String[]{"filePath", "15000"});
         assertTrue(response.startsWith(QUOTE_PREFIX));
     }
-}
\ No newline at end of file
+
+    private static MarketSnapshot snapshot() {
+        return new MarketSnapshot(1, mock(OrderBook.class), 0);
+    }
+}
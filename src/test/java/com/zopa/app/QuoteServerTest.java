@@ -0,0 +1,151 @@
+package com.zopa.app;
+
+import com.zopa.calculator.MonthlyCompoundInterestLoanCalculator;
+import com.zopa.calculator.QuoteCalculatorHelperImpl;
+import com.zopa.input.MarketDataFileParser;
+import com.zopa.model.MarketDefinition;
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.PrefixSumOrderBook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QuoteServerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private QuoteServer quoteServer;
+    private int port;
+
+    @Before
+    public void setup() throws IOException {
+        QuoteCalculationApp quoteCalculationApp = new QuoteCalculationApp(
+                new MonthlyCompoundInterestLoanCalculator(new QuoteCalculatorHelperImpl()), new MarketDataFileParser());
+        MarketSnapshot marketSnapshot = new MarketSnapshot(3, PrefixSumOrderBook.fromSortedRates(
+                new BigDecimal[]{BigDecimal.valueOf(0.069), BigDecimal.valueOf(0.071)}, new int[]{480, 1000}), 0);
+        quoteServer = new QuoteServer(quoteCalculationApp, () -> marketSnapshot);
+        port = quoteServer.start(0);
+    }
+
+    @After
+    public void tearDown() {
+        quoteServer.stop();
+    }
+
+    @Test
+    public void quote_validAmount_returnsQuote() throws IOException {
+        HttpURLConnection connection = get("/quote?amount=1000");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("3", connection.getHeaderField("X-Market-Version"));
+        assertTrue(read(connection.getInputStream()).startsWith("Requested amount"));
+    }
+
+    @Test
+    public void quote_validAmountAndMonths_returnsQuote() throws IOException {
+        assertEquals(200, get("/quote?amount=1000&months=12").getResponseCode());
+    }
+
+    @Test
+    public void quote_invalidAmount_returnsBadRequest() throws IOException {
+        HttpURLConnection connection = get("/quote?amount=1050");
+        assertEquals(400, connection.getResponseCode());
+        assertTrue(read(connection.getErrorStream()).startsWith("Error occurred while processing input parameters"));
+    }
+
+    @Test
+    public void quote_missingAmount_returnsBadRequest() throws IOException {
+        assertEquals(400, get("/quote").getResponseCode());
+    }
+
+    @Test
+    public void quote_insufficientAvailable_returnsNotFound() throws IOException {
+        assertEquals(404, get("/quote?amount=1500").getResponseCode());
+    }
+
+    @Test
+    public void maxQuote_maxRate_returnsLargestAmountWithinRate() throws IOException {
+        // 1200 is filled at exactly 7.02%, 1300 at 7.026%
+        HttpURLConnection connection = get("/max-quote?rate=0.0702");
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(read(connection.getInputStream()).startsWith("Requested amount: £1200"));
+    }
+
+    @Test
+    public void maxQuote_rateBelowCheapestFill_returnsNotFound() throws IOException {
+        assertEquals(404, get("/max-quote?rate=0.05").getResponseCode());
+    }
+
+    @Test
+    public void maxQuote_bothLimits_returnsBadRequest() throws IOException {
+        assertEquals(400, get("/max-quote?rate=0.07&repayment=300").getResponseCode());
+        assertEquals(400, get("/max-quote").getResponseCode());
+    }
+
+    @Test
+    public void quote_marketRegistry_routesByMarket() throws IOException {
+        File marketFile = folder.newFile("eur.csv");
+        Files.write(marketFile.toPath(), Arrays.asList("Lender,Rate,Available", "Hans,0.05,1000"),
+                StandardCharsets.UTF_8);
+        MarketRegistry marketRegistry = new MarketRegistry(currency -> new QuoteCalculationApp(
+                new MonthlyCompoundInterestLoanCalculator(new QuoteCalculatorHelperImpl()), new MarketDataFileParser()),
+                60000);
+        marketRegistry.register(MarketDefinition.builder()
+                .id("EUR")
+                .marketFile(marketFile.getPath())
+                .currency(Currency.getInstance("EUR"))
+                .locale(Locale.GERMANY)
+                .minAmount(500)
+                .maxAmount(1000)
+                .amountMultiplier(50)
+                .terms(new TreeSet<>(Collections.singleton(12)))
+                .defaultNumberOfMonths(12)
+                .build());
+        QuoteServer marketsServer = new QuoteServer(marketRegistry);
+        port = marketsServer.start(0);
+        try {
+            HttpURLConnection connection = get("/quote?market=EUR&amount=550");
+            assertEquals(200, connection.getResponseCode());
+            assertEquals("1", connection.getHeaderField("X-Market-Version"));
+            assertTrue(read(connection.getInputStream()).contains("€"));
+            assertEquals(400, get("/quote?market=USD&amount=550").getResponseCode());
+            assertEquals(400, get("/quote?amount=550").getResponseCode());
+        } finally {
+            marketsServer.stop();
+            marketRegistry.close();
+        }
+    }
+
+    private HttpURLConnection get(final String path) throws IOException {
+        return (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+    }
+
+    private static String read(final InputStream inputStream) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int length;
+        while ((length = inputStream.read(buffer)) != -1) {
+            result.write(buffer, 0, length);
+        }
+        return new String(result.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,117 @@
+package com.zopa.calculator;
+
+import com.zopa.model.Quote;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AmortizationScheduleTest {
+
+    private final MonthlyCompoundInterestLoanCalculator calculator =
+            new MonthlyCompoundInterestLoanCalculator(new QuoteCalculatorHelperImpl());
+
+    @Test
+    public void iterator_firstPeriod_splitsPaymentIntoInterestAndPrincipal() {
+        AmortizationSchedule schedule = calculator.calculateSchedule(
+                calculator.calculateQuote(BigDecimal.valueOf(0.07), 1000, 36), 36);
+
+        AmortizationSchedule.Period first = schedule.iterator().next();
+        assertEquals(1, first.getNumber());
+        assertEquals(new BigDecimal("30.88"), first.getPayment());
+        // 1000 x 0.07 / 12 = 5.8333
+        assertEquals(new BigDecimal("5.83"), first.getInterest());
+        assertEquals(new BigDecimal("25.05"), first.getPrincipal());
+        assertEquals(new BigDecimal("974.95"), first.getBalance());
+    }
+
+    @Test
+    public void stream_randomQuotes_paymentsAddUpToTotalRepayment() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            int numberOfMonths = 1 + random.nextInt(360);
+            Quote quote = calculator.calculateQuote(BigDecimal.valueOf(1 + random.nextInt(300000), 6),
+                    1000 + 100 * random.nextInt(141), numberOfMonths);
+            AmortizationSchedule schedule = calculator.calculateSchedule(quote, numberOfMonths);
+
+            assertEquals(numberOfMonths, schedule.stream().count());
+            assertTrue(schedule.stream().allMatch(period -> period.getInterest().signum() >= 0));
+            assertEquals(quote.getTotalRepayment().setScale(2, RoundingMode.HALF_EVEN),
+                    schedule.stream().map(AmortizationSchedule.Period::getPayment)
+                            .reduce(BigDecimal.ZERO, BigDecimal::add));
+            assertEquals(BigDecimal.valueOf(quote.getRequestedAmount()).setScale(2),
+                    schedule.stream().map(AmortizationSchedule.Period::getPrincipal)
+                            .reduce(BigDecimal.ZERO, BigDecimal::add));
+            AmortizationSchedule.Period last = schedule.stream().reduce((a, b) -> b).get();
+            assertEquals(0, last.getBalance().signum());
+            assertEquals(last.getPayment(), last.getInterest().add(last.getPrincipal()));
+        }
+    }
+
+    @Test
+    public void iterator_longTerm_keepsFinalPeriodInLineWithMonthlyRepayment() {
+        Quote quote = calculator.calculateQuote(BigDecimal.valueOf(0.104), 2400, 360);
+        BigDecimal monthlyRepayment = quote.getMonthlyRepayment().setScale(2, RoundingMode.HALF_EVEN);
+
+        for (AmortizationSchedule.Period period : calculator.calculateSchedule(quote, 360)) {
+            assertTrue(period.getInterest().signum() >= 0);
+            assertTrue(period.getPayment().subtract(monthlyRepayment).abs().compareTo(new BigDecimal("0.01")) <= 0);
+        }
+    }
+
+    @Test
+    public void iterator_eachPeriod_reducesBalanceByPrincipal() {
+        AmortizationSchedule schedule = calculator.calculateSchedule(
+                calculator.calculateQuote(BigDecimal.valueOf(0.12), 15000, 360), 360);
+
+        BigDecimal balance = new BigDecimal("15000.00");
+        for (AmortizationSchedule.Period period : schedule) {
+            assertEquals(period.getPayment(), period.getInterest().add(period.getPrincipal()));
+            balance = balance.subtract(period.getPrincipal());
+            assertEquals(balance, period.getBalance());
+        }
+        assertEquals(0, balance.signum());
+    }
+
+    @Test
+    public void iterator_sameSchedule_isDeterministic() {
+        AmortizationSchedule schedule = calculator.calculateSchedule(
+                calculator.calculateQuote(BigDecimal.valueOf(0.075), 5000, 48), 48);
+
+        Iterator<AmortizationSchedule.Period> first = schedule.iterator();
+        Iterator<AmortizationSchedule.Period> second = schedule.iterator();
+        while (first.hasNext()) {
+            assertEquals(first.next(), second.next());
+        }
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    public void iterator_oneMonth_repaysTotalInSinglePeriod() {
+        Quote quote = calculator.calculateQuote(BigDecimal.valueOf(0.07), 1000, 1);
+        AmortizationSchedule.Period period = calculator.calculateSchedule(quote, 1).iterator().next();
+
+        assertEquals(1, period.getNumber());
+        assertEquals(new BigDecimal("1005.83"), period.getPayment());
+        assertEquals(new BigDecimal("1000.00"), period.getPrincipal());
+        assertEquals(new BigDecimal("5.83"), period.getInterest());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void iterator_afterLastPeriod_throwsException() {
+        Iterator<AmortizationSchedule.Period> periods = calculator.calculateSchedule(
+                calculator.calculateQuote(BigDecimal.valueOf(0.07), 1000, 1), 1).iterator();
+        periods.next();
+        periods.next();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_zeroMonths_throwsException() {
+        new AmortizationSchedule(calculator.calculateQuote(BigDecimal.valueOf(0.07), 1000, 36), 0, 2);
+    }
+}
@@ -0,0 +1,73 @@
+package com.zopa.calculator;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import static org.junit.Assert.assertEquals;
+
+public class AnnuityFactorTableTest {
+    private final AnnuityFactorTable table =
+            new AnnuityFactorTable(new BigDecimal("0.001"), new BigDecimal("0.5"), 360);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void discountFactor_nullRate_throwsException() {
+        table.discountFactor(null, 36);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void discountFactor_zeroNumberOfMonths_throwsException() {
+        table.discountFactor(BigDecimal.valueOf(0.074), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_zeroGridStep_throwsException() {
+        new AnnuityFactorTable(BigDecimal.ZERO, new BigDecimal("0.5"), 360);
+    }
+
+    @Test
+    public void discountFactor_gridRate_calculatesDiscountFactor() {
+        assertEquals(BigDecimal.valueOf(32.1954),
+                table.discountFactor(BigDecimal.valueOf(0.074), 36).setScale(4, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    public void discountFactor_gridAndOffGridRates_matchPowerFormulaInPence() {
+        String[] rates = {"0.001", "0.069", "0.07", "0.074", "0.0719", "0.07123456789", "0.5", "0.55"};
+        int[] terms = {1, 12, 24, 36, 60, 120, 360};
+        for (String rate : rates) {
+            for (int term : terms) {
+                BigDecimal expected = repayment(powerDiscountFactor(new BigDecimal(rate), term));
+                BigDecimal actual = repayment(table.discountFactor(new BigDecimal(rate), term));
+                assertEquals(rate + " over " + term + " months", expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void discountFactor_termBeyondTable_matchesPowerFormula() {
+        AnnuityFactorTable smallTable = new AnnuityFactorTable(new BigDecimal("0.001"), new BigDecimal("0.5"), 12);
+        assertEquals(repayment(powerDiscountFactor(BigDecimal.valueOf(0.07), 36)),
+                repayment(smallTable.discountFactor(BigDecimal.valueOf(0.07), 36)));
+    }
+
+    @Test
+    public void discountFactor_repeatedGridRate_returnsSameValue() {
+        assertEquals(table.discountFactor(BigDecimal.valueOf(0.07), 48),
+                table.discountFactor(new BigDecimal("0.0700"), 48));
+    }
+
+    private static BigDecimal powerDiscountFactor(final BigDecimal rate, final int numberOfMonths) {
+        BigDecimal mRate = rate.divide(new BigDecimal(12), MathContext.DECIMAL128);
+        BigDecimal compoundFactor = mRate.add(BigDecimal.ONE).pow(numberOfMonths);
+        return compoundFactor.subtract(BigDecimal.ONE).divide(mRate.multiply(compoundFactor), MathContext.DECIMAL128);
+    }
+
+    // total repayment of the largest loan in pence, the most sensitive figure of a quote
+    private static BigDecimal repayment(final BigDecimal discountFactor) {
+        return new BigDecimal(15000).divide(discountFactor, MathContext.DECIMAL128).multiply(new BigDecimal(360))
+                .setScale(2, RoundingMode.HALF_EVEN);
+    }
+}
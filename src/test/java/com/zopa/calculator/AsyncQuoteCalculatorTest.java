@@ -0,0 +1,127 @@
+package com.zopa.calculator;
+
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.OrderBook;
+import com.zopa.model.Quote;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncQuoteCalculatorTest {
+
+    @Mock
+    QuoteCalculator quoteCalculatorMock;
+
+    private AsyncQuoteCalculator asyncQuoteCalculator;
+
+    private final MarketSnapshot marketSnapshot = new MarketSnapshot(1, mock(OrderBook.class), 0);
+    private final Quote quote = Quote.builder()
+            .requestedAmount(1000)
+            .rate(BigDecimal.valueOf(0.07))
+            .monthlyRepayment(BigDecimal.valueOf(30.88))
+            .totalRepayment(BigDecimal.valueOf(1111.64))
+            .build();
+
+    @After
+    public void tearDown() {
+        if (asyncQuoteCalculator != null)
+            asyncQuoteCalculator.close();
+    }
+
+    @Test
+    public void calculateQuote_snapshot_completesWithQuote() throws Exception {
+        when(quoteCalculatorMock.calculateQuote(marketSnapshot, 1000, 36)).thenReturn(Optional.of(quote));
+        asyncQuoteCalculator = new AsyncQuoteCalculator(quoteCalculatorMock, 2, 4);
+
+        assertSame(quote, asyncQuoteCalculator.calculateQuote(marketSnapshot, 1000, 36)
+                .get(5, TimeUnit.SECONDS).get());
+    }
+
+    @Test
+    public void calculateQuote_queueFull_rejectsWithoutBlocking() throws Exception {
+        CountDownLatch calculating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(quoteCalculatorMock.calculateQuote(any(MarketSnapshot.class), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    calculating.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return Optional.of(quote);
+                });
+        asyncQuoteCalculator = new AsyncQuoteCalculator(quoteCalculatorMock, 1, 1);
+
+        CompletableFuture<Optional<Quote>> running = asyncQuoteCalculator.calculateQuote(marketSnapshot, 1000, 36);
+        assertTrue(calculating.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Optional<Quote>> queued = asyncQuoteCalculator.calculateQuote(marketSnapshot, 1100, 36);
+        CompletableFuture<Optional<Quote>> rejected = asyncQuoteCalculator.calculateQuote(marketSnapshot, 1200, 36);
+
+        assertTrue(rejected.isCompletedExceptionally());
+        assertEquals(1, asyncQuoteCalculator.getRejectedCount());
+        assertEquals(1, asyncQuoteCalculator.getQueueSize());
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS).isPresent());
+        assertTrue(queued.get(5, TimeUnit.SECONDS).isPresent());
+        try {
+            rejected.get();
+            fail("rejected quote should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void calculateQuote_calculationFails_completesExceptionally() throws Exception {
+        when(quoteCalculatorMock.calculateQuote(marketSnapshot, 1000, 36))
+                .thenThrow(new IllegalArgumentException("invalid"));
+        asyncQuoteCalculator = new AsyncQuoteCalculator(quoteCalculatorMock, 1, 1);
+
+        try {
+            asyncQuoteCalculator.calculateQuote(marketSnapshot, 1000, 36).get(5, TimeUnit.SECONDS);
+            fail("failed quote should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void calculateQuote_calculationThrowsError_completesExceptionally() throws Exception {
+        when(quoteCalculatorMock.calculateQuote(marketSnapshot, 1000, 36)).thenThrow(new StackOverflowError());
+        asyncQuoteCalculator = new AsyncQuoteCalculator(quoteCalculatorMock, 1, 1);
+
+        try {
+            asyncQuoteCalculator.calculateQuote(marketSnapshot, 1000, 36).get(5, TimeUnit.SECONDS);
+            fail("failed quote should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof StackOverflowError);
+        }
+    }
+
+    @Test
+    public void calculateQuote_afterClose_rejects() {
+        asyncQuoteCalculator = new AsyncQuoteCalculator(quoteCalculatorMock, 1, 1);
+        asyncQuoteCalculator.close();
+
+        assertTrue(asyncQuoteCalculator.calculateQuote(marketSnapshot, 1000, 36).isCompletedExceptionally());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_zeroQueueCapacity_throwsException() {
+        new AsyncQuoteCalculator(quoteCalculatorMock, 1, 0);
+    }
+}
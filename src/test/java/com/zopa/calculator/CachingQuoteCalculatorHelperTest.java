@@ -0,0 +1,64 @@
+package com.zopa.calculator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingQuoteCalculatorHelperTest {
+
+    @Mock
+    QuoteCalculatorHelper quoteCalculatorHelperMock;
+
+    CachingQuoteCalculatorHelper cachingQuoteCalculatorHelper;
+
+    @Before
+    public void setup() {
+        when(quoteCalculatorHelperMock.calculateDiscountFactor(any(BigDecimal.class), anyInt()))
+                .thenReturn(BigDecimal.valueOf(32.1954));
+        cachingQuoteCalculatorHelper = new CachingQuoteCalculatorHelper(quoteCalculatorHelperMock, 2);
+    }
+
+    @Test
+    public void calculateDiscountFactor_sameKey_calculatesOnce() {
+        cachingQuoteCalculatorHelper.calculateDiscountFactor(BigDecimal.valueOf(0.074), 36);
+        BigDecimal discountFactor = cachingQuoteCalculatorHelper.calculateDiscountFactor(new BigDecimal("0.0740"), 36);
+        assertEquals(BigDecimal.valueOf(32.1954), discountFactor);
+        verify(quoteCalculatorHelperMock, times(1)).calculateDiscountFactor(any(BigDecimal.class), eq(36));
+        assertEquals(1, cachingQuoteCalculatorHelper.getHitCount());
+        assertEquals(1, cachingQuoteCalculatorHelper.getMissCount());
+    }
+
+    @Test
+    public void calculateDiscountFactor_differentMonths_calculatesEach() {
+        cachingQuoteCalculatorHelper.calculateDiscountFactor(BigDecimal.valueOf(0.074), 36);
+        cachingQuoteCalculatorHelper.calculateDiscountFactor(BigDecimal.valueOf(0.074), 12);
+        assertEquals(0, cachingQuoteCalculatorHelper.getHitCount());
+        assertEquals(2, cachingQuoteCalculatorHelper.getMissCount());
+    }
+
+    @Test
+    public void calculateDiscountFactor_moreKeysThanSize_evictsLeastRecentlyUsed() {
+        cachingQuoteCalculatorHelper.calculateDiscountFactor(BigDecimal.valueOf(0.07), 36);
+        cachingQuoteCalculatorHelper.calculateDiscountFactor(BigDecimal.valueOf(0.08), 36);
+        cachingQuoteCalculatorHelper.calculateDiscountFactor(BigDecimal.valueOf(0.09), 36);
+        assertEquals(2, cachingQuoteCalculatorHelper.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_zeroSize_throwsException() {
+        new CachingQuoteCalculatorHelper(quoteCalculatorHelperMock, 0);
+    }
+}
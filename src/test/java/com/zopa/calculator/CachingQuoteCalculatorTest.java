@@ -0,0 +1,241 @@
+package com.zopa.calculator;
+
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.OrderBook;
+import com.zopa.model.Quote;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingQuoteCalculatorTest {
+
+    @Mock
+    QuoteCalculator quoteCalculatorMock;
+
+    CachingQuoteCalculator cachingQuoteCalculator;
+
+    private final Quote quote = Quote.builder()
+            .requestedAmount(1000)
+            .rate(BigDecimal.valueOf(0.07))
+            .monthlyRepayment(BigDecimal.valueOf(30.88))
+            .totalRepayment(BigDecimal.valueOf(1111.64))
+            .build();
+
+    @Before
+    public void setup() {
+        when(quoteCalculatorMock.calculateQuote(any(MarketSnapshot.class), anyInt(), anyInt()))
+                .thenReturn(Optional.of(quote));
+        cachingQuoteCalculator = new CachingQuoteCalculator(quoteCalculatorMock, 2);
+    }
+
+    @Test
+    public void calculateQuote_sameSnapshotAndKey_calculatesOnce() {
+        MarketSnapshot snapshot = snapshot(1);
+        cachingQuoteCalculator.calculateQuote(snapshot, 1000, 36);
+        Optional<Quote> cached = cachingQuoteCalculator.calculateQuote(snapshot, 1000, 36);
+
+        assertSame(quote, cached.get());
+        verify(quoteCalculatorMock, times(1)).calculateQuote(snapshot, 1000, 36);
+        assertEquals(1, cachingQuoteCalculator.getHitCount());
+        assertEquals(1, cachingQuoteCalculator.getMissCount());
+        assertEquals(0.5, cachingQuoteCalculator.getHitRatio(), 0);
+    }
+
+    @Test
+    public void calculateQuote_differentTerm_calculatesAgain() {
+        MarketSnapshot snapshot = snapshot(1);
+        cachingQuoteCalculator.calculateQuote(snapshot, 1000, 36);
+        cachingQuoteCalculator.calculateQuote(snapshot, 1000, 24);
+
+        verify(quoteCalculatorMock, times(2)).calculateQuote(eq(snapshot), eq(1000), anyInt());
+        assertEquals(2, cachingQuoteCalculator.getSize());
+    }
+
+    @Test
+    public void calculateQuote_newerSnapshot_dropsQuotesOfOlderSnapshot() {
+        MarketSnapshot older = snapshot(1);
+        MarketSnapshot newer = snapshot(2);
+        cachingQuoteCalculator.calculateQuote(older, 1000, 36);
+        cachingQuoteCalculator.calculateQuote(newer, 1000, 36);
+        cachingQuoteCalculator.calculateQuote(newer, 1000, 36);
+
+        verify(quoteCalculatorMock, times(1)).calculateQuote(older, 1000, 36);
+        verify(quoteCalculatorMock, times(1)).calculateQuote(newer, 1000, 36);
+        assertEquals(1, cachingQuoteCalculator.getSize());
+    }
+
+    @Test
+    public void calculateQuote_olderSnapshot_calculatesWithoutCache() {
+        MarketSnapshot older = snapshot(1);
+        MarketSnapshot newer = snapshot(2);
+        cachingQuoteCalculator.calculateQuote(newer, 1000, 36);
+        cachingQuoteCalculator.calculateQuote(older, 1000, 36);
+        cachingQuoteCalculator.calculateQuote(older, 1000, 36);
+
+        verify(quoteCalculatorMock, times(2)).calculateQuote(older, 1000, 36);
+        cachingQuoteCalculator.calculateQuote(newer, 1000, 36);
+        verify(quoteCalculatorMock, times(1)).calculateQuote(newer, 1000, 36);
+    }
+
+    @Test
+    public void calculateQuote_otherSnapshotOfSameVersion_calculatesWithoutReplacingCache() {
+        MarketSnapshot first = snapshot(1);
+        MarketSnapshot other = snapshot(1);
+        cachingQuoteCalculator.calculateQuote(first, 1000, 36);
+        cachingQuoteCalculator.calculateQuote(other, 1000, 36);
+        cachingQuoteCalculator.calculateQuote(other, 1000, 36);
+        cachingQuoteCalculator.calculateQuote(first, 1000, 36);
+
+        verify(quoteCalculatorMock, times(2)).calculateQuote(other, 1000, 36);
+        verify(quoteCalculatorMock, times(1)).calculateQuote(first, 1000, 36);
+        assertEquals(1, cachingQuoteCalculator.getHitCount());
+    }
+
+    @Test
+    public void calculateQuote_maximumSizeReached_calculatesWithoutCache() {
+        MarketSnapshot snapshot = snapshot(1);
+        cachingQuoteCalculator.calculateQuote(snapshot, 1000, 36);
+        cachingQuoteCalculator.calculateQuote(snapshot, 1100, 36);
+        cachingQuoteCalculator.calculateQuote(snapshot, 1200, 36);
+        cachingQuoteCalculator.calculateQuote(snapshot, 1200, 36);
+
+        verify(quoteCalculatorMock, times(2)).calculateQuote(snapshot, 1200, 36);
+        assertEquals(2, cachingQuoteCalculator.getSize());
+    }
+
+    @Test
+    public void calculateQuote_failedCalculation_isNotCached() {
+        MarketSnapshot snapshot = snapshot(1);
+        when(quoteCalculatorMock.calculateQuote(snapshot, 1000, 36))
+                .thenThrow(new IllegalStateException("failed"))
+                .thenReturn(Optional.of(quote));
+        try {
+            cachingQuoteCalculator.calculateQuote(snapshot, 1000, 36);
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+
+        assertSame(quote, cachingQuoteCalculator.calculateQuote(snapshot, 1000, 36).get());
+        assertEquals(0, cachingQuoteCalculator.getHitCount());
+    }
+
+    @Test
+    public void calculateQuote_calculationThrowsError_failsWaitingRequestsAndIsNotCached() throws Exception {
+        MarketSnapshot snapshot = snapshot(1);
+        CountDownLatch calculating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calculations = new AtomicInteger();
+        when(quoteCalculatorMock.calculateQuote(snapshot, 1000, 36)).thenAnswer(invocation -> {
+            if (calculations.incrementAndGet() > 1)
+                return Optional.of(quote);
+            calculating.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            throw new StackOverflowError();
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<Quote>> first =
+                    executor.submit(() -> cachingQuoteCalculator.calculateQuote(snapshot, 1000, 36));
+            assertTrue(calculating.await(5, TimeUnit.SECONDS));
+            Future<Optional<Quote>> second =
+                    executor.submit(() -> cachingQuoteCalculator.calculateQuote(snapshot, 1000, 36));
+            // let the second request wait for the calculation of the first
+            while (cachingQuoteCalculator.getHitCount() < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            assertCause(StackOverflowError.class, first);
+            assertCause(StackOverflowError.class, second);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertSame(quote, cachingQuoteCalculator.calculateQuote(snapshot, 1000, 36).get());
+    }
+
+    @Test
+    public void calculateQuote_concurrentIdenticalMisses_calculatesOnce() throws Exception {
+        MarketSnapshot snapshot = snapshot(1);
+        CountDownLatch calculating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(quoteCalculatorMock.calculateQuote(snapshot, 1000, 36)).thenAnswer(invocation -> {
+            calculating.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(quote);
+        });
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Optional<Quote>>> quotes = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                quotes.add(executor.submit(() -> cachingQuoteCalculator.calculateQuote(snapshot, 1000, 36)));
+            }
+            assertTrue(calculating.await(5, TimeUnit.SECONDS));
+            // let the other requests reach the cache before the calculation completes
+            while (cachingQuoteCalculator.getHitCount() + cachingQuoteCalculator.getMissCount() < threads) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<Optional<Quote>> result : quotes) {
+                assertSame(quote, result.get(5, TimeUnit.SECONDS).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(quoteCalculatorMock, times(1)).calculateQuote(snapshot, 1000, 36);
+        assertEquals(threads - 1, cachingQuoteCalculator.getHitCount());
+    }
+
+    @Test
+    public void getHitRatio_noRequest_returnsZero() {
+        assertEquals(0, cachingQuoteCalculator.getHitRatio(), 0);
+        assertFalse(cachingQuoteCalculator.getSize() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_nonPositiveMaximumSize_throwsException() {
+        new CachingQuoteCalculator(quoteCalculatorMock, 0);
+    }
+
+    private static void assertCause(final Class<? extends Throwable> expected, final Future<?> future)
+            throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("request should fail");
+        } catch (ExecutionException e) {
+            assertTrue(expected.isInstance(e.getCause()));
+        }
+    }
+
+    private static MarketSnapshot snapshot(final long version) {
+        return new MarketSnapshot(version, mock(OrderBook.class), 0);
+    }
+}
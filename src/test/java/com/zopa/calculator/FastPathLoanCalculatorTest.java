@@ -0,0 +1,140 @@
+package com.zopa.calculator;
+
+import com.zopa.model.Offer;
+import com.zopa.model.OrderBook;
+import com.zopa.model.PrefixSumOrderBook;
+import com.zopa.model.Quote;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.Optional;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class FastPathLoanCalculatorTest {
+
+    private final QuoteCalculatorHelper quoteCalculatorHelper = new QuoteCalculatorHelperImpl();
+    private final MonthlyCompoundInterestLoanCalculator exactCalculator =
+            new MonthlyCompoundInterestLoanCalculator(quoteCalculatorHelper);
+
+    private final SortedSet<Offer> offerSet = new TreeSet<>(Arrays.asList(
+            Offer.builder().rate(BigDecimal.valueOf(0.075)).amount(640).lender("Bob").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.069)).amount(480).lender("Jane").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.071)).amount(520).lender("Fred").build()));
+
+    @Test
+    public void calculateQuote_randomRates_displaysSameAsExactCalculator() {
+        FastPathLoanCalculator fastCalculator =
+                new FastPathLoanCalculator(exactCalculator, quoteCalculatorHelper, true, true);
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            BigDecimal rate = BigDecimal.valueOf(1 + random.nextInt(300000), 6);
+            int amount = 1000 + 100 * random.nextInt(141);
+            int numberOfMonths = 1 + random.nextInt(360);
+            SortedSet<Offer> singleOffer = new TreeSet<>(Arrays.asList(
+                    Offer.builder().rate(rate).amount(15000).lender("L1").build()));
+
+            String expected = exactCalculator.calculateQuote(singleOffer, amount, numberOfMonths).get().toString();
+            String actual = fastCalculator.calculateQuote(singleOffer, amount, numberOfMonths).get().toString();
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void calculateQuote_insufficientOffers_returnsEmpty() {
+        FastPathLoanCalculator fastCalculator =
+                new FastPathLoanCalculator(exactCalculator, quoteCalculatorHelper, true, true);
+        assertFalse(fastCalculator.calculateQuote(offerSet, 2000, 36).isPresent());
+    }
+
+    @Test
+    public void calculateQuote_disabled_returnsExactQuote() {
+        FastPathLoanCalculator fastCalculator =
+                new FastPathLoanCalculator(exactCalculator, quoteCalculatorHelper, false, true);
+        Optional<Quote> quote = fastCalculator.calculateQuote(offerSet, 1000, 36);
+        assertEquals(exactCalculator.calculateQuote(offerSet, 1000, 36).get().getMonthlyRepayment(),
+                quote.get().getMonthlyRepayment());
+        assertEquals(0, fastCalculator.getFallbackCount());
+    }
+
+    @Test
+    public void calculateQuote_paymentOnHalfPence_fallsBackToExactCalculator() {
+        FastPathLoanCalculator fastCalculator =
+                new FastPathLoanCalculator(exactCalculator, quoteCalculatorHelper, true, true);
+        // a single month at 0.06% repays 1000 x 1.00005 = 1000.05 which is not near a half pence,
+        // whereas 1100 x 1.00005 = 1100.055 is exactly on one
+        OrderBook orderBook = PrefixSumOrderBook.fromSortedRates(
+                new BigDecimal[]{BigDecimal.valueOf(0.0006)}, new int[]{15000});
+        fastCalculator.calculateQuote(orderBook, 1000, 1);
+        assertEquals(0, fastCalculator.getFallbackCount());
+        Optional<Quote> quote = fastCalculator.calculateQuote(orderBook, 1100, 1);
+        assertEquals(1, fastCalculator.getFallbackCount());
+        assertEquals(0, BigDecimal.valueOf(1100.055).compareTo(quote.get().getMonthlyRepayment()));
+    }
+
+    @Test
+    public void calculateQuote_paymentOnHalfMinorUnitOfCurrency_fallsBackToExactCalculator() {
+        // one month at 0.06% repays 10000.5 which is on a half yen but not near a half pence,
+        // and 1010.0505 which is on a half fils but not near a half pence
+        OrderBook orderBook = PrefixSumOrderBook.fromSortedRates(
+                new BigDecimal[]{BigDecimal.valueOf(0.0006)}, new int[]{15000});
+        FastPathLoanCalculator pounds =
+                new FastPathLoanCalculator(exactCalculator, quoteCalculatorHelper, true, true);
+        pounds.calculateQuote(orderBook, 10000, 1);
+        pounds.calculateQuote(orderBook, 1010, 1);
+        assertEquals(0, pounds.getFallbackCount());
+
+        FastPathLoanCalculator yen = new FastPathLoanCalculator(exactCalculator, quoteCalculatorHelper, true, true,
+                Currency.getInstance("JPY"));
+        Optional<Quote> quote = yen.calculateQuote(orderBook, 10000, 1);
+        assertEquals(1, yen.getFallbackCount());
+        assertEquals(0, new BigDecimal("10000.5").compareTo(quote.get().getMonthlyRepayment()));
+
+        FastPathLoanCalculator dinars = new FastPathLoanCalculator(exactCalculator, quoteCalculatorHelper, true,
+                true, Currency.getInstance("KWD"));
+        quote = dinars.calculateQuote(orderBook, 1010, 1);
+        assertEquals(1, dinars.getFallbackCount());
+        assertEquals(0, new BigDecimal("1010.0505").compareTo(quote.get().getMonthlyRepayment()));
+    }
+
+    @Test
+    public void calculateQuote_randomRatesInOtherCurrencies_roundsSameAsExactCalculator() {
+        Random random = new Random(42);
+        for (String currencyCode : new String[]{"JPY", "KWD"}) {
+            Currency currency = Currency.getInstance(currencyCode);
+            FastPathLoanCalculator fastCalculator =
+                    new FastPathLoanCalculator(exactCalculator, quoteCalculatorHelper, true, true, currency);
+            int scale = currency.getDefaultFractionDigits();
+            for (int i = 0; i < 1000; i++) {
+                BigDecimal rate = BigDecimal.valueOf(1 + random.nextInt(300000), 6);
+                int amount = 1000 + 100 * random.nextInt(141);
+                int numberOfMonths = 1 + random.nextInt(360);
+                OrderBook orderBook = PrefixSumOrderBook.fromSortedRates(new BigDecimal[]{rate}, new int[]{15000});
+
+                Quote expected = exactCalculator.calculateQuote(orderBook, amount, numberOfMonths).get();
+                Quote actual = fastCalculator.calculateQuote(orderBook, amount, numberOfMonths).get();
+                assertEquals(expected.getMonthlyRepayment().setScale(scale, RoundingMode.HALF_EVEN),
+                        actual.getMonthlyRepayment().setScale(scale, RoundingMode.HALF_EVEN));
+                assertEquals(expected.getTotalRepayment().setScale(scale, RoundingMode.HALF_EVEN),
+                        actual.getTotalRepayment().setScale(scale, RoundingMode.HALF_EVEN));
+            }
+        }
+    }
+
+    @Test
+    public void calculateQuotes_ladder_displaysSameAsExactCalculator() {
+        FastPathLoanCalculator fastCalculator =
+                new FastPathLoanCalculator(exactCalculator, quoteCalculatorHelper, true, true);
+        int[] amounts = {1600, 1000, 1700};
+        for (int i = 0; i < amounts.length; i++) {
+            assertEquals(exactCalculator.calculateQuotes(offerSet, amounts, 36).get(i).map(Quote::toString),
+                    fastCalculator.calculateQuotes(offerSet, amounts, 36).get(i).map(Quote::toString));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.zopa.calculator;
+
+import com.zopa.model.MarketDefinition;
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.PrefixSumOrderBook;
+import com.zopa.model.Quote;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class InverseQuoteCalculatorTest {
+
+    private final MonthlyCompoundInterestLoanCalculator quoteCalculator =
+            new MonthlyCompoundInterestLoanCalculator(new QuoteCalculatorHelperImpl());
+    private final InverseQuoteCalculator inverseQuoteCalculator = new InverseQuoteCalculator(quoteCalculator);
+
+    private final MarketSnapshot marketSnapshot = new MarketSnapshot(1, PrefixSumOrderBook.fromSortedRates(
+            new BigDecimal[]{BigDecimal.valueOf(0.069), BigDecimal.valueOf(0.071)}, new int[]{480, 1000}), 0);
+
+    @Test
+    public void maxQuoteForRate_rateBetweenFills_returnsLargestAmountWithinRate() {
+        // 1200 is filled at exactly 7.02%, 1300 at 7.026%
+        Optional<Quote> quote = inverseQuoteCalculator.maxQuoteForRate(marketSnapshot, MarketDefinition.DEFAULT,
+                new BigDecimal("0.0702"), 36);
+
+        assertEquals(1200, quote.get().getRequestedAmount());
+        assertEquals(1, quote.get().getMarketVersion());
+    }
+
+    @Test
+    public void maxQuoteForRate_rateAboveEveryFill_returnsTotalAmountOnMultiplier() {
+        Optional<Quote> quote = inverseQuoteCalculator.maxQuoteForRate(marketSnapshot, MarketDefinition.DEFAULT,
+                BigDecimal.valueOf(0.5), 36);
+
+        assertEquals(1400, quote.get().getRequestedAmount());
+    }
+
+    @Test
+    public void maxQuoteForRate_rateBelowMinimumAmount_returnsEmpty() {
+        assertFalse(inverseQuoteCalculator.maxQuoteForRate(marketSnapshot, MarketDefinition.DEFAULT,
+                BigDecimal.valueOf(0.07), 36).isPresent());
+    }
+
+    @Test
+    public void maxQuoteForMonthlyRepayment_limit_returnsLargestAmountWithinRepayment() {
+        BigDecimal limit = quoteCalculator.calculateQuote(marketSnapshot, 1100, 36).get().getMonthlyRepayment()
+                .setScale(2, RoundingMode.HALF_EVEN);
+
+        Optional<Quote> quote = inverseQuoteCalculator.maxQuoteForMonthlyRepayment(marketSnapshot,
+                MarketDefinition.DEFAULT, limit, 36);
+
+        assertEquals(1100, quote.get().getRequestedAmount());
+    }
+
+    @Test
+    public void maxQuote_randomMarkets_sameAsLinearScan() {
+        Random random = new Random(42);
+        MarketDefinition market = MarketDefinition.DEFAULT.toBuilder()
+                .minAmount(500).maxAmount(20000).amountMultiplier(50).build();
+        // the linear scan quotes every accepted amount, so a few markets keep the test fast
+        for (int i = 0; i < 25; i++) {
+            int size = 1 + random.nextInt(30);
+            BigDecimal[] rates = new BigDecimal[size];
+            int[] amounts = new int[size];
+            for (int j = 0; j < size; j++) {
+                rates[j] = BigDecimal.valueOf(1 + random.nextInt(150000), 6);
+                amounts[j] = 1 + random.nextInt(2000);
+            }
+            Arrays.sort(rates);
+            MarketSnapshot snapshot = new MarketSnapshot(i, PrefixSumOrderBook.fromSortedRates(rates, amounts), 0);
+            int numberOfMonths = 1 + random.nextInt(60);
+            BigDecimal maxRate = BigDecimal.valueOf(1 + random.nextInt(150000), 6);
+            BigDecimal maxMonthlyRepayment = BigDecimal.valueOf(100 + random.nextInt(100000), 2);
+
+            assertEquals(linearScan(snapshot, market, numberOfMonths, maxRate, null),
+                    inverseQuoteCalculator.maxQuoteForRate(snapshot, market, maxRate, numberOfMonths)
+                            .map(Quote::getRequestedAmount).orElse(0).intValue());
+            assertEquals(linearScan(snapshot, market, numberOfMonths, null, maxMonthlyRepayment),
+                    inverseQuoteCalculator.maxQuoteForMonthlyRepayment(snapshot, market, maxMonthlyRepayment,
+                            numberOfMonths).map(Quote::getRequestedAmount).orElse(0).intValue());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxQuoteForRate_nonPositiveRate_throwsException() {
+        inverseQuoteCalculator.maxQuoteForRate(marketSnapshot, MarketDefinition.DEFAULT, BigDecimal.ZERO, 36);
+    }
+
+    /**
+     * @return largest amount within the limit by quoting every amount the market accepts, 0 if none is
+     */
+    private int linearScan(final MarketSnapshot snapshot, final MarketDefinition market, final int numberOfMonths,
+                           final BigDecimal maxRate, final BigDecimal maxMonthlyRepayment) {
+        int largest = 0;
+        for (int amount = market.getMinAmount(); amount <= market.getMaxAmount();
+             amount += market.getAmountMultiplier()) {
+            Optional<Quote> quote = quoteCalculator.calculateQuote(snapshot, amount, numberOfMonths);
+            if (!quote.isPresent())
+                break;
+            boolean withinLimit = maxRate != null ? quote.get().getRate().compareTo(maxRate) <= 0
+                    : quote.get().getMonthlyRepayment().setScale(2, RoundingMode.HALF_EVEN)
+                    .compareTo(maxMonthlyRepayment) <= 0;
+            if (!withinLimit)
+                break;
+            largest = amount;
+        }
+        return largest;
+    }
+}
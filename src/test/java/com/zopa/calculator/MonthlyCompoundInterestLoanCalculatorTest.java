@@ -1,5 +1,7 @@
 package com.zopa.calculator;
 
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.OrderBook;
 import com.zopa.model.Quote;
 import org.junit.Before;
 import org.junit.Test;
@@ -9,6 +11,8 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -16,6 +20,7 @@ import java.util.TreeSet;
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -51,4 +56,25 @@ public class MonthlyCompoundInterestLoanCalculatorTest {
         assertEquals(BigDecimal.valueOf(456.7), quoteOptional.get().getMonthlyRepayment());
         assertEquals(BigDecimal.valueOf(6789), quoteOptional.get().getTotalRepayment());
     }
+
+    @Test
+    public void calculateQuote_marketSnapshot_returnsQuoteWithVersion() {
+        when(quoteCalculatorHelperMock.calculateRate(any(OrderBook.class), anyInt())).thenReturn(Optional.of(BigDecimal.valueOf(32.1)));
+        Optional<Quote> quoteOptional = quoteCalculator.calculateQuote(
+                new MarketSnapshot(7, mock(OrderBook.class), 0), 500, 36);
+        assertTrue(quoteOptional.isPresent());
+        assertEquals(7, quoteOptional.get().getMarketVersion());
+        assertEquals(BigDecimal.valueOf(456.7), quoteOptional.get().getMonthlyRepayment());
+    }
+
+    @Test
+    public void calculateQuotes_helperReturnsRates_returnsQuotesInAmountOrder() {
+        when(quoteCalculatorHelperMock.calculateRates(any(SortedSet.class), any(int[].class)))
+                .thenReturn(Arrays.asList(Optional.of(BigDecimal.valueOf(0.07)), Optional.empty()));
+        List<Optional<Quote>> quotes = quoteCalculator.calculateQuotes(new TreeSet<>(), new int[]{1000, 900}, 36);
+        assertEquals(2, quotes.size());
+        assertEquals(1000, quotes.get(0).get().getRequestedAmount());
+        assertEquals(BigDecimal.valueOf(0.07), quotes.get(0).get().getRate());
+        assertFalse(quotes.get(1).isPresent());
+    }
 }
\ No newline at end of file
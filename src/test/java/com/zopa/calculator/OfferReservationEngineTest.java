@@ -0,0 +1,147 @@
+package com.zopa.calculator;
+
+import com.zopa.model.Offer;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OfferReservationEngineTest {
+
+    private static SortedSet<Offer> offers() {
+        return new TreeSet<>(Arrays.asList(
+                Offer.builder().rate(BigDecimal.valueOf(0.075)).amount(640).lender("Bob").build(),
+                Offer.builder().rate(BigDecimal.valueOf(0.069)).amount(480).lender("Jane").build(),
+                Offer.builder().rate(BigDecimal.valueOf(0.071)).amount(520).lender("Fred").build()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reserve_zeroAmount_throwsException() {
+        new OfferReservationEngine(offers()).reserve(0);
+    }
+
+    @Test
+    public void reserve_availableAmount_takesCheapestOffers() {
+        OfferReservationEngine engine = new OfferReservationEngine(offers());
+
+        Reservation reservation = engine.reserve(1000).get();
+
+        assertEquals(1640 - 1000, engine.getRemainingAmount());
+        assertEquals(Reservation.State.PENDING, reservation.getState());
+        List<Offer> allocations = reservation.getAllocations();
+        assertEquals(2, allocations.size());
+        assertEquals("Jane", allocations.get(0).getLender());
+        assertEquals(480, allocations.get(0).getAmount());
+        assertEquals("Fred", allocations.get(1).getLender());
+        assertEquals(520, allocations.get(1).getAmount());
+        assertEquals(new QuoteCalculatorHelperImpl().calculateRate(offers(), 1000).get(), reservation.getRate());
+    }
+
+    @Test
+    public void reserve_afterOtherReservation_pricesRemainingOffers() {
+        OfferReservationEngine engine = new OfferReservationEngine(offers());
+        engine.reserve(480).get().commit();
+
+        Reservation reservation = engine.reserve(600).get();
+
+        SortedSet<Offer> remainingOffers = new TreeSet<>(Arrays.asList(
+                Offer.builder().rate(BigDecimal.valueOf(0.075)).amount(640).lender("Bob").build(),
+                Offer.builder().rate(BigDecimal.valueOf(0.071)).amount(520).lender("Fred").build()));
+        assertEquals(new QuoteCalculatorHelperImpl().calculateRate(remainingOffers, 600).get(), reservation.getRate());
+        assertEquals(1640 - 480 - 600, engine.getRemainingAmount());
+    }
+
+    @Test
+    public void reserve_moreThanRemaining_returnsEmptyAndTakesNothing() {
+        OfferReservationEngine engine = new OfferReservationEngine(offers());
+        engine.reserve(1000).get();
+
+        assertFalse(engine.reserve(700).isPresent());
+        assertEquals(640, engine.getRemainingAmount());
+    }
+
+    @Test
+    public void release_pendingReservation_makesAmountAvailableAgain() {
+        OfferReservationEngine engine = new OfferReservationEngine(offers());
+        Reservation reservation = engine.reserve(1640).get();
+        assertFalse(engine.reserve(100).isPresent());
+
+        reservation.release();
+
+        assertEquals(Reservation.State.RELEASED, reservation.getState());
+        assertEquals(1640, engine.getRemainingAmount());
+        assertTrue(engine.reserve(100).isPresent());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void release_committedReservation_throwsException() {
+        Reservation reservation = new OfferReservationEngine(offers()).reserve(100).get();
+        reservation.commit();
+        reservation.release();
+    }
+
+    @Test
+    public void reserve_contendingThreads_neverOversubscribes() throws Exception {
+        SortedSet<Offer> offerSet = new TreeSet<>();
+        for (int i = 0; i < 50; i++) {
+            offerSet.add(Offer.builder().rate(BigDecimal.valueOf(50 + i, 3)).amount(200 + i).lender("L" + i).build());
+        }
+        int available = 0;
+        for (Offer offer : offerSet) {
+            available += offer.getAmount();
+        }
+        OfferReservationEngine engine = new OfferReservationEngine(offerSet);
+        int threads = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Callable<Integer> task = () -> {
+                    start.await();
+                    int reserved = 0;
+                    Optional<Reservation> reservation;
+                    while ((reservation = engine.reserve(70)).isPresent()) {
+                        int allocated = 0;
+                        for (Offer allocation : reservation.get().getAllocations()) {
+                            allocated += allocation.getAmount();
+                        }
+                        assertEquals(70, allocated);
+                        // release every third reservation, so amounts are given back while others reserve
+                        if (reserved % 3 == 2) {
+                            reservation.get().release();
+                        } else {
+                            reservation.get().commit();
+                        }
+                        reserved++;
+                    }
+                    return reserved;
+                };
+                results.add(executor.submit(task));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long remaining = engine.getRemainingAmount();
+        assertTrue(remaining >= 0 && remaining < 70);
+        assertEquals(available % 70, remaining);
+    }
+}
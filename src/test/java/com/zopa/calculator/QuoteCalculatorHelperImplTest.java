@@ -9,6 +9,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -23,7 +24,7 @@ public class QuoteCalculatorHelperImplTest {
 
     @Test(expected = IllegalArgumentException.class)
     public void calculateRate_nullSet_throwsException() {
-        quoteCalculatorHelper.calculateRate(null, 1000);
+        quoteCalculatorHelper.calculateRate((SortedSet<Offer>) null, 1000);
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -79,6 +80,34 @@ public class QuoteCalculatorHelperImplTest {
         assertEquals(BigDecimal.valueOf(0.0064), result.get().setScale(4, RoundingMode.HALF_UP));
     }
 
+    @Test
+    public void calculateRates_unsortedAmounts_matchesCalculateRate() {
+        SortedSet<Offer> offerSet = new TreeSet<>(Arrays.asList(
+                Offer.builder().rate(BigDecimal.valueOf(0.075)).amount(640).lender("L1").build(),
+                Offer.builder().rate(BigDecimal.valueOf(0.069)).amount(480).lender("L2").build(),
+                Offer.builder().rate(BigDecimal.valueOf(0.071)).amount(520).lender("L3").build(),
+                Offer.builder().rate(BigDecimal.valueOf(0.104)).amount(170).lender("L4").build()));
+        int[] amounts = {1700, 100, 1810, 1000, 480, 1811, 1120};
+        List<Optional<BigDecimal>> rates = quoteCalculatorHelper.calculateRates(offerSet, amounts);
+        assertEquals(amounts.length, rates.size());
+        for (int i = 0; i < amounts.length; i++) {
+            assertEquals(quoteCalculatorHelper.calculateRate(offerSet, amounts[i]), rates.get(i));
+        }
+        assertFalse(rates.get(5).isPresent());
+    }
+
+    @Test
+    public void calculateRates_emptySet_returnsEmptyOptionals() {
+        List<Optional<BigDecimal>> rates = quoteCalculatorHelper.calculateRates(new TreeSet<>(), new int[]{1000, 2000});
+        assertFalse(rates.get(0).isPresent());
+        assertFalse(rates.get(1).isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void calculateRates_zeroAmount_throwsException() {
+        quoteCalculatorHelper.calculateRates(new TreeSet<>(), new int[]{1000, 0});
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void calculateDiscountFactor_nullRate_throwsException() {
         quoteCalculatorHelper.calculateDiscountFactor(null, 36);
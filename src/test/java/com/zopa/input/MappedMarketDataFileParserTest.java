@@ -0,0 +1,118 @@
+package com.zopa.input;
+
+import com.zopa.model.Offer;
+import com.zopa.model.OrderBook;
+import com.zopa.model.PrefixSumOrderBook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+
+import static org.junit.Assert.*;
+
+public class MappedMarketDataFileParserTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MappedMarketDataFileParser mappedMarketDataFileParser = new MappedMarketDataFileParser();
+    private final MarketDataFileParser marketDataFileParser = new MarketDataFileParser();
+
+    @Test
+    public void getColumnsFromFile_validInput_parsesColumns() throws IOException {
+        File input = writeToFile("Lender,Rate,Available\nBob,0.075,640\nJane,0.069,480\n");
+        MarketDataColumns columns = mappedMarketDataFileParser.getColumnsFromFile(input.getPath());
+        assertEquals(2, columns.size());
+        assertEquals("Bob", columns.lender(0));
+        assertEquals(new BigDecimal("0.075"), columns.rate(0));
+        assertEquals(640, columns.amount(0));
+        assertEquals("Jane", columns.lender(1));
+    }
+
+    @Test
+    public void getColumnsFromFile_sameOffersAsMarketDataFileParser() throws IOException {
+        File input = writeToFile("Lender,Rate,Available\r\nBob,0.075,640\r\nJane,0.069,480\r\n\r\n"
+                + "Fred,0.071,520\r\nMary,1.04e-1,170\r\nAngela,0.0710,60");
+        SortedSet<Offer> expected = marketDataFileParser.getOffersFromFile(input.getPath());
+        SortedSet<Offer> actual = mappedMarketDataFileParser.getColumnsFromFile(input.getPath()).toOffers();
+        assertEquals(describe(expected), describe(actual));
+    }
+
+    @Test
+    public void getOrderBookFromFile_reorderedHeader_returnsOrderBook() throws IOException {
+        File input = writeToFile("available,RATE,lender,comment\n640,0.075,Bob,x\n480,0.069,Jane,y\n");
+        OrderBook orderBook = mappedMarketDataFileParser.getOrderBookFromFile(input.getPath());
+        OrderBook expected = PrefixSumOrderBook.fromSortedRates(
+                new BigDecimal[]{new BigDecimal("0.069"), new BigDecimal("0.075")}, new int[]{480, 640});
+        assertEquals(1120, orderBook.totalAmount());
+        assertEquals(expected.weightedRate(1000), orderBook.weightedRate(1000));
+    }
+
+    @Test
+    public void getColumnsFromFile_csvNoOffers_returnsEmptyColumns() throws IOException {
+        File input = writeToFile("Lender,Rate,Available\n");
+        assertEquals(0, mappedMarketDataFileParser.getColumnsFromFile(input.getPath()).size());
+    }
+
+    @Test
+    public void getColumnsFromFile_invalidName_reportsLineNumber() throws IOException {
+        assertError("Lender,Rate,Available\nBob,0.075,640\n\nJa ne,0.069,480\n",
+                "Invalid record at line 4: Lender name may only contain alpha-numerical characters");
+    }
+
+    @Test
+    public void getColumnsFromFile_invalidRate_reportsLineNumber() throws IOException {
+        assertError("Lender,Rate,Available\nBob,0.5.6,640\n",
+                "Invalid record at line 2: Invalid rate [0.5.6]. Rate should be a decimal number");
+    }
+
+    @Test
+    public void getColumnsFromFile_invalidAmount_reportsLineNumber() throws IOException {
+        assertError("Lender,Rate,Available\nBob,0.075,640\nJane,0.069,-480\n",
+                "Invalid record at line 3: Invalid amount [-480]. Amount should be positive");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getColumnsFromFile_csvWithoutHeader_throwsException() throws IOException {
+        File input = writeToFile("User1,0.56,1000\nUser2,0.07,15000\n");
+        mappedMarketDataFileParser.getColumnsFromFile(input.getPath());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getColumnsFromFile_missingValue_throwsException() throws IOException {
+        File input = writeToFile("Lender,Rate,Available\nUser1,0.56\n");
+        mappedMarketDataFileParser.getColumnsFromFile(input.getPath());
+    }
+
+    private void assertError(final String content, final String message) throws IOException {
+        File input = writeToFile(content);
+        try {
+            mappedMarketDataFileParser.getColumnsFromFile(input.getPath());
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static List<String> describe(final SortedSet<Offer> offerSet) {
+        List<String> offers = new ArrayList<>();
+        for (Offer offer : offerSet) {
+            offers.add(offer.getLender() + "," + offer.getRate().stripTrailingZeros() + "," + offer.getAmount());
+        }
+        return offers;
+    }
+
+    private File writeToFile(final String content) throws IOException {
+        File createdFile = folder.newFile();
+        Files.write(createdFile.toPath(), Collections.singletonList(content), StandardCharsets.UTF_8);
+        return createdFile;
+    }
+}
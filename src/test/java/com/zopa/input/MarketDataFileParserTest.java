@@ -13,6 +13,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -110,6 +111,60 @@ public class MarketDataFileParserTest {
         marketDataFileParser.getOffersFromFile(input.getPath());
     }
 
+    @Test
+    public void getCheapestOffersFromFile_moreThanCoverAmount_keepsCheapestCoveringOffers() throws IOException {
+        File input = writeToFile(Arrays.asList(
+                "Lender,Rate,Available",
+                "Bob,0.075,640",
+                "Jane,0.069,480",
+                "Fred,0.071,520",
+                "Mary,0.104,170",
+                "John,0.081,320",
+                "Dave,0.074,140",
+                "Angela,0.071,60"
+        ));
+        SortedSet<Offer> offerSet = marketDataFileParser.getCheapestOffersFromFile(input.getPath(), 1100);
+        List<String> lenders = new ArrayList<>();
+        offerSet.forEach(offer -> lenders.add(offer.getLender()));
+        assertEquals(Arrays.asList("Jane", "Fred", "Angela", "Dave"), lenders);
+    }
+
+    @Test
+    public void getCheapestOffersFromFile_equalRates_keepsEarlierOffers() throws IOException {
+        File input = writeToFile(Arrays.asList(
+                "Lender,Rate,Available",
+                "User1,0.07,500",
+                "User2,0.07,500",
+                "User3,0.07,500"
+        ));
+        SortedSet<Offer> offerSet = marketDataFileParser.getCheapestOffersFromFile(input.getPath(), 1000);
+        assertEquals(2, offerSet.size());
+        assertEquals("User1", offerSet.first().getLender());
+        assertEquals("User2", offerSet.last().getLender());
+    }
+
+    @Test
+    public void getCheapestOffersFromFile_lessThanCoverAmount_keepsAllOffers() throws IOException {
+        File input = writeToFile(Arrays.asList(
+                "Lender,Rate,Available",
+                "User1,0.56,1000",
+                "User2,0.07,15000"
+        ));
+        SortedSet<Offer> offerSet = marketDataFileParser.getCheapestOffersFromFile(input.getPath(), 20000);
+        assertEquals(2, offerSet.size());
+        assertEquals(BigDecimal.valueOf(0.07), offerSet.first().getRate());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getCheapestOffersFromFile_csvInvalidAmount_throwsException() throws IOException {
+        File input = writeToFile(Arrays.asList(
+                "Lender,Rate,Available",
+                "User1,0.56,1000",
+                "User2,0.07,invalid"
+        ));
+        marketDataFileParser.getCheapestOffersFromFile(input.getPath(), 1000);
+    }
+
     private File writeToFile(List<String> lines) throws IOException {
         File createdFile = folder.newFile(FILE_PATH);
         BufferedWriter writer = new BufferedWriter(new FileWriter(createdFile));
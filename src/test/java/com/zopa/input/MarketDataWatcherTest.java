@@ -0,0 +1,86 @@
+package com.zopa.input;
+
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.PrefixSumOrderBook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MarketDataWatcherTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final long NEVER_POLL = Long.MAX_VALUE / 2;
+
+    private final MarketDataFileParser marketDataFileParser = new MarketDataFileParser();
+
+    @Test
+    public void constructor_loadsFirstVersion() throws IOException {
+        File input = writeToFile(Arrays.asList("Lender,Rate,Available", "Bob,0.075,640"));
+        try (MarketDataWatcher watcher = newWatcher(input)) {
+            assertEquals(1, watcher.current().getVersion());
+            assertEquals(640, watcher.current().getOrderBook().totalAmount());
+        }
+    }
+
+    @Test
+    public void reloadIfChanged_unchangedFile_keepsSnapshot() throws IOException {
+        File input = writeToFile(Arrays.asList("Lender,Rate,Available", "Bob,0.075,640"));
+        try (MarketDataWatcher watcher = newWatcher(input)) {
+            MarketSnapshot snapshot = watcher.current();
+            assertFalse(watcher.reloadIfChanged());
+            assertSame(snapshot, watcher.current());
+        }
+    }
+
+    @Test
+    public void reloadIfChanged_changedFile_publishesNextVersion() throws IOException {
+        File input = writeToFile(Arrays.asList("Lender,Rate,Available", "Bob,0.075,640"));
+        try (MarketDataWatcher watcher = newWatcher(input)) {
+            MarketSnapshot snapshot = watcher.current();
+            Files.write(input.toPath(), Arrays.asList("Lender,Rate,Available", "Bob,0.075,640", "Jane,0.069,480"),
+                    StandardCharsets.UTF_8);
+            assertTrue(watcher.reloadIfChanged());
+            assertEquals(2, watcher.current().getVersion());
+            assertEquals(1120, watcher.current().getOrderBook().totalAmount());
+            // readers holding the previous snapshot keep their view
+            assertEquals(640, snapshot.getOrderBook().totalAmount());
+        }
+    }
+
+    @Test
+    public void reloadIfChanged_invalidFile_keepsPreviousSnapshot() throws IOException {
+        File input = writeToFile(Arrays.asList("Lender,Rate,Available", "Bob,0.075,640"));
+        try (MarketDataWatcher watcher = newWatcher(input)) {
+            Files.write(input.toPath(), Arrays.asList("Lender,Rate,Available", "Bob,0.075,invalid"),
+                    StandardCharsets.UTF_8);
+            assertFalse(watcher.reloadIfChanged());
+            assertEquals(1, watcher.current().getVersion());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void constructor_missingFile_throwsException() throws IOException {
+        newWatcher(new File(folder.getRoot(), "missing.csv"));
+    }
+
+    private MarketDataWatcher newWatcher(final File input) throws IOException {
+        return new MarketDataWatcher(input.getPath(),
+                path -> PrefixSumOrderBook.fromOffers(marketDataFileParser.getOffersFromFile(path)), NEVER_POLL);
+    }
+
+    private File writeToFile(final List<String> lines) throws IOException {
+        File createdFile = folder.newFile();
+        Files.write(createdFile.toPath(), lines, StandardCharsets.UTF_8);
+        return createdFile;
+    }
+}
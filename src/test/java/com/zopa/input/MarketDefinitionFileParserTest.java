@@ -0,0 +1,81 @@
+package com.zopa.input;
+
+import com.zopa.model.MarketDefinition;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MarketDefinitionFileParserTest {
+    private static final String HEADER =
+            "id,market_file,currency,locale,min_amount,max_amount,amount_multiplier,terms,default_term";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MarketDefinitionFileParser marketDefinitionFileParser = new MarketDefinitionFileParser();
+
+    @Test
+    public void getMarketDefinitionsFromFile_validFile_returnsDefinitions() throws IOException {
+        File file = write(HEADER, "GBP,gbp.csv,GBP,en-GB,1000,15000,100,12 24 36,36",
+                "EUR,/data/eur.csv,EUR,de-DE,500,20000,50,,36");
+
+        List<MarketDefinition> definitions = marketDefinitionFileParser.getMarketDefinitionsFromFile(file.getPath());
+
+        assertEquals(2, definitions.size());
+        MarketDefinition gbp = definitions.get(0);
+        assertEquals("GBP", gbp.getId());
+        assertEquals(new File(folder.getRoot(), "gbp.csv").getPath(), gbp.getMarketFile());
+        assertEquals(Currency.getInstance("GBP"), gbp.getCurrency());
+        assertEquals(Locale.UK, gbp.getLocale());
+        assertEquals(new TreeSet<>(Arrays.asList(12, 24, 36)), gbp.getTerms());
+        assertEquals(36, gbp.getDefaultNumberOfMonths());
+        MarketDefinition eur = definitions.get(1);
+        assertEquals(new File("/data/eur.csv").getPath(), eur.getMarketFile());
+        assertEquals(50, eur.getAmountMultiplier());
+        assertTrue(eur.getTerms().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getMarketDefinitionsFromFile_duplicateId_throwsException() throws IOException {
+        File file = write(HEADER, "GBP,gbp.csv,GBP,en-GB,1000,15000,100,36,36",
+                "GBP,gbp2.csv,GBP,en-GB,1000,15000,100,36,36");
+        marketDefinitionFileParser.getMarketDefinitionsFromFile(file.getPath());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getMarketDefinitionsFromFile_invalidCurrency_throwsException() throws IOException {
+        File file = write(HEADER, "GBP,gbp.csv,XYZ1,en-GB,1000,15000,100,36,36");
+        marketDefinitionFileParser.getMarketDefinitionsFromFile(file.getPath());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getMarketDefinitionsFromFile_defaultTermNotInTerms_throwsException() throws IOException {
+        File file = write(HEADER, "GBP,gbp.csv,GBP,en-GB,1000,15000,100,12 24,36");
+        marketDefinitionFileParser.getMarketDefinitionsFromFile(file.getPath());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getMarketDefinitionsFromFile_maxBelowMin_throwsException() throws IOException {
+        File file = write(HEADER, "GBP,gbp.csv,GBP,en-GB,1000,500,100,36,36");
+        marketDefinitionFileParser.getMarketDefinitionsFromFile(file.getPath());
+    }
+
+    private File write(final String... lines) throws IOException {
+        File file = folder.newFile("markets.csv");
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,70 @@
+package com.zopa.input;
+
+import com.zopa.model.IncrementalOrderBook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MarketDeltaFileParserTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MarketDeltaFileParser marketDeltaFileParser = new MarketDeltaFileParser();
+    private final IncrementalOrderBook orderBook = new IncrementalOrderBook();
+
+    @Test
+    public void applyDeltasFromFile_validEvents_appliesInOrder() throws IOException {
+        File input = writeToFile(Arrays.asList(
+                "Action,Lender,Rate,Available",
+                "ADD,Bob,0.075,640",
+                "add,Jane,0.069,480",
+                "AMEND,Bob,,100",
+                "WITHDRAW,Jane,,"
+        ));
+        assertEquals(4, marketDeltaFileParser.applyDeltasFromFile(input.getPath(), orderBook));
+        assertEquals(1, orderBook.size());
+        assertEquals(100, orderBook.totalAmount());
+        assertEquals(0, BigDecimal.valueOf(0.075).compareTo(orderBook.weightedRate(100).get()));
+    }
+
+    @Test
+    public void applyDeltasFromFile_unknownLender_reportsLineNumber() throws IOException {
+        File input = writeToFile(Arrays.asList(
+                "Action,Lender,Rate,Available",
+                "ADD,Bob,0.075,640",
+                "WITHDRAW,Jane,,"
+        ));
+        try {
+            marketDeltaFileParser.applyDeltasFromFile(input.getPath(), orderBook);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("Invalid event at line 3"));
+        }
+        assertEquals(640, orderBook.totalAmount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void applyDeltasFromFile_invalidAction_throwsException() throws IOException {
+        File input = writeToFile(Arrays.asList(
+                "Action,Lender,Rate,Available",
+                "CANCEL,Bob,0.075,640"
+        ));
+        marketDeltaFileParser.applyDeltasFromFile(input.getPath(), orderBook);
+    }
+
+    private File writeToFile(final List<String> lines) throws IOException {
+        File createdFile = folder.newFile();
+        Files.write(createdFile.toPath(), lines, StandardCharsets.UTF_8);
+        return createdFile;
+    }
+}
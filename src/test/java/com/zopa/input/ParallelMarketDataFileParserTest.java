@@ -0,0 +1,85 @@
+package com.zopa.input;
+
+import com.zopa.model.OrderBook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelMarketDataFileParserTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ParallelMarketDataFileParser parallelMarketDataFileParser =
+            new ParallelMarketDataFileParser(new ForkJoinPool(4), 64);
+    private final MappedMarketDataFileParser mappedMarketDataFileParser = new MappedMarketDataFileParser();
+
+    @Test
+    public void getOrderBookFromFile_manyChunks_sameAsSingleThreaded() throws IOException {
+        File input = writeToFile(generateMarket(2000, -1, -1));
+        OrderBook expected = mappedMarketDataFileParser.getOrderBookFromFile(input.getPath());
+        OrderBook actual = parallelMarketDataFileParser.getOrderBookFromFile(input.getPath());
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.totalAmount(), actual.totalAmount());
+        for (int amount = 1000; amount <= expected.totalAmount(); amount += 997) {
+            assertEquals(expected.weightedRate(amount), actual.weightedRate(amount));
+        }
+    }
+
+    @Test
+    public void getOrderBookFromFile_invalidRecords_reportsFirstLineNumber() throws IOException {
+        // header and an empty line come before the offer 1234
+        File input = writeToFile(generateMarket(2000, 1234, 1800));
+        String expected = "Invalid record at line 1237: Invalid amount [x]. Amount should be numerical";
+        try {
+            parallelMarketDataFileParser.getOrderBookFromFile(input.getPath());
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(expected, e.getMessage());
+        }
+        try {
+            mappedMarketDataFileParser.getOrderBookFromFile(input.getPath());
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(expected, e.getMessage());
+        }
+    }
+
+    @Test
+    public void getOrderBookFromFile_csvNoOffers_returnsEmptyOrderBook() throws IOException {
+        File input = writeToFile(generateMarket(0, -1, -1));
+        assertEquals(0, parallelMarketDataFileParser.getOrderBookFromFile(input.getPath()).size());
+    }
+
+    /**
+     * @return market file lines with invalid amounts in the given offers
+     */
+    private static List<String> generateMarket(final int offers, final int invalid1, final int invalid2) {
+        Random random = new Random(7);
+        List<String> lines = new ArrayList<>();
+        lines.add("Lender,Rate,Available");
+        for (int i = 0; i < offers; i++) {
+            if (i == 10)
+                lines.add("");
+            String amount = i == invalid1 || i == invalid2 ? "x" : String.valueOf(1 + random.nextInt(1000));
+            lines.add("L" + i + ",0.0" + (50 + random.nextInt(50)) + "," + amount);
+        }
+        return lines;
+    }
+
+    private File writeToFile(final List<String> lines) throws IOException {
+        File createdFile = folder.newFile();
+        Files.write(createdFile.toPath(), lines, StandardCharsets.UTF_8);
+        return createdFile;
+    }
+}
@@ -0,0 +1,66 @@
+package com.zopa.load;
+
+import com.zopa.app.QuoteCalculationApp;
+import com.zopa.calculator.MonthlyCompoundInterestLoanCalculator;
+import com.zopa.calculator.QuoteCalculatorHelperImpl;
+import com.zopa.input.MarketDataFileParser;
+import com.zopa.model.MarketSnapshot;
+import com.zopa.model.PrefixSumOrderBook;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void run_inProcess_sendsEveryRequestOfSchedule() throws Exception {
+        QuoteCalculationApp quoteCalculationApp = new QuoteCalculationApp(
+                new MonthlyCompoundInterestLoanCalculator(new QuoteCalculatorHelperImpl()), new MarketDataFileParser());
+        MarketSnapshot marketSnapshot = new MarketSnapshot(1, PrefixSumOrderBook.fromSortedRates(
+                new BigDecimal[]{BigDecimal.valueOf(0.069)}, new int[]{20000}), 0);
+
+        LoadTestResult result = new LoadGenerator("in-process",
+                LoadGenerator.inProcess(quoteCalculationApp, marketSnapshot), 2, 42).run(1000, 200);
+
+        assertEquals(200, result.getRequestCount());
+        assertEquals(0, result.getErrorCount());
+        assertTrue(result.getAchievedRequestsPerSecond() > 0);
+    }
+
+    @Test
+    public void run_targetStalls_reportsWaitOfQueuedRequests() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        // a single worker stalls 100ms on the first request, the requests scheduled meanwhile wait behind it
+        LoadGenerator.Target stallingTarget = (amount, numberOfMonths) -> {
+            if (calls.getAndIncrement() == 0)
+                Thread.sleep(100);
+        };
+
+        LoadTestResult result = new LoadGenerator("stalling", stallingTarget, 1, 42).run(1000, 200);
+
+        long[] latencies = result.getLatencyNanos();
+        long[] serviceTimes = result.getServiceTimeNanos();
+        // half of the requests are scheduled during the stall and wait up to its end
+        assertTrue(latencies[1] > TimeUnit.MILLISECONDS.toNanos(40));
+        assertTrue(serviceTimes[1] < TimeUnit.MILLISECONDS.toNanos(40));
+        assertTrue(serviceTimes[serviceTimes.length - 1] >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void run_failingTarget_countsErrors() throws Exception {
+        LoadTestResult result = new LoadGenerator("failing", (amount, numberOfMonths) -> {
+            throw new IllegalStateException("down");
+        }, 1, 42).run(1000, 50);
+
+        assertEquals(50, result.getErrorCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void run_zeroRate_throwsException() throws Exception {
+        new LoadGenerator("none", (amount, numberOfMonths) -> { }, 1, 42).run(0, 1000);
+    }
+}
@@ -0,0 +1,48 @@
+package com.zopa.load;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class LoadTestResultTest {
+
+    @Test
+    public void percentiles_tenThousandValues_returnsNearestRanks() {
+        long[] nanos = new long[10000];
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = nanos.length - i;
+        }
+
+        assertArrayEquals(new long[]{5000, 9000, 9900, 9990, 9999, 10000}, LoadTestResult.percentiles(nanos));
+    }
+
+    @Test
+    public void percentiles_singleValue_returnsItForEveryPercentile() {
+        assertArrayEquals(new long[]{7, 7, 7, 7, 7, 7}, LoadTestResult.percentiles(new long[]{7}));
+    }
+
+    @Test
+    public void writeJson_result_writesSingleLineObject() throws IOException {
+        LoadTestResult result = LoadTestResult.builder()
+                .target("market.csv")
+                .targetRequestsPerSecond(100)
+                .achievedRequestsPerSecond(99.5)
+                .requestCount(1000)
+                .errorCount(2)
+                .durationMillis(10050)
+                .latencyNanos(new long[]{1, 2, 3, 4, 5, 6})
+                .serviceTimeNanos(new long[]{1, 1, 2, 2, 3, 3})
+                .build();
+        StringBuilder out = new StringBuilder();
+        result.writeJson(out);
+
+        assertEquals("{\"target\":\"market.csv\",\"targetRequestsPerSecond\":100.0,\"achievedRequestsPerSecond\":99.5,"
+                + "\"requestCount\":1000,\"errorCount\":2,\"durationMillis\":10050,"
+                + "\"latencyNanos\":{\"p50\":1,\"p90\":2,\"p99\":3,\"p99.9\":4,\"p99.99\":5,\"max\":6},"
+                + "\"serviceTimeNanos\":{\"p50\":1,\"p90\":1,\"p99\":2,\"p99.9\":2,\"p99.99\":3,\"max\":3}}",
+                out.toString());
+    }
+}
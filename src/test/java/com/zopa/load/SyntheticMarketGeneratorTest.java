@@ -0,0 +1,54 @@
+package com.zopa.load;
+
+import com.zopa.input.MarketDataFileParser;
+import com.zopa.model.Offer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SortedSet;
+
+import static org.junit.Assert.*;
+
+public class SyntheticMarketGeneratorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void write_normalRates_writesParseableMarketWithinRange() throws IOException {
+        Path marketFile = folder.getRoot().toPath().resolve("market.csv");
+        new SyntheticMarketGenerator(SyntheticMarketGenerator.RateDistribution.NORMAL, 0.02, 0.15, 1000, 42)
+                .write(2000, marketFile);
+
+        SortedSet<Offer> offers = new MarketDataFileParser().getOffersFromFile(marketFile.toString());
+        assertEquals(2000, offers.size());
+        assertTrue(offers.first().getRate().compareTo(new BigDecimal("0.020")) >= 0);
+        assertTrue(offers.last().getRate().compareTo(new BigDecimal("0.150")) <= 0);
+        for (Offer offer : offers) {
+            assertEquals(3, offer.getRate().scale());
+            assertTrue(offer.getAmount() >= 1 && offer.getAmount() <= 1000);
+        }
+    }
+
+    @Test
+    public void write_sameSeed_writesSameMarket() throws IOException {
+        Path first = folder.getRoot().toPath().resolve("first.csv");
+        Path second = folder.getRoot().toPath().resolve("second.csv");
+        new SyntheticMarketGenerator(SyntheticMarketGenerator.RateDistribution.UNIFORM, 0.05, 0.1, 500, 7)
+                .write(100, first);
+        new SyntheticMarketGenerator(SyntheticMarketGenerator.RateDistribution.UNIFORM, 0.05, 0.1, 500, 7)
+                .write(100, second);
+
+        assertEquals(Files.readAllLines(first), Files.readAllLines(second));
+        assertEquals(SyntheticMarketGenerator.CSV_HEADER, Files.readAllLines(first).get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_minRateAboveMaxRate_throwsException() {
+        new SyntheticMarketGenerator(SyntheticMarketGenerator.RateDistribution.UNIFORM, 0.2, 0.1, 500, 7);
+    }
+}
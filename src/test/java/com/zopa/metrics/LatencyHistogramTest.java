@@ -0,0 +1,44 @@
+package com.zopa.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getPercentileNanos_aboveHundred_throwsException() {
+        histogram.getPercentileNanos(101);
+    }
+
+    @Test
+    public void getPercentileNanos_empty_returnsZero() {
+        assertEquals(0, histogram.getPercentileNanos(99));
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    public void record_latencies_tracksCountTotalAndMax() {
+        histogram.record(100);
+        histogram.record(300);
+        histogram.record(-5);
+        assertEquals(3, histogram.getCount());
+        assertEquals(400, histogram.getTotalNanos());
+        assertEquals(300, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void getPercentileNanos_recordedLatencies_returnsUpperBoundWithinFactorOfTwo() {
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(1_000_000);
+        long p50 = histogram.getPercentileNanos(50);
+        assertTrue(p50 >= 1000 && p50 < 2000);
+        long p99 = histogram.getPercentileNanos(99);
+        assertTrue(p99 >= 1000 && p99 < 2000);
+        assertEquals(1_000_000, histogram.getPercentileNanos(100));
+    }
+}
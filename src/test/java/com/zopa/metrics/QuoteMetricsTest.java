@@ -0,0 +1,116 @@
+package com.zopa.metrics;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class QuoteMetricsTest {
+
+    @Test
+    public void record_disabled_recordsNothing() {
+        QuoteMetrics quoteMetrics = new QuoteMetrics(false);
+        long start = quoteMetrics.start();
+        quoteMetrics.record(Stage.RATE, start);
+        quoteMetrics.count(Outcome.QUOTED);
+        assertEquals(0, start);
+        assertEquals(0, quoteMetrics.getHistogram(Stage.RATE).getCount());
+        assertEquals(0, quoteMetrics.getCount(Outcome.QUOTED));
+    }
+
+    @Test
+    public void record_enabled_recordsStagesAndOutcomes() {
+        QuoteMetrics quoteMetrics = new QuoteMetrics(true);
+        quoteMetrics.record(Stage.RATE, quoteMetrics.start());
+        quoteMetrics.record(Stage.RATE, quoteMetrics.start());
+        quoteMetrics.count(Outcome.REJECTED);
+        assertEquals(2, quoteMetrics.getHistogram(Stage.RATE).getCount());
+        assertEquals(0, quoteMetrics.getHistogram(Stage.PARSE).getCount());
+        assertEquals(1, quoteMetrics.getCount(Outcome.REJECTED));
+    }
+
+    @Test
+    public void report_enabled_listsStagesAndOutcomes() {
+        QuoteMetrics quoteMetrics = new QuoteMetrics(true);
+        quoteMetrics.record(Stage.DISCOUNT_FACTOR, quoteMetrics.start());
+        quoteMetrics.count(Outcome.NOT_AVAILABLE);
+        String report = quoteMetrics.report();
+        assertTrue(report.contains("DISCOUNT_FACTOR count=1"));
+        assertTrue(report.contains("FORMAT          count=0"));
+        assertTrue(report.contains("quoted=0 rejected=0 not_available=1"));
+    }
+
+    @Test
+    public void registerMBeans_enabled_exposesStagesAndOutcomes() throws Exception {
+        QuoteMetrics quoteMetrics = new QuoteMetrics(true);
+        quoteMetrics.registerMBeans();
+        // registering again keeps the beans of the first registration
+        new QuoteMetrics(true).registerMBeans();
+        quoteMetrics.record(Stage.PAYMENT, quoteMetrics.start());
+        quoteMetrics.count(Outcome.QUOTED);
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(1L, mBeanServer.getAttribute(
+                new ObjectName(QuoteMetrics.OBJECT_NAME_PREFIX + ",stage=payment"), "Count"));
+        assertEquals(1L, mBeanServer.getAttribute(
+                new ObjectName(QuoteMetrics.OBJECT_NAME_PREFIX + ",name=outcomes"), "QuoteCount"));
+    }
+
+    @Test
+    public void report_registeredCache_listsHitsAndMisses() {
+        QuoteMetrics quoteMetrics = new QuoteMetrics(true);
+        quoteMetrics.registerCache("quotes", cache(3, 1, 5));
+        assertTrue(quoteMetrics.report().contains("cache quotes hits=3 misses=1 hit_ratio=0.750 size=5"));
+
+        quoteMetrics.unregisterCache("quotes");
+        assertFalse(quoteMetrics.report().contains("cache quotes"));
+    }
+
+    @Test
+    public void registerCache_disabled_reportsNothing() {
+        QuoteMetrics quoteMetrics = new QuoteMetrics(false);
+        quoteMetrics.registerCache("quotes", cache(3, 1, 5));
+        assertFalse(quoteMetrics.report().contains("cache quotes"));
+    }
+
+    @Test
+    public void registerCache_afterRegisterMBeans_exposesCache() throws Exception {
+        QuoteMetrics quoteMetrics = new QuoteMetrics(true);
+        MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        quoteMetrics.registerMBeans(mBeanServer);
+        quoteMetrics.registerCache("market \"a\"", cache(3, 1, 5));
+
+        ObjectName objectName = new ObjectName(QuoteMetrics.cacheObjectName("market \"a\""));
+        assertEquals(3L, mBeanServer.getAttribute(objectName, "HitCount"));
+        assertEquals(0.75, mBeanServer.getAttribute(objectName, "HitRatio"));
+
+        quoteMetrics.unregisterCache("market \"a\"");
+        assertFalse(mBeanServer.isRegistered(objectName));
+    }
+
+    private static CacheMetricsMXBean cache(final long hits, final long misses, final int size) {
+        return new CacheMetricsMXBean() {
+            public long getHitCount() {
+                return hits;
+            }
+
+            public long getMissCount() {
+                return misses;
+            }
+
+            public double getHitRatio() {
+                return (double) hits / (hits + misses);
+            }
+
+            public int getSize() {
+                return size;
+            }
+        };
+    }
+}
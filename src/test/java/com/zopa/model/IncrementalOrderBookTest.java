@@ -0,0 +1,128 @@
+package com.zopa.model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IncrementalOrderBookTest {
+
+    private final IncrementalOrderBook orderBook = new IncrementalOrderBook();
+
+    @Test
+    public void weightedRate_afterAdds_returnsWeightedAverage() {
+        orderBook.add("Bob", BigDecimal.valueOf(0.075), 640);
+        orderBook.add("Jane", BigDecimal.valueOf(0.069), 480);
+        orderBook.add("Fred", BigDecimal.valueOf(0.071), 520);
+        assertEquals(0, BigDecimal.valueOf(0.07004).compareTo(orderBook.weightedRate(1000).get()));
+        assertEquals(1640, orderBook.totalAmount());
+        assertEquals(3, orderBook.size());
+    }
+
+    @Test
+    public void weightedRate_afterAmendAndWithdraw_returnsWeightedAverage() {
+        orderBook.add("Bob", BigDecimal.valueOf(0.075), 640);
+        orderBook.add("Jane", BigDecimal.valueOf(0.069), 480);
+        orderBook.add("Fred", BigDecimal.valueOf(0.071), 520);
+        orderBook.amend("Jane", 1000);
+        assertEquals(0, BigDecimal.valueOf(0.069).compareTo(orderBook.weightedRate(1000).get()));
+        orderBook.withdraw("Jane");
+        assertEquals(0, BigDecimal.valueOf(0.071).compareTo(orderBook.weightedRate(500).get()));
+        assertFalse(orderBook.weightedRate(1161).isPresent());
+    }
+
+    @Test
+    public void weightedRate_randomEvents_sameAsRebuiltOrderBook() {
+        Random random = new Random(11);
+        List<ReferenceOffer> reference = new ArrayList<>();
+        for (int event = 0; event < 3000; event++) {
+            int action = random.nextInt(4);
+            if (reference.isEmpty() || action < 2) {
+                ReferenceOffer offer = new ReferenceOffer("L" + event,
+                        BigDecimal.valueOf(50 + random.nextInt(20), 3), 1 + random.nextInt(1000), event);
+                orderBook.add(offer.lender, offer.rate, offer.amount);
+                reference.add(offer);
+            } else if (action == 2) {
+                ReferenceOffer offer = reference.get(random.nextInt(reference.size()));
+                offer.amount = 1 + random.nextInt(1000);
+                orderBook.amend(offer.lender, offer.amount);
+            } else {
+                ReferenceOffer offer = reference.remove(random.nextInt(reference.size()));
+                orderBook.withdraw(offer.lender);
+            }
+
+            if (event % 50 == 0) {
+                PrefixSumOrderBook expected = rebuild(reference);
+                assertEquals(expected.totalAmount(), orderBook.totalAmount());
+                for (int amount = 1; amount <= expected.totalAmount() + 1; amount += 1 + random.nextInt(2000)) {
+                    assertSameRate(expected.weightedRate(amount), orderBook.weightedRate(amount));
+                }
+            }
+        }
+        assertSameRate(rebuild(reference).weightedRate(5000), orderBook.snapshot().weightedRate(5000));
+    }
+
+    @Test
+    public void apply_events_changesBook() {
+        orderBook.apply(OfferEvent.builder().type(OfferEvent.Type.ADD).lender("Bob")
+                .rate(BigDecimal.valueOf(0.075)).amount(640).build());
+        orderBook.apply(OfferEvent.builder().type(OfferEvent.Type.AMEND).lender("Bob").amount(100).build());
+        assertEquals(100, orderBook.totalAmount());
+        orderBook.apply(OfferEvent.builder().type(OfferEvent.Type.WITHDRAW).lender("Bob").build());
+        assertEquals(0, orderBook.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void add_existingLender_throwsException() {
+        orderBook.add("Bob", BigDecimal.valueOf(0.075), 640);
+        orderBook.add("Bob", BigDecimal.valueOf(0.07), 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void amend_unknownLender_throwsException() {
+        orderBook.amend("Bob", 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withdraw_unknownLender_throwsException() {
+        orderBook.withdraw("Bob");
+    }
+
+    private static void assertSameRate(final Optional<BigDecimal> expected, final Optional<BigDecimal> actual) {
+        assertEquals(expected.isPresent(), actual.isPresent());
+        if (expected.isPresent())
+            assertEquals(0, expected.get().compareTo(actual.get()));
+    }
+
+    private static PrefixSumOrderBook rebuild(final List<ReferenceOffer> reference) {
+        List<ReferenceOffer> sorted = new ArrayList<>(reference);
+        sorted.sort(Comparator.comparing((ReferenceOffer offer) -> offer.rate).thenComparingInt(offer -> offer.arrival));
+        BigDecimal[] rates = new BigDecimal[sorted.size()];
+        int[] amounts = new int[sorted.size()];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = sorted.get(i).rate;
+            amounts[i] = sorted.get(i).amount;
+        }
+        return PrefixSumOrderBook.fromSortedRates(rates, amounts);
+    }
+
+    private static class ReferenceOffer {
+        private final String lender;
+        private final BigDecimal rate;
+        private final int arrival;
+        private int amount;
+
+        ReferenceOffer(final String lender, final BigDecimal rate, final int amount, final int arrival) {
+            this.lender = lender;
+            this.rate = rate;
+            this.amount = amount;
+            this.arrival = arrival;
+        }
+    }
+}
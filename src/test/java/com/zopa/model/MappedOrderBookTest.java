@@ -0,0 +1,121 @@
+package com.zopa.model;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class MappedOrderBookTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SortedSet<Offer> offerSet = new TreeSet<>(Arrays.asList(
+            Offer.builder().rate(BigDecimal.valueOf(0.075)).amount(640).lender("Bob").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.069)).amount(480).lender("Jane").build(),
+            Offer.builder().rate(new BigDecimal("0.0715")).amount(520).lender("Fred").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.104)).amount(170).lender("Mary").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.071)).amount(60).lender("Bob").build()));
+
+    private Path snapshotFile;
+
+    @Before
+    public void setup() throws IOException {
+        snapshotFile = folder.getRoot().toPath().resolve("market" + MappedOrderBook.FILE_EXTENSION);
+        MappedOrderBook.write(offerSet, snapshotFile);
+    }
+
+    @Test
+    public void open_writtenOffers_keepsOffersInRateOrder() throws IOException {
+        MappedOrderBook orderBook = MappedOrderBook.open(snapshotFile);
+
+        assertEquals(5, orderBook.size());
+        assertEquals(1870, orderBook.totalAmount());
+        int i = 0;
+        for (Offer offer : offerSet) {
+            assertEquals(0, offer.getRate().compareTo(orderBook.getRate(i)));
+            assertEquals(offer.getAmount(), orderBook.getAmount(i));
+            assertEquals(offer.getLender(), orderBook.getLender(i));
+            i++;
+        }
+    }
+
+    @Test
+    public void weightedRate_everyAmount_sameAsPrefixSumOrderBook() throws IOException {
+        MappedOrderBook orderBook = MappedOrderBook.open(snapshotFile);
+        PrefixSumOrderBook expected = PrefixSumOrderBook.fromOffers(offerSet);
+
+        for (int amount = 1; amount <= 1870; amount++) {
+            // rates keep the largest scale of the market, 0.069 is mapped as 0.0690
+            assertEquals(0, expected.weightedRate(amount).get().compareTo(orderBook.weightedRate(amount).get()));
+        }
+        assertFalse(orderBook.weightedRate(1871).isPresent());
+    }
+
+    @Test
+    public void weightedRate_randomMarket_sameAsPrefixSumOrderBook() throws IOException {
+        Random random = new Random(42);
+        SortedSet<Offer> randomOffers = new TreeSet<>();
+        for (int i = 0; i < 500; i++) {
+            randomOffers.add(Offer.builder().rate(BigDecimal.valueOf(1 + random.nextInt(300000), 6))
+                    .amount(1 + random.nextInt(1000)).lender("L" + random.nextInt(50)).build());
+        }
+        MappedOrderBook.write(randomOffers, snapshotFile);
+        MappedOrderBook orderBook = MappedOrderBook.open(snapshotFile);
+        PrefixSumOrderBook expected = PrefixSumOrderBook.fromOffers(randomOffers);
+
+        for (int i = 0; i < 2000; i++) {
+            int amount = 1 + random.nextInt((int) expected.totalAmount());
+            assertEquals(expected.weightedRate(amount), orderBook.weightedRate(amount));
+        }
+    }
+
+    @Test
+    public void write_existingSnapshot_keepsMappedSnapshotReadable() throws IOException {
+        MappedOrderBook previous = MappedOrderBook.open(snapshotFile);
+        MappedOrderBook.write(new TreeSet<>(Arrays.asList(
+                Offer.builder().rate(BigDecimal.valueOf(0.05)).amount(100).lender("Ann").build())), snapshotFile);
+
+        assertEquals(1870, previous.totalAmount());
+        assertEquals(100, MappedOrderBook.open(snapshotFile).totalAmount());
+    }
+
+    @Test
+    public void open_emptyMarket_hasNoRate() throws IOException {
+        MappedOrderBook.write(new TreeSet<>(), snapshotFile);
+        MappedOrderBook orderBook = MappedOrderBook.open(snapshotFile);
+
+        assertEquals(0, orderBook.size());
+        assertFalse(orderBook.weightedRate(1000).isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void open_csvFile_throwsException() throws IOException {
+        Path csvFile = folder.newFile("market.csv").toPath();
+        Files.write(csvFile, "Lender,Rate,Available\nBob,0.075,640\nJane,0.069,480\n".getBytes("UTF-8"));
+        MappedOrderBook.open(csvFile);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void open_truncatedSnapshot_throwsException() throws IOException {
+        byte[] snapshot = Files.readAllBytes(snapshotFile);
+        Files.write(snapshotFile, Arrays.copyOf(snapshot, snapshot.length - 3));
+        MappedOrderBook.open(snapshotFile);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getLender_indexOutOfRange_throwsException() throws IOException {
+        MappedOrderBook.open(snapshotFile).getLender(5);
+    }
+}
@@ -0,0 +1,75 @@
+package com.zopa.model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class PrefixSumOrderBookTest {
+
+    private final PrefixSumOrderBook orderBook = PrefixSumOrderBook.fromOffers(new TreeSet<>(Arrays.asList(
+            Offer.builder().rate(BigDecimal.valueOf(0.075)).amount(640).lender("Bob").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.069)).amount(480).lender("Jane").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.071)).amount(520).lender("Fred").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.104)).amount(170).lender("Mary").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.081)).amount(320).lender("John").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.074)).amount(140).lender("Dave").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.071)).amount(60).lender("Angela").build())));
+
+    @Test
+    public void totalAmount_sumsAllOffers() {
+        assertEquals(2330, orderBook.totalAmount());
+        assertEquals(7, orderBook.size());
+    }
+
+    @Test
+    public void weightedRate_amountWithinFirstOffer_returnsItsRate() {
+        Optional<BigDecimal> rate = orderBook.weightedRate(100);
+        assertTrue(rate.isPresent());
+        assertEquals(0, BigDecimal.valueOf(0.069).compareTo(rate.get()));
+    }
+
+    @Test
+    public void weightedRate_amountOnOfferBoundary_returnsWeightedAverage() {
+        // 480 x 0.069 + 520 x 0.071 = 70.04
+        Optional<BigDecimal> rate = orderBook.weightedRate(1000);
+        assertEquals(0, BigDecimal.valueOf(0.07004).compareTo(rate.get()));
+    }
+
+    @Test
+    public void weightedRate_amountWithinOffer_returnsWeightedAverage() {
+        Optional<BigDecimal> rate = orderBook.weightedRate(1700);
+        assertEquals(BigDecimal.valueOf(0.0719), rate.get().setScale(4, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    public void weightedRate_allAvailable_returnsWeightedAverage() {
+        assertTrue(orderBook.weightedRate(2330).isPresent());
+    }
+
+    @Test
+    public void weightedRate_moreThanAvailable_returnsEmpty() {
+        assertFalse(orderBook.weightedRate(2331).isPresent());
+    }
+
+    @Test
+    public void weightedRate_emptyBook_returnsEmpty() {
+        assertFalse(PrefixSumOrderBook.fromOffers(new TreeSet<>()).weightedRate(1000).isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void weightedRate_zeroAmount_throwsException() {
+        orderBook.weightedRate(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromSortedRates_unsortedRates_throwsException() {
+        PrefixSumOrderBook.fromSortedRates(
+                new BigDecimal[]{BigDecimal.valueOf(0.07), BigDecimal.valueOf(0.06)}, new int[]{100, 100});
+    }
+}
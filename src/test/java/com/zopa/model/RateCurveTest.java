@@ -0,0 +1,74 @@
+package com.zopa.model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class RateCurveTest {
+
+    private final SortedSet<Offer> offerSet = new TreeSet<>(Arrays.asList(
+            Offer.builder().rate(BigDecimal.valueOf(0.075)).amount(640).lender("Bob").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.069)).amount(480).lender("Jane").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.071)).amount(520).lender("Fred").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.071)).amount(60).lender("Angela").build()));
+
+    @Test
+    public void fromOffers_offersOfSameRate_mergedIntoOneBreakpoint() {
+        List<RateCurve.Breakpoint> breakpoints = RateCurve.fromOffers(offerSet).getBreakpoints();
+
+        assertEquals(3, breakpoints.size());
+        assertEquals(480, breakpoints.get(0).getAmount());
+        assertEquals(0, BigDecimal.valueOf(0.069).compareTo(breakpoints.get(0).getRate()));
+        assertEquals(1060, breakpoints.get(1).getAmount());
+        assertEquals(0, BigDecimal.valueOf(0.071).compareTo(breakpoints.get(1).getMarginalRate()));
+        assertEquals(1700, breakpoints.get(2).getAmount());
+        assertEquals(0, BigDecimal.valueOf(0.075).compareTo(breakpoints.get(2).getMarginalRate()));
+    }
+
+    @Test
+    public void rateAt_breakpointAmount_returnsRateOfBreakpoint() {
+        RateCurve rateCurve = RateCurve.fromOffers(offerSet);
+
+        for (RateCurve.Breakpoint breakpoint : rateCurve.getBreakpoints()) {
+            assertEquals(breakpoint.getRate(), rateCurve.rateAt((int) breakpoint.getAmount()).get());
+        }
+        assertFalse(rateCurve.rateAt(1701).isPresent());
+    }
+
+    @Test
+    public void rateAt_randomMarket_sameAsOrderBook() {
+        Random random = new Random(42);
+        SortedSet<Offer> randomOffers = new TreeSet<>();
+        for (int i = 0; i < 300; i++) {
+            randomOffers.add(Offer.builder().rate(BigDecimal.valueOf(1 + random.nextInt(200), 3))
+                    .amount(random.nextInt(1000)).lender("L" + i).build());
+        }
+        RateCurve rateCurve = RateCurve.fromOffers(randomOffers);
+        PrefixSumOrderBook orderBook = PrefixSumOrderBook.fromOffers(randomOffers);
+
+        assertEquals(orderBook.totalAmount(), rateCurve.totalAmount());
+        for (int amount = 1; amount <= orderBook.totalAmount(); amount += 7) {
+            assertEquals(0, orderBook.weightedRate(amount).get().compareTo(rateCurve.rateAt(amount).get()));
+        }
+    }
+
+    @Test
+    public void fromOffers_noOffers_returnsEmptyCurve() {
+        RateCurve rateCurve = RateCurve.fromOffers(new TreeSet<>());
+
+        assertTrue(rateCurve.getBreakpoints().isEmpty());
+        assertFalse(rateCurve.rateAt(1000).isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rateAt_zeroAmount_throwsException() {
+        RateCurve.fromOffers(offerSet).rateAt(0);
+    }
+}
@@ -0,0 +1,46 @@
+package com.zopa.output;
+
+import com.zopa.calculator.AmortizationSchedule;
+import com.zopa.model.Quote;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+
+public class AmortizationScheduleWriterTest {
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    @Test
+    public void write_schedule_writesHeaderAndOneRecordPerPeriod() throws IOException {
+        Quote quote = Quote.builder()
+                .requestedAmount(1000)
+                .rate(BigDecimal.valueOf(0.12))
+                .monthlyRepayment(new BigDecimal("507.512438"))
+                .totalRepayment(new BigDecimal("1015.024876"))
+                .build();
+        StringWriter out = new StringWriter();
+
+        try (AmortizationScheduleWriter writer = new AmortizationScheduleWriter(out)) {
+            assertEquals(2, writer.write("L1", new AmortizationSchedule(quote, 2, 2)));
+        }
+
+        assertEquals(AmortizationScheduleWriter.CSV_HEADER + LINE_SEPARATOR
+                + "L1,1,507.51,10.00,497.51,502.49," + LINE_SEPARATOR
+                + "L1,2,507.51,5.02,502.49,0.00," + LINE_SEPARATOR, out.toString());
+    }
+
+    @Test
+    public void writeError_error_writesQuotedErrorRecord() throws IOException {
+        StringWriter out = new StringWriter();
+
+        try (AmortizationScheduleWriter writer = new AmortizationScheduleWriter(out)) {
+            writer.writeError("L2", "Invalid \"amount\"");
+        }
+
+        assertEquals(AmortizationScheduleWriter.CSV_HEADER + LINE_SEPARATOR
+                + "L2,,,,,,\"Invalid \"\"amount\"\"\"" + LINE_SEPARATOR, out.toString());
+    }
+}
@@ -0,0 +1,108 @@
+package com.zopa.output;
+
+import com.zopa.model.Quote;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class QuoteRendererTest {
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private final QuoteRenderer quoteRenderer = QuoteRenderer.DEFAULT;
+
+    private static Quote quote() {
+        return Quote.builder()
+                .requestedAmount(2468)
+                .rate(BigDecimal.valueOf(0.0032))
+                .monthlyRepayment(BigDecimal.valueOf(123.45678))
+                .totalRepayment(BigDecimal.valueOf(9876.5432))
+                .marketVersion(7)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void render_nullQuote_throwsException() {
+        quoteRenderer.render(null, QuoteRenderer.Format.TEXT);
+    }
+
+    @Test
+    public void render_text_formatsInLocaleAndCurrency() {
+        assertEquals("Requested amount: £2468" + LINE_SEPARATOR +
+                        "Rate: 0.3%" + LINE_SEPARATOR +
+                        "Monthly repayment: £123.46" + LINE_SEPARATOR +
+                        "Total repayment: £9876.54" + LINE_SEPARATOR,
+                quoteRenderer.render(quote(), QuoteRenderer.Format.TEXT));
+    }
+
+    @Test
+    public void render_json_writesCompactObject() {
+        assertEquals("{\"requestedAmount\":2468,\"rate\":0.0032,\"monthlyRepayment\":123.46,"
+                        + "\"totalRepayment\":9876.54,\"currency\":\"GBP\",\"marketVersion\":7}",
+                quoteRenderer.render(quote(), QuoteRenderer.Format.JSON));
+    }
+
+    @Test
+    public void render_csv_writesRecordOfHeaderColumns() {
+        assertEquals("2468,0.0032,123.46,9876.54,GBP,7", quoteRenderer.render(quote(), QuoteRenderer.Format.CSV));
+        assertEquals(6, QuoteRenderer.CSV_HEADER.split(",").length);
+    }
+
+    @Test
+    public void write_reusedWriter_appendsQuotes() throws IOException {
+        StringWriter writer = new StringWriter();
+        quoteRenderer.write(quote(), QuoteRenderer.Format.CSV, writer);
+        writer.write('\n');
+        quoteRenderer.write(quote(), QuoteRenderer.Format.CSV, writer);
+        assertEquals("2468,0.0032,123.46,9876.54,GBP,7\n2468,0.0032,123.46,9876.54,GBP,7", writer.toString());
+    }
+
+    @Test
+    public void render_otherLocaleAndCurrency_formatsAsNumberFormat() {
+        QuoteRenderer euroRenderer = new QuoteRenderer(Locale.GERMANY, Currency.getInstance("EUR"));
+        NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(Locale.GERMANY);
+        currencyFormat.setCurrency(Currency.getInstance("EUR"));
+        currencyFormat.setGroupingUsed(false);
+        String text = euroRenderer.render(quote(), QuoteRenderer.Format.TEXT);
+        assertEquals("Monthly repayment: " + currencyFormat.format(BigDecimal.valueOf(123.45678)),
+                text.split(LINE_SEPARATOR)[2]);
+        assertEquals("{\"requestedAmount\":2468,\"rate\":0.0032,\"monthlyRepayment\":123.46,"
+                        + "\"totalRepayment\":9876.54,\"currency\":\"EUR\",\"marketVersion\":7}",
+                euroRenderer.render(quote(), QuoteRenderer.Format.JSON));
+    }
+
+    @Test
+    public void render_concurrentThreads_formatsEveryQuoteCorrectly() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                final int amount = 1000 + i;
+                Callable<String> task = () -> quoteRenderer.render(quote().toBuilder()
+                        .requestedAmount(amount)
+                        .monthlyRepayment(BigDecimal.valueOf(amount, 2))
+                        .build(), QuoteRenderer.Format.TEXT);
+                results.add(executor.submit(task));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                String[] lines = results.get(i).get().split(LINE_SEPARATOR);
+                assertEquals("Requested amount: £" + (1000 + i), lines[0]);
+                assertEquals("Monthly repayment: £" + BigDecimal.valueOf(1000 + i, 2), lines[2]);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.zopa.output;
+
+import com.zopa.model.Offer;
+import com.zopa.model.RateCurve;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class RateCurveRendererTest {
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private final RateCurve rateCurve = RateCurve.fromOffers(new TreeSet<>(Arrays.asList(
+            Offer.builder().rate(BigDecimal.valueOf(0.07)).amount(500).lender("Jane").build(),
+            Offer.builder().rate(BigDecimal.valueOf(0.08)).amount(500).lender("Bob").build())));
+
+    @Test
+    public void writeCsv_curve_writesHeaderAndBreakpoints() throws IOException {
+        StringBuilder out = new StringBuilder();
+        RateCurveRenderer.writeCsv(rateCurve, out);
+
+        assertEquals(RateCurveRenderer.CSV_HEADER + LINE_SEPARATOR
+                + "500,0.07,0.07" + LINE_SEPARATOR
+                + "1000,0.075,0.08" + LINE_SEPARATOR, out.toString());
+    }
+
+    @Test
+    public void writeJson_curve_writesArrayOfBreakpoints() throws IOException {
+        StringBuilder out = new StringBuilder();
+        RateCurveRenderer.writeJson(rateCurve, out);
+
+        assertEquals("[{\"amount\":500,\"rate\":0.07,\"marginalRate\":0.07},"
+                + "{\"amount\":1000,\"rate\":0.075,\"marginalRate\":0.08}]", out.toString());
+    }
+}